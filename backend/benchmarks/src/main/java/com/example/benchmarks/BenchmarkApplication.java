@@ -0,0 +1,89 @@
+package com.example.benchmarks;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.Models.Product;
+import com.example.demo.Models.Supplier;
+import com.example.demo.Service.ProductSearchIndex;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.SupplierRepository;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the real application against an in-memory H2 database in PostgreSQL mode and seeds a
+ * catalog, so the benchmarks go through the same services, repositories and listeners as production.
+ */
+final class BenchmarkApplication {
+
+    // every tenth product is below its minimum, the rest have stock that sells will not exhaust
+    static final int LOW_EVERY = 10;
+    static final String DATABASE_URL =
+            "jdbc:h2:mem:bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+
+    private BenchmarkApplication() {
+    }
+
+    // overrides are --property=value arguments for one benchmark, replacing the defaults below
+    static ConfigurableApplicationContext start(int products, String... overrides) {
+        SpringApplication app = new SpringApplication(DemoApplication.class);
+        app.setWebApplicationType(WebApplicationType.NONE);
+        // command line arguments win over the application.properties bundled in the demo jar
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + DATABASE_URL,
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.hikari.maximum-pool-size=32",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--spring.sql.init.mode=never",
+                "--spring.mail.host=localhost",
+                "--spring.mail.port=2525",
+                "--logging.level.root=WARN"));
+        for (String override : overrides) {
+            String key = override.substring(0, override.indexOf('=') + 1);
+            args.removeIf(arg -> arg.startsWith(key));
+            args.add(override);
+        }
+        ConfigurableApplicationContext context = app.run(args.toArray(String[]::new));
+        seed(context, products);
+        return context;
+    }
+
+    private static void seed(ConfigurableApplicationContext context, int products) {
+        SupplierRepository suppliers = context.getBean(SupplierRepository.class);
+        ProductRepository repository = context.getBean(ProductRepository.class);
+
+        Supplier supplier = new Supplier();
+        supplier.setName("Bench Supplier");
+        supplier.setEmail("supplier@example.com");
+        supplier = suppliers.save(supplier);
+
+        List<Product> batch = new ArrayList<>();
+        for (int i = 0; i < products; i++) {
+            Product product = new Product();
+            product.setName("item " + i);
+            boolean low = i % LOW_EVERY == 0;
+            product.setStock(low ? 1 : 1_000_000_000);
+            product.setMinStock(low ? 5 : 1);
+            product.setPrice(1 + i % 100);
+            product.setSupplier(supplier);
+            batch.add(product);
+            if (batch.size() == 1000) {
+                repository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        repository.saveAll(batch);
+
+        // seeding bypasses the services, so load the search index the way startup does
+        context.getBean(ProductSearchIndex.class)
+                .load(repository.findNamesAfter(Long.MIN_VALUE, PageRequest.of(0, Math.max(1, products))));
+    }
+}
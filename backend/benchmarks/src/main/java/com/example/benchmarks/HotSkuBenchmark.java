@@ -0,0 +1,71 @@
+package com.example.benchmarks;
+
+import com.example.demo.Models.Product;
+import com.example.demo.Service.ProductService;
+import com.example.demo.Service.StockSlots;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.StockLevel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every thread selling the same product, through ProductService.updateStock. slots=1 is the plain
+ * row-level sell, higher values split the product's stock over that many slot rows first. Compare
+ * thread counts to see how each scales, e.g. -Djmh.args="HotSku -t 1" against -t 4 and -t 16.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(Threads.MAX)
+@Fork(1)
+public class HotSkuBenchmark {
+
+    @Param({"1", "8", "32"})
+    public int slots;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private long hotId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(100);
+        productService = context.getBean(ProductService.class);
+        hotId = context.getBean(ProductRepository.class).findAll(Sort.by("id")).stream()
+                .filter(p -> p.getStock() > p.getMinStock())
+                .mapToLong(Product::getId)
+                .findFirst()
+                .orElseThrow();
+        if (slots > 1) {
+            context.getBean(StockSlots.class).split(hotId, slots);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public StockLevel sellHotSku() {
+        return productService.updateStock(hotId, 1);
+    }
+}
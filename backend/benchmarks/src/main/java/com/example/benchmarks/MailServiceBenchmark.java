@@ -0,0 +1,60 @@
+package com.example.benchmarks;
+
+import com.example.demo.Service.LowStockAlert;
+import com.example.demo.Service.MailService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building low-stock mails (single alert and supplier digests). Only the message is built, sending
+ * would measure the hand-off to MailService's sender threads and SMTP rather than the mail itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MailServiceBenchmark {
+
+    @Param({"1", "20"})
+    public int alerts;
+
+    private MailService mailService;
+    private List<LowStockAlert> digest;
+
+    @Setup
+    public void setUp() {
+        mailService = new MailService(new JavaMailSenderImpl());
+        digest = new ArrayList<>();
+        for (int i = 0; i < alerts; i++) {
+            digest.add(new LowStockAlert((long) i, "item " + i, "supplier@example.com", 2, 10));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        mailService.stop();
+    }
+
+    @Benchmark
+    public SimpleMailMessage lowStockDigest() {
+        return mailService.lowStockDigest("supplier@example.com", digest);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.benchmarks;
+
+import com.example.demo.Models.Product;
+import com.example.demo.Models.Supplier;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.SupplierRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving products through the JPA repository, 1000 per saveAll transaction, with the ids from the
+ * pooled-lo sequence ("sequence") or from an IDENTITY column as before ("identity", remapped by
+ * META-INF/identity-ids.xml). IDENTITY needs each INSERT executed on its own to read the key back,
+ * so Hibernate cannot batch them: a round trip per row instead of one per 50. roundTripMicros puts
+ * that round trip in front of the in-memory database (see {@link RoundTripLatency}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ProductInsertBenchmark {
+
+    @Param({"identity", "sequence"})
+    public String ids;
+
+    @Param("100000")
+    public int products;
+
+    // 0 is in-process H2, 200 roughly a PostgreSQL server in the same data centre
+    @Param({"0", "200"})
+    public int roundTripMicros;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository repository;
+    private Supplier supplier;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String latency = "--bench.round-trip-micros=" + roundTripMicros;
+        String initializer = "--context.initializer.classes=" + RoundTripLatency.class.getName();
+        context = ids.equals("identity")
+                ? BenchmarkApplication.start(0, latency, initializer,
+                        "--spring.jpa.mapping-resources=META-INF/identity-ids.xml")
+                : BenchmarkApplication.start(0, latency, initializer);
+        repository = context.getBean(ProductRepository.class);
+        supplier = context.getBean(SupplierRepository.class).findAll().get(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clear() {
+        repository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long insert() {
+        List<Product> batch = new ArrayList<>();
+        for (int i = 0; i < products; i++) {
+            Product product = new Product();
+            product.setName("new item " + i);
+            product.setStock(100);
+            product.setMinStock(10);
+            product.setPrice(1 + i % 100);
+            product.setSupplier(supplier);
+            batch.add(product);
+            if (batch.size() == 1000) {
+                repository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        repository.saveAll(batch);
+        return repository.count();
+    }
+}
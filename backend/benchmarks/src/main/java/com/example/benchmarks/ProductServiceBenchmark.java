@@ -0,0 +1,83 @@
+package com.example.benchmarks;
+
+import com.example.demo.Models.Product;
+import com.example.demo.Service.ProductService;
+import com.example.demo.dto.ProductSummary;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.StockLevel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sell, low-stock listing, filtered listing and typeahead through ProductService on a seeded catalog.
+ * Run with -t N to put several threads on the sell path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+    @Param("10000")
+    public int products;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private long[] sellableIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(products);
+        productService = context.getBean(ProductService.class);
+        sellableIds = context.getBean(ProductRepository.class).findAll(Sort.by("id")).stream()
+                .filter(p -> p.getStock() > p.getMinStock())
+                .mapToLong(Product::getId)
+                .toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public StockLevel sell() {
+        long id = sellableIds[ThreadLocalRandom.current().nextInt(sellableIds.length)];
+        return productService.updateStock(id, 1);
+    }
+
+    @Benchmark
+    public List<Product> lowStock() {
+        return productService.getLowStock();
+    }
+
+    // ProductSpecification name + stock level filter behind /view
+    @Benchmark
+    public List<Product> filteredView() {
+        return productService.viewProducts("item 12", "healthy", "stock", "asc");
+    }
+
+    @Benchmark
+    public List<ProductSummary> typeahead() {
+        return productService.typeahead("item 12", 10);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.benchmarks;
+
+import com.example.demo.Service.DemandModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The compute part of the nightly reorder point job over a whole catalog: folding one day of sales
+ * into the demand model and re-planning every product, with 90 days of history already folded in.
+ * Reading the catalog and writing minStock are database work and not measured here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ReorderPlannerBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int skus;
+
+    private DemandModel model;
+    private int[] sold;
+    private long[] firstDays;
+    private int[] leadTimes;
+    private int[] reorderPoints;
+    private int[] orderQuantities;
+    private LocalDate day;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        long[] ids = new long[skus];
+        for (int i = 0; i < skus; i++) {
+            ids[i] = i + 1;
+        }
+        model = new DemandModel(ids);
+        sold = new int[skus];
+        firstDays = new long[skus];
+        Arrays.fill(firstDays, Long.MIN_VALUE);
+        leadTimes = random.ints(skus, 1, 15).toArray();
+        reorderPoints = new int[skus];
+        orderQuantities = new int[skus];
+
+        day = LocalDate.now().minusDays(90);
+        for (int d = 0; d < 90; d++) {
+            nextDaySales(random);
+            model.fold(day, sold, firstDays, 0.1);
+            day = day.plusDays(1);
+        }
+        nextDaySales(random);
+    }
+
+    // most of a catalog sells nothing on a given day
+    private void nextDaySales(SplittableRandom random) {
+        for (int i = 0; i < skus; i++) {
+            sold[i] = random.nextInt(10) < 3 ? random.nextInt(1, 40) : 0;
+        }
+    }
+
+    @Benchmark
+    public int[] nightlyRun() {
+        model.fold(day, sold, firstDays, 0.1);
+        model.plan(leadTimes, 1.65, 14, 14, reorderPoints, orderQuantities);
+        return reorderPoints;
+    }
+}
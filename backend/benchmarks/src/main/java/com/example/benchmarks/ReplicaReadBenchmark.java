@@ -0,0 +1,81 @@
+package com.example.benchmarks;
+
+import com.example.demo.Models.Product;
+import com.example.demo.Service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Low-stock listings (a read-only service transaction) from 32 threads, with the reads going to the
+ * primary alone or spread over 1, 2 or 4 read replicas. Every pool has poolSize connections and
+ * each statement waits roundTripMicros (see {@link RoundTripLatency}), so a pool serves a bounded
+ * number of reads per second, as a database server of fixed size would. The replicas are further
+ * pools on the same in-memory database standing in for separate servers; throughput should grow
+ * with their number until the threads or the CPU, not the pools, are the limit. One replica gives
+ * the same as the primary alone (its reads just move), on a single core about 165, 170, 320 and 460
+ * ops/s for 0, 1, 2 and 4 replicas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class ReplicaReadBenchmark {
+    @Param({"0", "1", "2", "4"})
+    public int replicas;
+
+    @Param("2")
+    public int poolSize;
+
+    // long enough that the pools, not the CPU, limit throughput on a small machine
+    @Param("5000")
+    public int roundTripMicros;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> args = new ArrayList<>(List.of(
+                "--bench.round-trip-micros=" + roundTripMicros,
+                "--context.initializer.classes=" + RoundTripLatency.class.getName(),
+                "--spring.datasource.hikari.maximum-pool-size=" + poolSize));
+        if (replicas > 0) {
+            args.add("--inventory.replicas.urls=" + String.join(",", Collections.nCopies(replicas, BenchmarkApplication.DATABASE_URL)));
+            args.add("--inventory.replicas.pool-size=" + poolSize);
+            args.add("--inventory.replicas.lag-query=SELECT 0");
+        }
+        context = BenchmarkApplication.start(200, args.toArray(String[]::new));
+        productService = context.getBean(ProductService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Product> lowStock() {
+        return productService.getLowStock();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.benchmarks;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Puts a network round trip in front of in-memory H2: every statement execution, batch execution,
+ * commit and rollback waits {@code bench.round-trip-micros} first. H2's own TCP client sends a
+ * JDBC batch one row per round trip, whereas the PostgreSQL driver with reWriteBatchedInserts sends
+ * it as one multi-row INSERT, so a batch costs a single round trip here as it does there.
+ * Activated with {@code --context.initializer.classes=com.example.benchmarks.RoundTripLatency}.
+ */
+public class RoundTripLatency implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    private static final Set<String> ROUND_TRIPS = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "executeBatch", "executeLargeBatch", "commit", "rollback");
+
+    @Override
+    public void initialize(ConfigurableApplicationContext context) {
+        long nanos = 1000L * context.getEnvironment().getProperty("bench.round-trip-micros", Long.class, 0L);
+        if (nanos == 0) {
+            return;
+        }
+        context.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // the DataSource everything uses; with read replicas the pools behind it are beans too
+                return bean instanceof DataSource && beanName.equals("dataSource")
+                        ? wrap(bean, DataSource.class, nanos) : bean;
+            }
+        });
+    }
+
+    // proxies the JDBC object and, transitively, the connections and statements it hands out
+    @SuppressWarnings("unchecked")
+    private static <T> T wrap(Object target, Class<T> type, long nanos) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (ROUND_TRIPS.contains(method.getName())) {
+                LockSupport.parkNanos(nanos);
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Connection connection && method.getReturnType() == Connection.class) {
+                return wrap(connection, Connection.class, nanos);
+            }
+            if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                return wrap(statement, (Class<? extends Statement>) method.getReturnType(), nanos);
+            }
+            return result;
+        };
+        return (T) Proxy.newProxyInstance(RoundTripLatency.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
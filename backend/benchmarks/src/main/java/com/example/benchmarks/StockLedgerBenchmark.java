@@ -0,0 +1,74 @@
+package com.example.benchmarks;
+
+import com.example.demo.Models.Product;
+import com.example.demo.Service.ProductService;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.StockLevel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sell latency through ProductService.updateStock with the stock ledger on and off
+ * (inventory.ledger.enabled). With roundTripMicros above 0 every statement and commit waits that
+ * long first (see {@link RoundTripLatency}), which is closer to a networked database than in-memory
+ * H2, where the movement insert is pure CPU with no commit cost to hide behind. The ledger is one
+ * extra statement per sale, so with round trips it adds about one round trip over the sell's own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StockLedgerBenchmark {
+
+    @Param({"false", "true"})
+    public boolean ledger;
+
+    @Param({"0", "200"})
+    public int roundTripMicros;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private long[] sellableIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(100,
+                "--inventory.ledger.enabled=" + ledger,
+                "--bench.round-trip-micros=" + roundTripMicros,
+                "--context.initializer.classes=" + RoundTripLatency.class.getName());
+        productService = context.getBean(ProductService.class);
+        sellableIds = context.getBean(ProductRepository.class).findAll(Sort.by("id")).stream()
+                .filter(p -> p.getStock() > p.getMinStock())
+                .mapToLong(Product::getId)
+                .toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public StockLevel sell() {
+        long id = sellableIds[ThreadLocalRandom.current().nextInt(sellableIds.length)];
+        return productService.updateStock(id, 1);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.demo.Controller;
+
+import com.example.demo.Service.BulkDeletions;
+import com.example.demo.dto.DeletionProgress;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// progress of the background deletes started by the supplier and product delete endpoints
+@RestController
+@RequestMapping("/api/deletions")
+public class DeletionController {
+    @Autowired
+    private BulkDeletions bulkDeletions;
+
+    @GetMapping
+    public List<DeletionProgress> recentDeletions(){
+        return bulkDeletions.recent();
+    }
+
+    @GetMapping("/{id}")
+    public DeletionProgress getDeletion(@PathVariable long id){
+        return bulkDeletions.progress(id)
+                .orElseThrow(() -> new RuntimeException("Deletion Not Found"));
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.Controller;
+
+import com.example.demo.Models.Invoice;
+import com.example.demo.Service.IdempotentRequests;
+import com.example.demo.Service.InvoiceService;
+import com.example.demo.dto.CheckoutRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/invoices")
+public class InvoiceController {
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private IdempotentRequests idempotentRequests;
+
+    // checkout a whole basket in one request; a retry with the same Idempotency-Key gets the first invoice back
+    @PostMapping
+    public Invoice checkout(@RequestBody CheckoutRequest request,
+                            @RequestHeader(value = ProductController.IDEMPOTENCY_KEY, required = false) String key){
+        return idempotentRequests.execute(key, idempotentRequests.describe("POST /api/invoices", request),
+                Invoice.class, () -> invoiceService.checkout(request));
+    }
+
+    @GetMapping("/{id}")
+    public Invoice getInvoice(@PathVariable long id){
+        return invoiceService.getInvoice(id);
+    }
+}
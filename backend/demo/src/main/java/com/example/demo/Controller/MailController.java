@@ -1,11 +1,17 @@
 package com.example.demo.Controller;
 
+import com.example.demo.Service.LowStockNotifier;
 import com.example.demo.Service.MailService;
 import com.example.demo.Service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
+// manual mail endpoints, rarely hit: created on the first /email request
 @RestController
+@Lazy
 @RequestMapping("/email")
 public class MailController {
     @Autowired
@@ -14,6 +20,9 @@ public class MailController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private LowStockNotifier lowStockNotifier;
+
     @GetMapping("/product")
     public String getEmail() {
         mailService.sendMail(
@@ -25,6 +34,12 @@ public class MailController {
     }
 
 
+    // queue depth and send/drop counters of the low-stock mail pipeline
+    @GetMapping("/alerts")
+    public Map<String, Long> alertStats() {
+        return lowStockNotifier.stats();
+    }
+
     @GetMapping("/test")
     public String testMail() {
         boolean success = mailService.testMailConnection();
@@ -1,85 +1,160 @@
 package com.example.demo.Controller;
 
 import com.example.demo.Models.Product;
-import com.example.demo.Models.Supplier;
+import com.example.demo.Service.BulkDeletions;
+import com.example.demo.Service.CatalogCache;
+import com.example.demo.Service.CatalogChanges;
+import com.example.demo.Service.IdempotentRequests;
+import com.example.demo.Service.ProductCsvService;
 import com.example.demo.Service.ProductService;
-import com.example.demo.Service.ProductSpecification;
-import com.example.demo.repository.ProductRepository;
-import com.example.demo.repository.SupplierRepository;
+import com.example.demo.Service.ReorderPlanner;
+import com.example.demo.Service.StockEventHub;
+import com.example.demo.Service.StockSlots;
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.DeletionProgress;
+import com.example.demo.dto.ImportResult;
+import com.example.demo.dto.ProductChanges;
+import com.example.demo.dto.ProductSummary;
+import com.example.demo.dto.ReorderPlan;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
     @Autowired
     private ProductService productService;
 
     @Autowired
-    private ProductRepository repo;
+    private CatalogCache catalogCache;
 
     @Autowired
-    private SupplierRepository supplierRepository;
+    private ProductCsvService productCsvService;
+
+    @Autowired
+    private StockEventHub stockEventHub;
+
+    @Autowired
+    private StockSlots stockSlots;
+
+    @Autowired
+    private ReorderPlanner reorderPlanner;
+
+    @Autowired
+    private BulkDeletions bulkDeletions;
+
+    @Autowired
+    private CatalogChanges catalogChanges;
+
+    @Autowired
+    private IdempotentRequests idempotentRequests;
+
+
+    // the mutating endpoints take an optional Idempotency-Key: a retry with the same key gets the
+    // first response instead of running again, see IdempotentRequests
 
     //adding products
     @PostMapping("/add")
-    public Product addProducts(@RequestBody Product product){
-
-        if (product.getSupplier().getId() != 0) {
-            Supplier supplier = supplierRepository.findById(product.getSupplier().getId())
-                    .orElseThrow(() -> new RuntimeException("Supplier Not Found"));
-            product.setSupplier(supplier);
-        }else{
-            throw new RuntimeException("Supplier Information is missing");
-        }
-        return repo.save(product);
+    public Product addProducts(@RequestBody Product product,
+                               @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String key){
+        return idempotentRequests.execute(key, idempotentRequests.describe("POST /api/products/add", product),
+                Product.class, () -> productService.addProduct(product));
     }
 
-    //viewing products
+    //viewing products; If-None-Match with the last ETag gets a 304 while nothing changed
     @GetMapping("/view")
-    public List<Product> viewProducts(
+    public ResponseEntity<List<Product>> viewProducts(
             @RequestParam(required = false) String search,
             @RequestParam(required = false) String stockLevel,
             @RequestParam(required = false) String size,
 
-            // 1. These parameters are correctly accepted
+            // sortField must be one of the indexed columns in ProductSort (id, name, stock, minStock, price)
             @RequestParam(defaultValue = "stock") String sortField,
-            @RequestParam(defaultValue = "asc") String sortDirection
+            @RequestParam(defaultValue = "asc") String sortDirection,
+            WebRequest request
     ) {
-        // Start with an empty specification (finds all)
-        Specification<Product> spec = Specification.where(null);
-
-        // If 'search' param is present, add the name filter
-        if (search != null && !search.isEmpty()) {
-            spec = spec.and(ProductSpecification.hasName(search));
-        }
-
-        // If 'stockLevel' param is present (and not "all"), add the stock filter
-        if (stockLevel != null && !stockLevel.equals("all")) {
-            spec = spec.and(ProductSpecification.hasStockLevel(stockLevel));
+        Optional<String> etag = catalogChanges.etag();
+        if (etag.isPresent() && request.checkNotModified(etag.get())) {
+            return null;
         }
+        // no-cache: browsers keep the body but ask with the ETag every time
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache())
+                .body(productService.viewProducts(search, stockLevel, sortField, sortDirection));
+    }
 
-        // 2. ADD SIZE FILTER LOGIC HERE (e.g., if you implement hasSize in ProductSpecification)
-        // Assuming you create a static method ProductSpecification.hasSize(size)
-        // spec = spec.and(ProductSpecification.hasSize(size));
+    // delta sync: pass next of the previous response as since, none for the first sync
+    @GetMapping("/changes")
+    public ProductChanges getChanges(@RequestParam(required = false) String since,
+                                     @RequestParam(defaultValue = "1000") int limit){
+        return catalogChanges.changesSince(since, limit);
+    }
 
-        // --- 3. APPLY SORTING LOGIC ---
+    // keyset-paged /view: pass nextCursor of the previous page as cursor, view=summary returns slim rows
+    @GetMapping("/view/page")
+    public CursorPage<?> viewProductPage(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String stockLevel,
+            @RequestParam(defaultValue = "stock") String sortField,
+            @RequestParam(defaultValue = "asc") String sortDirection,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "full") String view
+    ) {
+        if ("summary".equals(view)) {
+            return productService.viewProductSummaryPage(search, stockLevel, sortField, sortDirection, cursor, size);
+        }
+        return productService.viewProductPage(search, stockLevel, sortField, sortDirection, cursor, size);
+    }
+    // bulk import, raw text/csv body or a multipart "file" upload; bad lines are skipped and reported
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ImportResult importProducts(InputStream body){
+        return productCsvService.importCsv(body);
+    }
 
-        // a. Determine the sort direction from the request parameter
-        Sort.Direction direction = sortDirection.equalsIgnoreCase("desc")
-                ? Sort.Direction.DESC
-                : Sort.Direction.ASC;
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ImportResult importProductsFile(@RequestParam("file") MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return productCsvService.importCsv(in);
+        }
+    }
 
-        // b. Create the Sort object using the direction and field (e.g., 'stock')
-        Sort sort = Sort.by(direction, sortField);
+    // whole catalog as CSV, streamed from a database cursor
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(){
+        String filename = "inventory-report-" + LocalDate.now() + ".csv";
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(productCsvService::exportCsv);
+    }
 
-        // c. Return the result of the combined query, applying BOTH the spec (filter) and sort
-        return repo.findAll(spec, sort);
+    // live stock deltas as Server-Sent Events; EventSource resends the last event id on reconnect,
+    // ?since= does the same for clients that manage the token themselves
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                    @RequestParam(required = false) String since){
+        return stockEventHub.subscribe(lastEventId != null ? lastEventId : since);
     }
+
     //  view healthy stocks
     @GetMapping("/healthy-stock")
     public List<Product> getHealthyStock(){
@@ -88,72 +163,118 @@ public class ProductController {
 
     //updating products
     @PutMapping("/update/{id}")
-    public Product updateStock(@PathVariable long id,@RequestBody Product updatedProduct){
-        Product existingProduct = repo.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product Not Found"));
-
-        existingProduct.setName(updatedProduct.getName());
-        existingProduct.setStock(updatedProduct.getStock());
-        existingProduct.setMinStock(updatedProduct.getMinStock());
-        existingProduct.setSupplier(updatedProduct.getSupplier());
-
-        return repo.save(existingProduct);
+    public Product updateStock(@PathVariable long id,@RequestBody Product updatedProduct,
+                               @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String key){
+        String request = idempotentRequests.describe("PUT /api/products/update/" + id, updatedProduct);
+        return idempotentRequests.execute(key, request, Product.class,
+                () -> productService.updateProduct(id, updatedProduct));
     }
 // ProductController.java
 
     @GetMapping("/{id}") // The endpoint is just the path variable {id}
     public Product getProductById(@PathVariable long id) {
-        return repo.findById(id)
+        return catalogCache.findProduct(id)
                 .orElseThrow(() -> new RuntimeException("Product Not Found for ID: " + id));
     }
     //selling and updating products
     @PutMapping("/{id}/sell/{soldQuantity}")
-    public String updateAndSellProducts(@PathVariable long id,@PathVariable int soldQuantity){
-        productService.updateStock(id,soldQuantity);
-        return "Product Sold and Stock Updated";
+    public String updateAndSellProducts(@PathVariable long id,@PathVariable int soldQuantity,
+                                        @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String key){
+        String request = "PUT /api/products/" + id + "/sell/" + soldQuantity;
+        return idempotentRequests.execute(key, request, String.class, () -> {
+            productService.updateStock(id, soldQuantity);
+            return "Product Sold and Stock Updated";
+        });
     }
 
     //deleting products
     @DeleteMapping("/delete/{id}")
-    public String deleteProducts(@PathVariable long id){
-        if(!repo.existsById(id)){
-            throw new RuntimeException("Product Not Found");
-        }
-        repo.deleteById(id);
-        return "Product Deleted Successfully";
+    public String deleteProducts(@PathVariable long id,
+                                 @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String key){
+        return idempotentRequests.execute(key, "DELETE /api/products/delete/" + id, String.class, () -> {
+            productService.deleteProduct(id);
+            return "Product Deleted Successfully";
+        });
     }
-    //delete all
+    //delete all, in the background in chunks for a catalog too big for one transaction
     @DeleteMapping("/deleteAll")
-    public String deleteAllProducts(){
-        repo.deleteAll();
-        return "All Products Deleted Successfully";
+    public ResponseEntity<?> deleteAllProducts(@RequestParam(defaultValue = "false") boolean background){
+        if (background) {
+            DeletionProgress job = bulkDeletions.deleteAllProducts();
+            return ResponseEntity.accepted().location(URI.create("/api/deletions/" + job.jobId())).body(job);
+        }
+        productService.deleteAll();
+        return ResponseEntity.ok("All Products Deleted Successfully");
     }
 
     //search by name
     @GetMapping("/search")
     public List<Product> searchProducts(@RequestParam String name){
-        return repo.findByNameContainingIgnoreCase(name);
+        return productService.searchByName(name);
+    }
+
+    // billing counter typeahead, ranked prefix / word / substring matches with live stock
+    @GetMapping("/typeahead")
+    public List<ProductSummary> typeahead(@RequestParam String q, @RequestParam(defaultValue = "10") int limit){
+        return productService.typeahead(q, limit);
     }
 
 
     //sort by name
     @GetMapping("/sorted")
     public List<Product> sortedProducts(@RequestParam(defaultValue = "stock") String sortBy) {
-        return repo.findAll(org.springframework.data.domain.Sort.by(sortBy));
+        return productService.sortedProducts(sortBy);
     }
     //products restock
     @PutMapping("/restock/{id}/{quantity}")
-    public String restockProducts(@PathVariable long id,@PathVariable int quantity){
-        Product restock = repo.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product Not Found"));
+    public String restockProducts(@PathVariable long id,@PathVariable int quantity,
+                                  @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String key){
+        return idempotentRequests.execute(key, "PUT /api/products/restock/" + id + "/" + quantity, String.class, () -> {
+            productService.restock(id, quantity);
+            return "Product Updated Successfully";
+        });
+    }
+    // best sellers: spread the stock over N slot rows so concurrent sales do not queue on one row lock,
+    // slots=1 folds it back into the product row
+    @PutMapping("/{id}/stock-slots/{slots}")
+    public Map<String, Object> splitStock(@PathVariable long id, @PathVariable int slots){
+        int stock = stockSlots.split(id, slots);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("productId", id);
+        result.put("slots", Math.max(1, slots));
+        result.put("stock", stock);
+        return result;
+    }
+
+    // demand, lead time, reorder point (the minStock the planner sets) and suggested order quantity
+    @GetMapping("/{id}/reorder-plan")
+    public ReorderPlan getReorderPlan(@PathVariable long id){
+        return reorderPlanner.plan(id).orElseThrow(() -> new RuntimeException("Reorder Plan Not Found"));
+    }
 
-        restock.setStock(restock.getStock() + quantity);
-        repo.save(restock);
-        return "Product Updated Successfully";
+    // runs the nightly reorder point job now, through the last compacted ledger day
+    @PostMapping("/reorder-points/recompute")
+    public String recomputeReorderPoints(){
+        reorderPlanner.recompute();
+        return "Reorder Points Recomputed";
     }
+
     @GetMapping("/low-stock")
     public List<Product> getAllLowStockProducts(){
         return productService.getLowStock();
     }
 
+    // paged low / healthy stock, pass nextCursor of the previous page as cursor
+    @GetMapping("/low-stock/page")
+    public CursorPage<Product> getLowStockPage(@RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "50") int size){
+        return productService.getStockLevelPage("low", cursor, size);
+    }
+
+    @GetMapping("/healthy-stock/page")
+    public CursorPage<Product> getHealthyStockPage(@RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "50") int size){
+        return productService.getStockLevelPage("healthy", cursor, size);
+    }
+
 }
@@ -0,0 +1,40 @@
+package com.example.demo.Controller;
+
+import com.example.demo.Service.StockLedger;
+import com.example.demo.dto.DailySales;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reports")
+public class ReportController {
+    @Autowired
+    private StockLedger stockLedger;
+
+    // units sold / restocked and sales value per day, from and to inclusive
+    @GetMapping("/sales")
+    public List<DailySales> salesByDay(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to){
+        return stockLedger.salesByDay(from, to);
+    }
+
+    // stock of one product at a past moment, e.g. at=2025-03-31T23:59:59
+    @GetMapping("/stock-as-of")
+    public Map<String, Object> stockAsOf(@RequestParam long productId,
+                                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at){
+        int stock = stockLedger.stockAsOf(productId, at)
+                .orElseThrow(() -> new RuntimeException("No Stock History Found for product " + productId));
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("productId", productId);
+        result.put("at", at);
+        result.put("stock", stock);
+        return result;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.Controller;
+
+import com.example.demo.Service.StockReservations;
+import com.example.demo.dto.StockHold;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reservations")
+public class ReservationController {
+    @Autowired
+    private StockReservations reservations;
+
+    // sets the cart's hold on a product to quantity units (0 releases it) and restarts its TTL;
+    // cartId is any id the counter generates for its open bill
+    @PutMapping("/{cartId}/items/{productId}")
+    public StockHold hold(@PathVariable String cartId, @PathVariable long productId, @RequestParam int quantity){
+        return reservations.hold(cartId, productId, quantity);
+    }
+
+    @DeleteMapping("/{cartId}/items/{productId}")
+    public StockHold release(@PathVariable String cartId, @PathVariable long productId){
+        return reservations.release(cartId, productId);
+    }
+
+    // abandon the whole bill
+    @DeleteMapping("/{cartId}")
+    public String releaseCart(@PathVariable String cartId){
+        reservations.release(cartId);
+        return "Reservations Released";
+    }
+
+    // units nobody holds, by product id
+    @GetMapping("/available")
+    public Map<Long, Integer> available(@RequestParam List<Long> ids){
+        return reservations.available(ids);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.Controller;
+
+import com.example.demo.Service.CatalogCache;
+import com.example.demo.Service.StatsService;
+import com.example.demo.dto.StatsSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    // totals, low/healthy counts and top-N lists for the dashboard and reports pages
+    @GetMapping
+    public StatsSnapshot getStats(){
+        return statsService.getStats();
+    }
+
+    // size / hit / miss / load counters of the product and supplier caches
+    @GetMapping("/cache")
+    public Map<String, Object> getCacheStats(){
+        return catalogCache.stats();
+    }
+}
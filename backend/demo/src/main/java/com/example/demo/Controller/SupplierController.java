@@ -1,28 +1,39 @@
 package com.example.demo.Controller;
 
 import com.example.demo.Models.Supplier;
+import com.example.demo.Service.ProductService;
 import com.example.demo.Service.SupplierService;
+import com.example.demo.dto.DeletionProgress;
+import com.example.demo.dto.ReceiptRequest;
+import com.example.demo.repository.StockLevel;
 import com.example.demo.repository.SupplierRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.List;
+import java.util.Optional;
 
 @RequestMapping("/supplier")
 @RestController
 public class SupplierController {
+    private static final Logger log = LoggerFactory.getLogger(SupplierController.class);
+
     @Autowired
     private SupplierService supplierService;
 
     @Autowired
     private SupplierRepository repository;
 
+    @Autowired
+    private ProductService productService;
+
     @PostMapping("/create")
     public Supplier createSupplier(@RequestBody Supplier supplier){
-        // Temporarily add this line for debugging:
-        System.out.println("Attempting to create Supplier: " + supplier);
-
-        // Now call the service
+        log.debug("create supplier name={} email={}", supplier.getName(), supplier.getEmail());
         return supplierService.addSupplier(supplier);
     }
     @GetMapping("/id/{id}")
@@ -37,21 +48,25 @@ public class SupplierController {
 
     @PutMapping("/update/{id}")
     public Supplier updateSupplier(@PathVariable long id, @RequestBody Supplier updatedSupplier){
-        Supplier existingSupplier = repository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Supplier Not Found"));
-
-        existingSupplier.setName(updatedSupplier.getName());
-        existingSupplier.setEmail(updatedSupplier.getEmail());
-        existingSupplier.setMobile(updatedSupplier.getMobile());
-        existingSupplier.setCompany(updatedSupplier.getCompany());
+        // goes through the service so the supplier cache is invalidated
+        return supplierService.updateSupplier(id, updatedSupplier);
+    }
 
-        return repository.save(existingSupplier);
+    // a whole delivery in one transaction, returns the new stock levels of the delivered products
+    @PostMapping("/{id}/receipts")
+    public List<StockLevel> receiveDelivery(@PathVariable long id, @RequestBody ReceiptRequest receipt){
+        return productService.receiveDelivery(id, receipt);
     }
 
+    // deletes the supplier's products too unless keepProducts; 202 with the job when that runs in the background
     @DeleteMapping("/delete/{id}")
-    public String deleteSupplier(@PathVariable long id){
-        supplierService.deleteSupplier(id);
-        return "Supplier Deleted Successfully";
+    public ResponseEntity<?> deleteSupplier(@PathVariable long id,
+                                            @RequestParam(defaultValue = "false") boolean keepProducts){
+        Optional<DeletionProgress> job = supplierService.deleteSupplier(id, keepProducts);
+        if (job.isPresent()) {
+            return ResponseEntity.accepted().location(URI.create("/api/deletions/" + job.get().jobId())).body(job.get());
+        }
+        return ResponseEntity.ok("Supplier Deleted Successfully");
     }
     @DeleteMapping("/deleteAll")
     public String deleteAllProducts(){
@@ -0,0 +1,35 @@
+package com.example.demo.Models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Per-product totals of one day of {@link StockMovement}s, written by the ledger compaction job so
+ * daily reports read one row per product and day instead of every movement.
+ */
+@Data
+@Entity
+@Table(name = "daily_stock_snapshot",
+        uniqueConstraints = @UniqueConstraint(name = "uk_daily_stock_snapshot", columnNames = {"snapshot_day", "product_id"}),
+        // a product's last closing stock before a day, the base that compaction and stock-as-of add deltas to
+        indexes = @Index(name = "idx_daily_stock_snapshot_product_day", columnList = "product_id, snapshot_day"))
+public class DailyStockSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    private long productId;
+    @Column(name = "snapshot_day")
+    private LocalDate day;
+
+    private int unitsSold;
+    private int unitsRestocked;
+    // manual adjustments and opening stock
+    private int netAdjusted;
+    private double salesValue;
+    private int closingStock;
+    private int movements;
+}
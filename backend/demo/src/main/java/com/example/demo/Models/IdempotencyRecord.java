@@ -0,0 +1,31 @@
+package com.example.demo.Models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * The response to a request sent with an {@code Idempotency-Key}, kept when
+ * {@code inventory.idempotency.persist} is on so a retry after a restart is still answered with it
+ * (see {@link com.example.demo.Service.IdempotentRequests}).
+ */
+@Data
+@Entity
+@Table(name = "idempotency_record", indexes = @Index(name = "idx_idempotency_record_created", columnList = "created_at"))
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String key;
+
+    // method, path and body fingerprint of the first request with this key
+    @Column(columnDefinition = "TEXT")
+    private String request;
+
+    // the response body as JSON
+    @Column(columnDefinition = "TEXT")
+    private String response;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,37 @@
+package com.example.demo.Models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Entity
+public class Invoice {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invoice_seq")
+    @SequenceGenerator(name = "invoice_seq", sequenceName = "invoice_seq", allocationSize = 50)
+    private long id;
+
+    private double subtotal;
+    private double cgstRate;
+    private double sgstRate;
+    private double cgst;
+    private double sgst;
+    private double total;
+
+    @OneToMany(mappedBy = "invoice", cascade = CascadeType.ALL)
+    @JsonIgnoreProperties("invoice") // Prevent recursion when serializing
+    private List<InvoiceLine> lines = new ArrayList<>();
+
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -9,11 +9,24 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-
+// (column, id) pairs back the sortable/keyset-paged listings, see ProductSort; the name index is in schema-postgresql.sql
+@Table(indexes = {
+        @Index(name = "idx_product_stock_id", columnList = "stock, id"),
+        @Index(name = "idx_product_min_stock_id", columnList = "min_stock, id"),
+        @Index(name = "idx_product_price_id", columnList = "price, id"),
+        @Index(name = "idx_product_supplier", columnList = "supplier_id"),
+        // delta sync pages by (updated_at, id), see CatalogChanges
+        @Index(name = "idx_product_updated_id", columnList = "updated_at, id")
+})
 public class Product {
 
+    // ids per product_seq value; ProductBulkOperationsImpl reserves whole blocks of this size for its inserts
+    public static final int ID_BLOCK_SIZE = 50;
+
+    // pooled-lo blocks of ids: inserts need no round trip for the key and can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = ID_BLOCK_SIZE)
     private long id;
 
     private String name;
@@ -0,0 +1,23 @@
+package com.example.demo.Models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * One share of a split product's stock, see {@link com.example.demo.Service.StockSlots}. Sales of
+ * the product lock a single slot row instead of the product row; the product's stock is the sum.
+ */
+@Data
+@Entity
+@Table(name = "product_stock_slot",
+        uniqueConstraints = @UniqueConstraint(name = "uk_product_stock_slot", columnNames = {"product_id", "slot"}))
+public class ProductStockSlot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    private long productId;
+    private int slot;
+    private int stock;
+}
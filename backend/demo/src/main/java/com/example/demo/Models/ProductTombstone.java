@@ -0,0 +1,23 @@
+package com.example.demo.Models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A deleted product, kept for {@code inventory.changes.tombstone-retention-days} so delta-syncing
+ * clients (see {@link com.example.demo.Service.CatalogChanges}) learn to drop it.
+ */
+@Data
+@Entity
+@Table(name = "product_tombstone", indexes = @Index(name = "idx_product_tombstone_deleted", columnList = "deleted_at"))
+public class ProductTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    private long productId;
+    private LocalDateTime deletedAt;
+}
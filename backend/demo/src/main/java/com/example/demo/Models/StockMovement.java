@@ -0,0 +1,41 @@
+package com.example.demo.Models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * One immutable change to a product's stock. Rows are only ever inserted, in the same transaction
+ * as the stock change itself (see StockLedger), so the ledger and the product table cannot disagree.
+ */
+@Data
+@Entity
+@Table(name = "stock_movement", indexes = {
+        // "stock of product X as of T" sums one range of this index, from X's last snapshot to T; the time-range
+        // index is a BRIN in schema-postgresql.sql
+        @Index(name = "idx_stock_movement_product_time", columnList = "product_id, created_at")
+})
+public class StockMovement {
+
+    public enum Type { OPENING, SALE, RESTOCK, ADJUSTMENT }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    // no foreign key, the history has to outlive the product
+    private long productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private Type type;
+
+    // signed change, negative for sales
+    private int quantity;
+    private int stockAfter;
+    private double unitPrice;
+    private Long invoiceId;
+
+    private LocalDateTime createdAt;
+}
@@ -3,23 +3,34 @@ package com.example.demo.Models;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.SQLRestriction;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
 @Entity
+// soft-deleted suppliers are hidden while BulkDeletions removes their products
+@SQLRestriction("deleted_at IS NULL")
 public class Supplier {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "supplier_seq")
+    @SequenceGenerator(name = "supplier_seq", sequenceName = "supplier_seq", allocationSize = 50)
     private long id;
 
     private String name;
     private String mobile;
     private String email;
     private String company;
+    // days from placing an order to the delivery, ReorderPlanner falls back to a default when unset
+    private Integer leadTimeDays;
 
-    @OneToMany(mappedBy = "supplier", cascade = CascadeType.ALL, orphanRemoval = false)
+    @JsonIgnore
+    private LocalDateTime deletedAt;
+
+    // no cascade: a cascading delete loads every product first, SupplierService deletes them set-based
+    @OneToMany(mappedBy = "supplier")
     @JsonIgnore //  prevents circular reference
     private List<Product> products;
 }
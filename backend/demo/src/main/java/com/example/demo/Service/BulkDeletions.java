@@ -0,0 +1,206 @@
+package com.example.demo.Service;
+
+import com.example.demo.dto.DeletionProgress;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.SupplierRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes that are too big for one transaction. Products go in chunks of
+ * {@code inventory.delete.chunk-size} by id, each chunk its own transaction of four statements
+ * (find the chunk's last id, write its tombstones, delete its stock slots, delete its products),
+ * so locks are held briefly, no entity is loaded and a failure loses at most the chunk in flight.
+ * <p>
+ * A supplier deleted this way is soft-deleted first (its {@code deleted_at} set), which hides it
+ * from every JPQL query straight away; the row goes once its last product has. Soft-deleted
+ * suppliers left behind by a restart are picked up again on startup. Progress is kept in memory
+ * for the last {@link #KEPT_JOBS} jobs and served by {@code /api/deletions}.
+ */
+@Service
+public class BulkDeletions implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(BulkDeletions.class);
+    private static final int KEPT_JOBS = 100;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Value("${inventory.delete.chunk-size:5000}")
+    private int chunkSize;
+
+    // pause between chunks so replication and the sales on the same tables keep up
+    @Value("${inventory.delete.chunk-pause-ms:10}")
+    private long chunkPauseMs;
+
+    // jobId -> job, oldest first
+    private final Map<Long, Job> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Job> eldest) {
+            return size() > KEPT_JOBS;
+        }
+    };
+    private final AtomicLong nextJobId = new AtomicLong();
+    private final AtomicLong productsDeleted = new AtomicLong();
+    private volatile boolean running = true;
+
+    @EventListener(ApplicationReadyEvent.class)
+    void resume() {
+        for (long supplierId : supplierRepository.findMarkedDeleted()) {
+            log.info("resuming the delete of supplier {}", supplierId);
+            deleteSupplier(supplierId, productRepository.countBySupplier(supplierId));
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        // running jobs stop after their chunk, soft-deleted suppliers are resumed on the next start
+        running = false;
+    }
+
+    /**
+     * Deletes the products of a supplier that has already been soft-deleted, then the supplier.
+     *
+     * @param products the supplier's product count, for the progress
+     */
+    public DeletionProgress deleteSupplier(long supplierId, long products) {
+        return start(new Job(nextJobId.incrementAndGet(), "supplier " + supplierId, supplierId, products));
+    }
+
+    public DeletionProgress deleteAllProducts() {
+        return start(new Job(nextJobId.incrementAndGet(), "all products", null, productRepository.count()));
+    }
+
+    public Optional<DeletionProgress> progress(long jobId) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(jobId)).map(Job::progress);
+        }
+    }
+
+    // newest first
+    public List<DeletionProgress> recent() {
+        List<DeletionProgress> recent = new ArrayList<>();
+        synchronized (jobs) {
+            jobs.values().forEach(job -> recent.add(0, job.progress()));
+        }
+        return recent;
+    }
+
+    private DeletionProgress start(Job job) {
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+        }
+        Thread.ofVirtual().name("bulk-delete-" + job.id).start(() -> run(job));
+        return job.progress();
+    }
+
+    private void run(Job job) {
+        try {
+            int deleted;
+            do {
+                deleted = transactionTemplate.execute(status -> {
+                    long end = productRepository.chunkEnd(job.supplierId, chunkSize);
+                    return end == 0 ? 0 : productRepository.deleteThrough(job.supplierId, end);
+                });
+                job.deleted += deleted;
+                productsDeleted.addAndGet(deleted);
+                if (deleted > 0 && chunkPauseMs > 0) {
+                    Thread.sleep(chunkPauseMs);
+                }
+            } while (deleted > 0 && running);
+            if (!running) {
+                log.info("{} stopped after {} products", job.target, job.deleted);
+                return;
+            }
+            if (job.supplierId != null) {
+                transactionTemplate.executeWithoutResult(status -> supplierRepository.purge(job.supplierId));
+                events.publishEvent(new SupplierChangedEvent(job.supplierId));
+            }
+            job.state = DeletionProgress.State.DONE;
+            log.info("deleted {} with {} products", job.target, job.deleted);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail(e);
+        } catch (RuntimeException e) {
+            log.error("delete of {} failed after {} products", job.target, job.deleted, e);
+            job.fail(e);
+        } finally {
+            job.finishedAt = Instant.now();
+            // caches, search index and slot counts rebuild once, not per chunk
+            events.publishEvent(ProductChangedEvent.bulk());
+        }
+    }
+
+    public int runningJobs() {
+        synchronized (jobs) {
+            return (int) jobs.values().stream().filter(job -> job.state == DeletionProgress.State.RUNNING).count();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("inventory.delete.jobs.running", this, BulkDeletions::runningJobs)
+                .description("Background deletes in progress")
+                .register(registry);
+        FunctionCounter.builder("inventory.delete.products", productsDeleted, AtomicLong::get)
+                .description("Products removed by background deletes")
+                .register(registry);
+    }
+
+    private static final class Job {
+        final long id;
+        final String target;
+        final Long supplierId;
+        final long total;
+        final Instant startedAt = Instant.now();
+        // written by the job's thread only
+        volatile long deleted;
+        volatile DeletionProgress.State state = DeletionProgress.State.RUNNING;
+        volatile Instant finishedAt;
+        volatile String error;
+
+        Job(long id, String target, Long supplierId, long total) {
+            this.id = id;
+            this.target = target;
+            this.supplierId = supplierId;
+            this.total = total;
+        }
+
+        void fail(Exception e) {
+            error = e.toString();
+            state = DeletionProgress.State.FAILED;
+        }
+
+        DeletionProgress progress() {
+            return new DeletionProgress(id, target, state, total, deleted, startedAt, finishedAt, error);
+        }
+    }
+}
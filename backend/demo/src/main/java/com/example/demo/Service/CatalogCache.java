@@ -0,0 +1,153 @@
+package com.example.demo.Service;
+
+import com.example.demo.Models.Product;
+import com.example.demo.Models.Supplier;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.SupplierRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Read-through cache for product-by-id and supplier-by-id lookups. Concurrent misses on the same
+ * id share one database load, so a hot SKU cannot stampede the database.
+ * <p>
+ * Entries are dropped after every committed write ({@link ProductChangedEvent} and
+ * {@link SupplierChangedEvent} listeners run after commit), including each sale and restock, so a
+ * cached product never shows older stock than the database once the write is visible. The sell
+ * and checkout paths do not read from here at all, they decide on stock with conditional UPDATEs.
+ * Cached entities are detached copies for reading, never save them back.
+ */
+@Service
+public class CatalogCache implements MeterBinder {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Value("${inventory.cache.products.max-size:10000}")
+    private long productsMaxSize;
+
+    @Value("${inventory.cache.products.ttl-seconds:60}")
+    private long productsTtlSeconds;
+
+    @Value("${inventory.cache.suppliers.max-size:1000}")
+    private long suppliersMaxSize;
+
+    @Value("${inventory.cache.suppliers.ttl-seconds:600}")
+    private long suppliersTtlSeconds;
+
+    // async caches so loads do not run inside the map's compute lock, where a virtual thread
+    // waiting on the database would pin its carrier
+    private AsyncCache<Long, Product> products;
+    private AsyncCache<Long, Supplier> suppliers;
+    private final ExecutorService loader = Executors.newVirtualThreadPerTaskExecutor();
+
+    @PostConstruct
+    void init() {
+        products = Caffeine.newBuilder()
+                .maximumSize(productsMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(productsTtlSeconds))
+                .recordStats()
+                .buildAsync();
+        suppliers = Caffeine.newBuilder()
+                .maximumSize(suppliersMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(suppliersTtlSeconds))
+                .recordStats()
+                .buildAsync();
+    }
+
+    @PreDestroy
+    void stop() {
+        loader.shutdown();
+    }
+
+    public Optional<Product> findProduct(long id) {
+        return Optional.ofNullable(load(products, id, key -> productRepository.findById(key).orElse(null)));
+    }
+
+    public Optional<Supplier> findSupplier(long id) {
+        return Optional.ofNullable(load(suppliers, id, key -> supplierRepository.findById(key).orElse(null)));
+    }
+
+    // one load per key, concurrent callers wait on the same future; a missing row loads as null and is not cached
+    private <V> V load(AsyncCache<Long, V> cache, long id, Function<Long, V> query) {
+        try {
+            return cache.get(id, (key, executor) -> CompletableFuture.supplyAsync(() -> query.apply(key), loader)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.Type.BULK || event.type() == ProductChangedEvent.Type.MIN_STOCK) {
+            products.synchronous().invalidateAll();
+        } else {
+            // drops an in-flight load of the same id too, callers already waiting on it still get its result
+            products.synchronous().invalidate(event.productId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSupplierChanged(SupplierChangedEvent event) {
+        if (event.supplierId() == null) {
+            suppliers.synchronous().invalidateAll();
+        } else {
+            suppliers.synchronous().invalidate(event.supplierId());
+        }
+        // cached products carry their supplier, supplier writes are rare enough to drop them all
+        products.synchronous().invalidateAll();
+    }
+
+    // cache.gets / cache.size / cache.evictions etc. tagged cache=catalog.products|catalog.suppliers
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, products, "catalog.products");
+        CaffeineCacheMetrics.monitor(registry, suppliers, "catalog.suppliers");
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("products", describe(products.synchronous()));
+        stats.put("suppliers", describe(suppliers.synchronous()));
+        return stats;
+    }
+
+    private static Map<String, Object> describe(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        Map<String, Object> described = new LinkedHashMap<>();
+        described.put("size", cache.estimatedSize());
+        described.put("hits", stats.hitCount());
+        described.put("misses", stats.missCount());
+        described.put("hitRate", stats.hitRate());
+        described.put("loads", stats.loadCount());
+        described.put("evictions", stats.evictionCount());
+        return described;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.demo.Service;
+
+import com.example.demo.Models.Product;
+import com.example.demo.dto.ProductChanges;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.ProductTombstoneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * What changed in the catalog since a client last looked, so it does not have to download all of
+ * it again. Every product write stamps {@code updated_at} and every delete leaves a tombstone; the
+ * change feed pages through both by (updated_at, id) from the client's token.
+ * <p>
+ * A transaction stamps its rows before it commits, so a row can become visible with a stamp older
+ * than rows another client has already read. Tokens therefore never move past
+ * {@code inventory.changes.commit-lag-ms} ago: rows stamped within that window are handed out too,
+ * but again on the next call, once any slower commit stamped before them is visible. The same
+ * window decides when the catalog counts as settled for an ETag.
+ */
+@Service
+public class CatalogChanges {
+    private static final Logger log = LoggerFactory.getLogger(CatalogChanges.class);
+    private static final int MAX_PAGE_SIZE = 5000;
+    // full syncs start before any stamp
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductTombstoneRepository tombstoneRepository;
+
+    @Value("${inventory.changes.commit-lag-ms:5000}")
+    private long commitLagMs;
+
+    @Value("${inventory.changes.tombstone-retention-days:30}")
+    private int tombstoneRetentionDays;
+
+    /**
+     * The next page of changes after {@code since}, a token from an earlier page; null (or a token
+     * older than the tombstones are kept) starts a full sync.
+     */
+    public ProductChanges changesSince(String since, int limit) {
+        int size = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime settled = now.minus(Duration.ofMillis(commitLagMs));
+        Position from = since == null || since.isEmpty() ? null : Position.decode(since);
+        // pages of a full sync go back further than the tombstones, only deletions since it started matter
+        boolean reset = from == null || (!from.full() && from.time().isBefore(now.minusDays(tombstoneRetentionDays)));
+        if (reset) {
+            from = new Position(BEGINNING, 0, settled);
+        }
+
+        List<Product> rows = productRepository.findChangedBetween(from.time(), from.id(), settled,
+                PageRequest.of(0, size + 1));
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            Product last = rows.get(size - 1);
+            Position next = new Position(last.getUpdatedAt(), last.getId(), from.syncStart());
+            List<Long> deleted = from.full() ? List.of() : tombstoneRepository.findDeletedBetween(from.time(), next.time());
+            return new ProductChanges(rows, deleted, next.encode(), true, reset);
+        }
+
+        // last settled page: add what changed within the commit lag, it comes again next time. A full sync
+        // gets the deletions made while it paged, products it sent on an early page may be gone by now
+        List<Product> changed = new ArrayList<>(rows);
+        changed.addAll(productRepository.findChangedAfter(settled, PageRequest.of(0, size)));
+        List<Long> deleted = tombstoneRepository.findDeletedAfter(from.full() ? from.syncStart() : from.time());
+        Position next = new Position(settled.isAfter(from.time()) ? settled : from.time(), 0, null);
+        return new ProductChanges(changed, deleted, next.encode(), false, reset);
+    }
+
+    /**
+     * A strong ETag for product listings: it changes with every product write and delete. Empty
+     * while the last change is within the commit lag, a commit stamped before it could still
+     * show up without moving it.
+     */
+    public Optional<String> etag() {
+        LocalDateTime lastUpdate = productRepository.findLastUpdate();
+        LocalDateTime lastDeletion = tombstoneRepository.findLastDeletion();
+        LocalDateTime last = lastUpdate == null || (lastDeletion != null && lastDeletion.isAfter(lastUpdate))
+                ? lastDeletion : lastUpdate;
+        if (last == null) {
+            return Optional.of("\"0\"");
+        }
+        if (last.isAfter(LocalDateTime.now().minus(Duration.ofMillis(commitLagMs)))) {
+            return Optional.empty();
+        }
+        return Optional.of("\"" + Long.toString(micros(last), 36) + "\"");
+    }
+
+    // a client that has not synced for longer than this does a full sync instead
+    @Scheduled(cron = "${inventory.changes.tombstone-purge-cron:0 30 1 * * *}")
+    public void purgeTombstones() {
+        int purged = tombstoneRepository.deleteOlderThan(LocalDateTime.now().minusDays(tombstoneRetentionDays));
+        log.info("purged {} product tombstones older than {} days", purged, tombstoneRetentionDays);
+    }
+
+    private static long micros(LocalDateTime time) {
+        return ChronoUnit.MICROS.between(BEGINNING, time);
+    }
+
+    // (updated_at, id) of the last row a client has, base64 like the listing cursors; during a full sync also
+    // the settled time it started from (0 in the token otherwise)
+    private record Position(LocalDateTime time, long id, LocalDateTime syncStart) {
+
+        boolean full() {
+            return syncStart != null;
+        }
+
+        String encode() {
+            long start = full() ? micros(syncStart) : 0;
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((micros(time) + "|" + id + "|" + start).getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Position decode(String token) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+                long start = Long.parseLong(parts[2]);
+                return new Position(BEGINNING.plus(Long.parseLong(parts[0]), ChronoUnit.MICROS),
+                        Long.parseLong(parts[1]), start == 0 ? null : BEGINNING.plus(start, ChronoUnit.MICROS));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new RuntimeException("Invalid change token");
+            }
+        }
+    }
+}
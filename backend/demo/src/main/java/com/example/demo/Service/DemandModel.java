@@ -0,0 +1,147 @@
+package com.example.demo.Service;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sales velocity of every product for {@link ReorderPlanner}, held in parallel primitive arrays
+ * indexed by the product's position in the ascending {@link #ids}. Each finished day is folded in
+ * once as an exponentially weighted moving average of the units sold and of their variance, so a
+ * run costs one pass per new day however long the history is. Passes over the arrays are split
+ * into fork-join chunks.
+ */
+public final class DemandModel {
+    // products per fork-join leaf task
+    private static final int CHUNK = 1 << 14;
+
+    final long[] ids;
+    final double[] mean;
+    final double[] variance;
+    // days folded in per product
+    final int[] days;
+    private LocalDate throughDay;
+
+    public DemandModel(long[] ids) {
+        this(ids, new double[ids.length], new double[ids.length], new int[ids.length]);
+    }
+
+    private DemandModel(long[] ids, double[] mean, double[] variance, int[] days) {
+        this.ids = ids;
+        this.mean = mean;
+        this.variance = variance;
+        this.days = days;
+    }
+
+    /** A model over {@code newIds} (ascending) that keeps this one's history for the products in both. */
+    public DemandModel remap(long[] newIds) {
+        DemandModel next = new DemandModel(newIds);
+        int j = 0;
+        for (int i = 0; i < newIds.length; i++) {
+            while (j < ids.length && ids[j] < newIds[i]) {
+                j++;
+            }
+            if (j < ids.length && ids[j] == newIds[i]) {
+                next.mean[i] = mean[j];
+                next.variance[i] = variance[j];
+                next.days[i] = days[j];
+            }
+        }
+        next.throughDay = throughDay;
+        return next;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /** Position of the product in the arrays, negative when it is not in the model. */
+    public int indexOf(long productId) {
+        return Arrays.binarySearch(ids, productId);
+    }
+
+    /** Last day folded in, null for a new model. */
+    public LocalDate throughDay() {
+        return throughDay;
+    }
+
+    /**
+     * Folds one day into every product: {@code sold[i]} units of product {@code ids[i]}, skipping
+     * products whose first day ({@code firstDays[i]}, epoch days) comes after it. A product's first
+     * day sets its mean outright instead of pulling it up from zero.
+     */
+    public void fold(LocalDate day, int[] sold, long[] firstDays, double alpha) {
+        long epochDay = day.toEpochDay();
+        forEachChunk(ids.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                if (firstDays[i] > epochDay) {
+                    continue;
+                }
+                double x = sold[i];
+                if (days[i] == 0) {
+                    mean[i] = x;
+                    variance[i] = 0;
+                } else {
+                    double delta = x - mean[i];
+                    mean[i] += alpha * delta;
+                    variance[i] = (1 - alpha) * (variance[i] + alpha * delta * delta);
+                }
+                days[i]++;
+            }
+        });
+        throughDay = day;
+    }
+
+    /**
+     * Reorder point of every product: the expected demand over its lead time plus {@code z} standard
+     * deviations of that demand as safety stock. Order quantity: the expected demand over
+     * {@code coverDays}. Products with fewer than {@code minDays} days of history get -1 for both.
+     */
+    public void plan(int[] leadTimes, double z, int coverDays, int minDays, int[] reorderPoints, int[] orderQuantities) {
+        forEachChunk(ids.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                if (days[i] < minDays) {
+                    reorderPoints[i] = -1;
+                    orderQuantities[i] = -1;
+                    continue;
+                }
+                int lead = leadTimes[i];
+                double safety = z * Math.sqrt(variance[i] * lead);
+                reorderPoints[i] = (int) Math.ceil(mean[i] * lead + safety);
+                orderQuantities[i] = (int) Math.ceil(mean[i] * coverDays);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    interface RangeAction {
+        void run(int from, int to);
+    }
+
+    static void forEachChunk(int size, RangeAction action) {
+        ForkJoinPool.commonPool().invoke(new Chunk(0, size, action));
+    }
+
+    private static final class Chunk extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final RangeAction action;
+
+        Chunk(int from, int to, RangeAction action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK) {
+                action.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Chunk(from, middle, action), new Chunk(middle, to, action));
+        }
+    }
+}
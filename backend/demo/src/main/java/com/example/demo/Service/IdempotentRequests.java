@@ -0,0 +1,198 @@
+package com.example.demo.Service;
+
+import com.example.demo.Models.IdempotencyRecord;
+import com.example.demo.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs a mutating request at most once per {@code Idempotency-Key}, so a POS terminal that times
+ * out and retries a sale does not sell twice. The first request with a key runs; a retry gets the
+ * first response back, and a duplicate arriving while the first is still running waits for it
+ * instead of running again. A key sent with a different request is refused.
+ * <p>
+ * Keys live in a bounded in-memory map for {@code inventory.idempotency.ttl-seconds}; a request
+ * without a key goes straight through. A failed request is forgotten, its retry runs again. With
+ * {@code inventory.idempotency.persist} the responses are also written to
+ * {@code idempotency_record} and a key not in memory is looked up there, so retries across a
+ * restart are answered too. The record is written after the request's own transaction, a crash
+ * between the two loses it.
+ */
+@Service
+public class IdempotentRequests implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(IdempotentRequests.class);
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${inventory.idempotency.max-keys:100000}")
+    private long maxKeys;
+
+    @Value("${inventory.idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    @Value("${inventory.idempotency.persist:false}")
+    private boolean persist;
+
+    // key -> the first request with it, running or done
+    private Cache<String, Execution> executions;
+    private final AtomicLong replays = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        executions = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Runs {@code action} unless {@code key} was seen before, in which case its first response is
+     * returned (or its first failure thrown again while it is still in flight).
+     *
+     * @param request what the key is for, see {@link #describe(String, Object)}; a replay must match it
+     * @param type    the response type, for reading it back from {@code idempotency_record}
+     */
+    public <T> T execute(String key, String request, Class<T> type, Supplier<T> action) {
+        if (key == null || key.isEmpty()) {
+            return action.get();
+        }
+        Execution execution = new Execution(request);
+        Execution first = executions.asMap().putIfAbsent(key, execution);
+        if (first != null) {
+            return first.replay(key, request, type);
+        }
+
+        T response;
+        try {
+            Optional<T> stored = persist ? readStored(key, request, type) : Optional.empty();
+            if (stored.isPresent()) {
+                replays.incrementAndGet();
+                response = stored.get();
+            } else {
+                response = action.get();
+                if (persist) {
+                    store(key, request, response);
+                }
+            }
+        } catch (RuntimeException e) {
+            // not done, a retry runs again; duplicates already waiting get the same failure
+            executions.asMap().remove(key, execution);
+            execution.response.completeExceptionally(e);
+            throw e;
+        }
+        execution.response.complete(response);
+        return response;
+    }
+
+    /** {@code route} plus the request body as JSON, so a key reused for another body is caught. */
+    public String describe(String route, Object body) {
+        try {
+            return route + " " + objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Unreadable request body", e);
+        }
+    }
+
+    private <T> Optional<T> readStored(String key, String request, Class<T> type) {
+        Optional<IdempotencyRecord> record = recordRepository.findById(key);
+        if (record.isEmpty()) {
+            return Optional.empty();
+        }
+        if (!record.get().getRequest().equals(request)) {
+            conflicts.incrementAndGet();
+            throw new RuntimeException("Idempotency-Key already used for a different request");
+        }
+        try {
+            return Optional.of(objectMapper.readValue(record.get().getResponse(), type));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Stored response for Idempotency-Key " + key + " is unreadable", e);
+        }
+    }
+
+    private void store(String key, String request, Object response) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setKey(key);
+        record.setRequest(request);
+        record.setCreatedAt(LocalDateTime.now());
+        try {
+            record.setResponse(objectMapper.writeValueAsString(response));
+            recordRepository.save(record);
+        } catch (JsonProcessingException | DataAccessException e) {
+            // the request itself succeeded, only a retry after a restart would run it again
+            log.warn("could not store the response for Idempotency-Key {}: {}", key, e.toString());
+        }
+    }
+
+    @Scheduled(cron = "${inventory.idempotency.purge-cron:0 0 * * * *}")
+    public void purgeRecords() {
+        if (persist) {
+            recordRepository.deleteOlderThan(LocalDateTime.now().minusSeconds(ttlSeconds));
+        }
+    }
+
+    // cache.gets / cache.size / cache.evictions tagged cache=idempotency.keys, plus replays and conflicts
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, executions, "idempotency.keys");
+        FunctionCounter.builder("inventory.idempotency.replays", replays, AtomicLong::get)
+                .description("Requests answered with the response to an earlier request with the same key")
+                .register(registry);
+        FunctionCounter.builder("inventory.idempotency.conflicts", conflicts, AtomicLong::get)
+                .description("Requests refused because their key was used for a different request")
+                .register(registry);
+    }
+
+    private final class Execution {
+        final String request;
+        final CompletableFuture<Object> response = new CompletableFuture<>();
+
+        Execution(String request) {
+            this.request = request;
+        }
+
+        <T> T replay(String key, String request, Class<T> type) {
+            if (!this.request.equals(request)) {
+                conflicts.incrementAndGet();
+                throw new RuntimeException("Idempotency-Key already used for a different request");
+            }
+            replays.incrementAndGet();
+            log.debug("replaying the response for Idempotency-Key {}", key);
+            try {
+                return type.cast(response.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
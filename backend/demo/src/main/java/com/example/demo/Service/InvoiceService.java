@@ -0,0 +1,179 @@
+package com.example.demo.Service;
+
+import com.example.demo.Models.Invoice;
+import com.example.demo.Models.InvoiceLine;
+import com.example.demo.dto.CheckoutRequest;
+import com.example.demo.repository.InvoiceRepository;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.StockLevel;
+import io.micrometer.core.instrument.Counter;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+@Service
+public class InvoiceService {
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private StockReservations reservations;
+
+    @Autowired
+    private StockSlots stockSlots;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${inventory.invoice.cgst-rate:9}")
+    private double cgstRate;
+
+    @Value("${inventory.invoice.sgst-rate:9}")
+    private double sgstRate;
+
+    private Counter soldOk;
+    private Counter soldInsufficient;
+    private Counter soldNotFound;
+
+    @PostConstruct
+    void registerMeters() {
+        soldOk = productService.sellOutcome("checkout", "ok");
+        soldInsufficient = productService.sellOutcome("checkout", "insufficient");
+        soldNotFound = productService.sellOutcome("checkout", "not_found");
+    }
+
+    /**
+     * Sells a whole basket atomically: one batched conditional UPDATE for all lines, one SELECT
+     * for the new levels, the invoice insert and the stock ledger batch, all in a single transaction. If any line is
+     * short on stock nothing is sold. With a {@code cartId} the cart's holds are used for its lines
+     * and released once the sale commits; without one only units nobody holds can be sold.
+     */
+    public Invoice checkout(CheckoutRequest request) {
+        SortedMap<Long, Integer> quantities = mergeLines(request);
+
+        StockReservations.Claim claim;
+        try {
+            claim = reservations.claim(request.getCartId(), quantities);
+        } catch (RuntimeException e) {
+            soldInsufficient.increment();
+            throw e;
+        }
+
+        Invoice invoice = new Invoice();
+        List<StockLevel> levels;
+        try {
+            levels = transactionTemplate.execute(status -> {
+                // row-level lines in one batch, then the lines of products split over stock slots
+                SortedMap<Long, Integer> rowLines = new TreeMap<>(quantities);
+                rowLines.keySet().removeIf(stockSlots::isSplit);
+                int[] updated = rowLines.isEmpty() ? new int[0] : productRepository.decrementStockBatch(rowLines);
+                Iterator<Long> ids = rowLines.keySet().iterator();
+                for (int count : updated) {
+                    long id = ids.next();
+                    // a product split since we last looked does not match the row UPDATE
+                    if (count == 0 && !(stockSlots.refresh(id) && stockSlots.take(id, rowLines.get(id)))) {
+                        rejectLine(id);
+                    }
+                }
+                for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+                    if (!rowLines.containsKey(line.getKey()) && !stockSlots.take(line.getKey(), line.getValue())) {
+                        rejectLine(line.getKey());
+                    }
+                }
+
+                List<StockLevel> newLevels = productRepository.findStockLevelsByIdIn(quantities.keySet()).stream()
+                        .map(stockSlots::derive)
+                        .toList();
+                for (StockLevel level : newLevels) {
+                    InvoiceLine line = new InvoiceLine();
+                    line.setInvoice(invoice);
+                    line.setProductId(level.getId());
+                    line.setProductName(level.getName());
+                    line.setUnitPrice(level.getPrice());
+                    line.setQuantity(quantities.get(level.getId()));
+                    line.setLineTotal(round(level.getPrice() * line.getQuantity()));
+                    invoice.getLines().add(line);
+                    productService.publishStockChange(ProductChangedEvent.Type.SOLD, level, -line.getQuantity());
+                }
+                applyTotals(invoice);
+                invoiceRepository.save(invoice);
+                // one SALE movement per line, written with the rest of the basket in a single batch
+                for (StockLevel level : newLevels) {
+                    stockLedger.recordSale(level, quantities.get(level.getId()), invoice.getId());
+                }
+                return newLevels;
+            });
+        } catch (RuntimeException e) {
+            claim.rollback();
+            throw e;
+        }
+        claim.commit();
+
+        soldOk.increment();
+        levels.forEach(productService::notifyIfLow);
+        return invoice;
+    }
+
+    private void rejectLine(long id) {
+        boolean exists = productRepository.existsById(id);
+        (exists ? soldInsufficient : soldNotFound).increment();
+        throw new RuntimeException(exists
+                ? "Insufficient stock for product " + id
+                : "Product Not Found: " + id);
+    }
+
+    public Invoice getInvoice(long id) {
+        return invoiceRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Invoice Not Found"));
+    }
+
+    // same GST split the invoice page used to do in the browser
+    private void applyTotals(Invoice invoice) {
+        double subtotal = 0;
+        for (InvoiceLine line : invoice.getLines()) {
+            subtotal += line.getUnitPrice() * line.getQuantity();
+        }
+        invoice.setSubtotal(round(subtotal));
+        invoice.setCgstRate(cgstRate);
+        invoice.setSgstRate(sgstRate);
+        invoice.setCgst(round(subtotal * cgstRate / 100));
+        invoice.setSgst(round(subtotal * sgstRate / 100));
+        invoice.setTotal(round(invoice.getSubtotal() + invoice.getCgst() + invoice.getSgst()));
+    }
+
+    // sorted by product id so concurrent baskets lock rows in the same order, repeated products are summed
+    private SortedMap<Long, Integer> mergeLines(CheckoutRequest request) {
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            throw new RuntimeException("Invoice has no items");
+        }
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        for (CheckoutRequest.Item item : request.getItems()) {
+            if (item.getQuantity() <= 0) {
+                throw new RuntimeException("Quantity must be positive for product " + item.getProductId());
+            }
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    private static double round(double amount) {
+        return Math.round(amount * 100) / 100.0;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.demo.Service;
+
+/**
+ * One product that dropped below its minimum, as queued for the supplier digest mail.
+ */
+public record LowStockAlert(long productId, String productName, String supplierEmail, int stock, int minStock) {
+}
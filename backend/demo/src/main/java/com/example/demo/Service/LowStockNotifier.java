@@ -0,0 +1,291 @@
+package com.example.demo.Service;
+
+import com.example.demo.repository.StockLevel;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Takes low-stock alerts off the sell path. Alerts go into a bounded queue and a single
+ * virtual-thread worker groups them per supplier over a short window, so a supplier gets one
+ * digest mail instead of one mail per sale. Failed digests are retried with exponential backoff.
+ */
+@Service
+public class LowStockNotifier implements MeterBinder {
+    private final Logger log = LoggerFactory.getLogger(LowStockNotifier.class);
+
+    @Autowired
+    @Lazy
+    private MailService mailService;
+
+    @Value("${inventory.alerts.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${inventory.alerts.window-ms:60000}")
+    private long windowMs;
+
+    @Value("${inventory.alerts.repeat-after-ms:21600000}")
+    private long repeatAfterMs;
+
+    @Value("${inventory.alerts.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${inventory.alerts.initial-backoff-ms:1000}")
+    private long initialBackoffMs;
+
+    private BlockingQueue<LowStockAlert> queue;
+    private Thread worker;
+    private volatile boolean running;
+
+    // productId -> when a mail for it last went out, repeat alerts are dropped until repeatAfterMs passes
+    private final Map<Long, Long> lastSent = new ConcurrentHashMap<>();
+    // products whose pending alert should be discarded (restocked before the digest went out); ids with no
+    // alert waiting are pruned by the worker, a large delivery would otherwise leave one entry per product
+    private final Map<Long, Boolean> cleared = new ConcurrentHashMap<>();
+    private long nextPruneAt;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong mailsSent = new AtomicLong();
+    private final AtomicLong mailsFailed = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        worker = Thread.ofVirtual().name("low-stock-mailer").start(this::drain);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Queues an alert for the product if it is below its minimum. Never blocks: when the queue
+     * is full the alert is dropped and counted.
+     */
+    public boolean publish(StockLevel level) {
+        if (level.getStock() >= level.getMinStock() || level.getSupplierEmail() == null) {
+            return false;
+        }
+        cleared.remove(level.getId());
+        LowStockAlert alert = new LowStockAlert(level.getId(), level.getName(),
+                level.getSupplierEmail(), level.getStock(), level.getMinStock());
+        if (!queue.offer(alert)) {
+            dropped.incrementAndGet();
+            log.warn("Low-stock queue full, dropping alert for product {}", level.getId());
+            return false;
+        }
+        published.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Forgets pending and already-mailed alerts for the products, called once they are restocked
+     * so the next drop below minimum alerts again straight away.
+     */
+    public void clear(Collection<Long> productIds) {
+        for (Long id : productIds) {
+            lastSent.remove(id);
+            cleared.put(id, Boolean.TRUE);
+        }
+    }
+
+    // restocks and edits that bring a product back to its minimum reset its alert state
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.Type.RESTOCKED || event.type() == ProductChangedEvent.Type.UPDATED) {
+            if (!event.after().isLow()) {
+                clear(List.of(event.productId()));
+            }
+        }
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    public int queueCapacity() {
+        return queueCapacity;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("inventory.alerts.queue.depth", this, LowStockNotifier::queueDepth).register(registry);
+        Gauge.builder("inventory.alerts.queue.capacity", this, LowStockNotifier::queueCapacity).register(registry);
+        counter(registry, "inventory.alerts.published", published);
+        counter(registry, "inventory.alerts.dropped", dropped);
+        counter(registry, "inventory.alerts.deduplicated", deduplicated);
+        counter(registry, "inventory.alerts.mails.sent", mailsSent);
+        counter(registry, "inventory.alerts.mails.failed", mailsFailed);
+    }
+
+    private static void counter(MeterRegistry registry, String name, AtomicLong value) {
+        FunctionCounter.builder(name, value, AtomicLong::get).register(registry);
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", (long) queue.size());
+        stats.put("queueCapacity", (long) queueCapacity);
+        stats.put("published", published.get());
+        stats.put("dropped", dropped.get());
+        stats.put("deduplicated", deduplicated.get());
+        stats.put("mailsSent", mailsSent.get());
+        stats.put("mailsFailed", mailsFailed.get());
+        return stats;
+    }
+
+    private void drain() {
+        Map<String, Digest> pending = new HashMap<>();
+        while (running || !pending.isEmpty()) {
+            try {
+                long now = System.currentTimeMillis();
+                long wait = windowMs;
+                for (Digest digest : pending.values()) {
+                    wait = Math.min(wait, Math.max(0, digest.dueAt - now));
+                }
+                LowStockAlert alert = running ? queue.poll(wait, TimeUnit.MILLISECONDS) : null;
+                while (alert != null) {
+                    add(pending, alert);
+                    alert = queue.poll();
+                }
+            } catch (InterruptedException e) {
+                // shutting down, fall through and flush what we have once
+                running = false;
+            } catch (RuntimeException e) {
+                log.error("Low-stock worker failed to queue an alert", e);
+            }
+            try {
+                flushDue(pending, !running);
+                prune(pending);
+            } catch (RuntimeException e) {
+                // this is the only worker: log and keep going rather than leave alerts sitting in the queue
+                log.error("Low-stock worker failed to flush digests", e);
+                if (!running) {
+                    pending.clear();
+                }
+            }
+        }
+    }
+
+    private void add(Map<String, Digest> pending, LowStockAlert alert) {
+        Long sentAt = lastSent.get(alert.productId());
+        if (sentAt != null && System.currentTimeMillis() - sentAt < repeatAfterMs) {
+            deduplicated.incrementAndGet();
+            return;
+        }
+        Digest digest = pending.computeIfAbsent(alert.supplierEmail(),
+                email -> new Digest(System.currentTimeMillis() + windowMs));
+        // keep only the latest level per product
+        if (digest.alerts.put(alert.productId(), alert) != null) {
+            deduplicated.incrementAndGet();
+        }
+    }
+
+    private void flushDue(Map<String, Digest> pending, boolean force) {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<String, Digest>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Digest> entry = it.next();
+            Digest digest = entry.getValue();
+            if (!force && digest.dueAt > now) {
+                continue;
+            }
+            digest.alerts.keySet().removeIf(id -> cleared.remove(id) != null);
+            if (digest.alerts.isEmpty()) {
+                it.remove();
+                continue;
+            }
+
+            List<LowStockAlert> alerts = new ArrayList<>(digest.alerts.values());
+            boolean sent;
+            try {
+                sent = mailService.sendLowStockDigest(entry.getKey(), alerts);
+            } catch (RuntimeException e) {
+                // sendMail only turns MailExceptions into false, anything else is a failed attempt too
+                log.warn("Low-stock digest for {} failed", entry.getKey(), e);
+                sent = false;
+            }
+            if (sent) {
+                mailsSent.incrementAndGet();
+                for (LowStockAlert alert : alerts) {
+                    lastSent.put(alert.productId(), now);
+                }
+                it.remove();
+            } else if (++digest.attempts >= maxAttempts || force) {
+                mailsFailed.incrementAndGet();
+                log.error("Giving up on low-stock digest for {} after {} attempts", entry.getKey(), digest.attempts);
+                it.remove();
+            } else {
+                // 1x, 2x, 4x ... the initial backoff; new alerts for this supplier keep joining the digest
+                digest.dueAt = now + (initialBackoffMs << (digest.attempts - 1));
+            }
+        }
+    }
+
+    // at most once a window: drops clear marks no queued or pending alert is left to match, and
+    // send times old enough that they no longer hold back a repeat alert
+    private void prune(Map<String, Digest> pending) {
+        long now = System.currentTimeMillis();
+        if (now < nextPruneAt) {
+            return;
+        }
+        nextPruneAt = now + windowMs;
+        lastSent.values().removeIf(sentAt -> now - sentAt >= repeatAfterMs);
+        if (cleared.isEmpty()) {
+            return;
+        }
+        Set<Long> waiting = new HashSet<>();
+        for (LowStockAlert alert : queue) {
+            waiting.add(alert.productId());
+        }
+        for (Digest digest : pending.values()) {
+            waiting.addAll(digest.alerts.keySet());
+        }
+        cleared.keySet().retainAll(waiting);
+    }
+
+    int pendingClears() {
+        return cleared.size();
+    }
+
+    private static final class Digest {
+        final Map<Long, LowStockAlert> alerts = new LinkedHashMap<>();
+        long dueAt;
+        int attempts;
+
+        Digest(long dueAt) {
+            this.dueAt = dueAt;
+        }
+    }
+}
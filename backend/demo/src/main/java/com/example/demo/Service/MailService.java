@@ -1,32 +1,86 @@
 package com.example.demo.Service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// not on the startup path: created for the first digest (LowStockNotifier holds a lazy proxy) or /email request
 @Service
+@Lazy
 public class MailService {
+    // JavaMail's SMTP transport blocks on the socket inside synchronized methods, which would pin a
+    // virtual thread to its carrier; sends run on these platform threads and callers just wait
+    private static final int SENDER_THREADS = 2;
+
     private final JavaMailSender javaMailSender;
+    private final ExecutorService sender;
+    private final Timer sent;
+    private final Timer failed;
     private final Logger log = LoggerFactory.getLogger(MailService.class);
 
     public MailService(JavaMailSender javaMailSender) {
+        this(javaMailSender, new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public MailService(JavaMailSender javaMailSender, MeterRegistry meterRegistry) {
         this.javaMailSender = javaMailSender;
+        this.sender = Executors.newFixedThreadPool(SENDER_THREADS,
+                Thread.ofPlatform().name("mail-sender-", 0).daemon().factory());
+        // SMTP round trip including the wait for a sender thread
+        this.sent = Timer.builder("inventory.mail.send").tag("result", "sent").register(meterRegistry);
+        this.failed = Timer.builder("inventory.mail.send").tag("result", "failed").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sender.shutdown();
+    }
+
+    private void send(SimpleMailMessage msg) {
+        try {
+            sender.submit(() -> javaMailSender.send(msg)).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrupted while sending mail to " + String.join(",", msg.getTo()));
+        }
     }
 
     public boolean sendMail(String to, String subject, String body) {
+        return sendMail(message(to, subject, body));
+    }
+
+    private boolean sendMail(SimpleMailMessage msg) {
+        long started = System.nanoTime();
+        String to = String.join(",", msg.getTo());
         try {
-            SimpleMailMessage msg = new SimpleMailMessage();
-            msg.setFrom("smkd3081@gmail.com"); // optional
-            msg.setTo(to);
-            msg.setSubject(subject);
-            msg.setText(body);
-            javaMailSender.send(msg);
+            send(msg);
+            sent.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
             log.info("Mail sent to {}", to);
             return true;
         } catch (MailException ex) {
+            failed.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
             // log full stack (debug) and short message for info
             log.error("Failed to send email to {} — cause: {}", to, ex.getMessage());
             log.debug("Mail exception stacktrace:", ex);
@@ -34,14 +88,51 @@ public class MailService {
         }
     }
 
+    private static SimpleMailMessage message(String to, String subject, String body) {
+        SimpleMailMessage msg = new SimpleMailMessage();
+        msg.setFrom("smkd3081@gmail.com"); // optional
+        msg.setTo(to);
+        msg.setSubject(subject);
+        msg.setText(body);
+        return msg;
+    }
+
     public boolean sendLowStockEmail(String productName, String supplierMail, int currentStock) {
+        return sendMail(lowStockEmail(productName, supplierMail, currentStock));
+    }
+
+    private static SimpleMailMessage lowStockEmail(String productName, String supplierMail, int currentStock) {
         String subject = "Low Stock Alert - " + productName;
         String body = "Dear Supplier,\n\n"
                 + "Our product \"" + productName + "\" has dropped to " + currentStock + " units.\n"
                 + "Please send additional stock as soon as possible.\n\n"
                 + "Regards,\nSmart Inventory System";
 
-        return sendMail(supplierMail, subject, body);
+        return message(supplierMail, subject, body);
+    }
+
+    // one mail listing every low product of a supplier, used by LowStockNotifier
+    public boolean sendLowStockDigest(String supplierMail, List<LowStockAlert> alerts) {
+        return sendMail(lowStockDigest(supplierMail, alerts));
+    }
+
+    /** The mail {@link #sendLowStockDigest} sends, built without sending it. */
+    public SimpleMailMessage lowStockDigest(String supplierMail, List<LowStockAlert> alerts) {
+        if (alerts.size() == 1) {
+            LowStockAlert alert = alerts.get(0);
+            return lowStockEmail(alert.productName(), supplierMail, alert.stock());
+        }
+
+        StringBuilder body = new StringBuilder("Dear Supplier,\n\n")
+                .append("The following products have dropped below their minimum stock:\n\n");
+        for (LowStockAlert alert : alerts) {
+            body.append(" - \"").append(alert.productName()).append("\": ")
+                    .append(alert.stock()).append(" units left (minimum ").append(alert.minStock()).append(")\n");
+        }
+        body.append("\nPlease send additional stock as soon as possible.\n\n")
+                .append("Regards,\nSmart Inventory System");
+
+        return message(supplierMail, "Low Stock Alert - " + alerts.size() + " products", body.toString());
     }
         public boolean testMailConnection() {
         try {
@@ -51,11 +142,11 @@ public class MailService {
             msg.setSubject("SMTP Test - Smart Inventory");
             msg.setText("✅ Your SMTP connection is working fine!");
 
-            javaMailSender.send(msg);
-            System.out.println("✅ Test mail sent successfully!");
+            send(msg);
+            log.info("Test mail sent successfully");
             return true;
         } catch (Exception e) {
-            System.err.println("❌ Test mail failed: " + e.getMessage());
+            log.error("Test mail failed: {}", e.getMessage());
             return false;
         }
     }
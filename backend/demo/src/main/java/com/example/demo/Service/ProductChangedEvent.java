@@ -0,0 +1,25 @@
+package com.example.demo.Service;
+
+/**
+ * Published by the product write paths. {@code before} is null for additions and {@code after}
+ * is null for deletions; BULK means many rows changed at once (no snapshots) and listeners
+ * should reload whatever they derive from the product table. MIN_STOCK is the narrower form for
+ * changes to min_stock only (no snapshots either): names and stock are untouched, so only what
+ * depends on the low/healthy split needs reloading.
+ */
+public record ProductChangedEvent(Type type, ProductSnapshot before, ProductSnapshot after) {
+
+    public enum Type { ADDED, UPDATED, SOLD, RESTOCKED, DELETED, BULK, MIN_STOCK }
+
+    public static ProductChangedEvent bulk() {
+        return new ProductChangedEvent(Type.BULK, null, null);
+    }
+
+    public static ProductChangedEvent minStock() {
+        return new ProductChangedEvent(Type.MIN_STOCK, null, null);
+    }
+
+    public long productId() {
+        return after != null ? after.id() : before.id();
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.demo.Service;
+
+import com.example.demo.dto.ImportResult;
+import com.example.demo.dto.ProductCsvRow;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.SupplierRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bulk CSV import and export of products.
+ * <p>
+ * Import parses the upload record by record, resolves suppliers once per distinct id or email,
+ * and inserts in JDBC batches of {@code inventory.csv.batch-size} rows, each committed on its own,
+ * so heap use stays flat however large the file is. Bad lines are skipped and reported, the rest
+ * of the file still goes in. A batch the database refuses is rolled back on its own and reported
+ * with its line range, so the result says exactly which lines landed. Export writes rows straight
+ * from a database cursor to the response.
+ */
+@Service
+public class ProductCsvService {
+    private static final Logger log = LoggerFactory.getLogger(ProductCsvService.class);
+    private static final int MAX_REPORTED_ERRORS = 100;
+    static final String HEADER = "id,name,stock,minStock,price,status,supplierId,supplierEmail";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Value("${inventory.csv.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${inventory.csv.fetch-size:1000}")
+    private int fetchSize;
+
+    /**
+     * Imports products from CSV with a header row. Recognised columns (case and punctuation
+     * insensitive): name (required), stock, minStock, price, supplierId, supplierEmail or supplier
+     * (an email, as the old report export wrote it). Other columns, such as id and status from
+     * our own export, are ignored.
+     */
+    public ImportResult importCsv(InputStream input) {
+        long started = System.currentTimeMillis();
+        CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16));
+        // "id:5" / "email:x" -> supplier id, empty when it does not exist
+        Map<String, Optional<Long>> suppliers = new HashMap<>();
+        List<ProductCsvRow> batch = new ArrayList<>(batchSize);
+        List<String> errors = new ArrayList<>();
+        long imported = 0;
+        long rejected = 0;
+        long firstLine = 0;
+
+        try {
+            List<String> header = reader.next();
+            if (header == null) {
+                throw new RuntimeException("CSV file is empty");
+            }
+            Columns columns = Columns.of(header);
+
+            List<String> record;
+            while ((record = reader.next()) != null) {
+                try {
+                    ProductCsvRow row = parse(record, columns, suppliers);
+                    if (batch.isEmpty()) {
+                        firstLine = reader.recordLine();
+                    }
+                    batch.add(row);
+                } catch (RuntimeException e) {
+                    rejected++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add("Line " + reader.recordLine() + ": " + e.getMessage());
+                    }
+                }
+                if (batch.size() == batchSize) {
+                    int rows = batch.size();
+                    int inserted = flush(batch, firstLine, reader.recordLine(), errors);
+                    imported += inserted;
+                    rejected += rows - inserted;
+                }
+            }
+            int rows = batch.size();
+            int inserted = flush(batch, firstLine, reader.recordLine(), errors);
+            imported += inserted;
+            rejected += rows - inserted;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read CSV upload", e);
+        } finally {
+            if (imported > 0) {
+                // stats, search index and caches reload from the table
+                events.publishEvent(ProductChangedEvent.bulk());
+            }
+        }
+
+        long millis = System.currentTimeMillis() - started;
+        log.info("Imported {} products ({} rejected) in {} ms", imported, rejected, millis);
+        return new ImportResult(imported, rejected, errors, millis);
+    }
+
+    /** Writes every product as CSV, ordered by id, in the same layout the import accepts. */
+    public void exportCsv(OutputStream output) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 1 << 16);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            try {
+                writer.write(HEADER);
+                writer.write('\n');
+                productRepository.forEachCsvRow(fetchSize, row -> write(writer, row));
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // inserts the batch in its own transaction; when the database refuses it, none of its rows go in and
+    // the failure is always reported, it says which lines are missing
+    private int flush(List<ProductCsvRow> batch, long firstLine, long lastLine, List<String> errors) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            Integer inserted = transactionTemplate.execute(status -> {
+                long[] ids = productRepository.insertBatch(batch);
+                for (int i = 0; i < ids.length; i++) {
+                    stockLedger.recordOpening(ids[i], batch.get(i).stock(), batch.get(i).price());
+                }
+                return ids.length;
+            });
+            return inserted == null ? 0 : inserted;
+        } catch (RuntimeException e) {
+            String reason = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            log.warn("CSV import batch of lines {}-{} failed: {}", firstLine, lastLine, reason);
+            errors.add("Lines " + firstLine + "-" + lastLine + ": " + batch.size() + " rows not imported: " + reason);
+            return 0;
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private ProductCsvRow parse(List<String> record, Columns columns, Map<String, Optional<Long>> suppliers) {
+        String name = columns.get(record, columns.name);
+        if (name == null) {
+            throw new RuntimeException("name is missing");
+        }
+        int stock = parseInt(columns.get(record, columns.stock), "stock");
+        int minStock = parseInt(columns.get(record, columns.minStock), "minStock");
+        double price = parseDouble(columns.get(record, columns.price));
+        if (stock < 0 || minStock < 0 || price < 0) {
+            throw new RuntimeException("stock, minStock and price must not be negative");
+        }
+
+        Long supplierId = null;
+        String supplierIdText = columns.get(record, columns.supplierId);
+        String supplierEmail = columns.get(record, columns.supplierEmail);
+        if (supplierIdText != null) {
+            long id = parseLong(supplierIdText);
+            supplierId = suppliers.computeIfAbsent("id:" + id,
+                    key -> supplierRepository.existsById(id) ? Optional.of(id) : Optional.empty())
+                    .orElseThrow(() -> new RuntimeException("Supplier Not Found: " + supplierIdText));
+        } else if (supplierEmail != null && !"N/A".equalsIgnoreCase(supplierEmail)) {
+            String email = supplierEmail.toLowerCase(Locale.ROOT);
+            supplierId = suppliers.computeIfAbsent("email:" + email,
+                    key -> supplierRepository.findIdsByEmail(email).stream().findFirst())
+                    .orElseThrow(() -> new RuntimeException("Supplier Not Found: " + supplierEmail));
+        }
+        return new ProductCsvRow(null, name, stock, minStock, price, supplierId, null);
+    }
+
+    private static void write(Writer writer, ProductCsvRow row) {
+        try {
+            writer.write(String.valueOf(row.id()));
+            writer.write(',');
+            writer.write(CsvReader.escape(row.name()));
+            writer.write(',');
+            writer.write(Integer.toString(row.stock()));
+            writer.write(',');
+            writer.write(Integer.toString(row.minStock()));
+            writer.write(',');
+            writer.write(Double.toString(row.price()));
+            writer.write(',');
+            writer.write(row.stock() < row.minStock() ? "Low" : "Healthy");
+            writer.write(',');
+            writer.write(row.supplierId() == null ? "" : row.supplierId().toString());
+            writer.write(',');
+            writer.write(CsvReader.escape(row.supplierEmail()));
+            writer.write('\n');
+        } catch (IOException e) {
+            // client went away mid-download
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int parseInt(String value, String column) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException(column + " is not a whole number: " + value);
+        }
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("supplierId is not a number: " + value);
+        }
+    }
+
+    private static double parseDouble(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("price is not a number: " + value);
+        }
+    }
+
+    // header positions, -1 when the column is absent
+    private record Columns(int name, int stock, int minStock, int price, int supplierId, int supplierEmail) {
+
+        static Columns of(List<String> header) {
+            Map<String, Integer> positions = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                positions.putIfAbsent(header.get(i).toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", ""), i);
+            }
+            if (!positions.containsKey("name")) {
+                throw new RuntimeException("CSV header has no name column");
+            }
+            return new Columns(positions.get("name"),
+                    positions.getOrDefault("stock", -1),
+                    positions.getOrDefault("minstock", -1),
+                    positions.getOrDefault("price", -1),
+                    positions.getOrDefault("supplierid", -1),
+                    positions.getOrDefault("supplieremail", positions.getOrDefault("supplier", -1)));
+        }
+
+        // trimmed value, null when the column is absent or empty
+        String get(List<String> record, int position) {
+            if (position < 0 || position >= record.size()) {
+                return null;
+            }
+            String value = record.get(position).trim();
+            return value.isEmpty() ? null : value;
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package com.example.demo.Service;
+
+import com.example.demo.repository.ProductName;
+import com.example.demo.repository.ProductRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory n-gram index over product names for the billing counter typeahead, so a keystroke
+ * does not turn into a {@code lower(name) LIKE '%x%'} table scan.
+ * <p>
+ * Every name is posted under a hash of the whole name, its 1- to 3-character prefix, the same
+ * prefixes of each later word, and all of its character trigrams. A query walks those classes in
+ * rank order (exact name, name prefix, word prefix, then any substring via the rarest trigram of
+ * the query), verifies each candidate and stops once the limit is filled, so common queries touch
+ * a handful of rows. Within a rank hits come in catalog order.
+ * <p>
+ * Documents are numbered densely and postings are append-only int arrays; deletes and renames
+ * only mark the old document dead, and the index compacts itself once half of it is dead. The
+ * index is loaded from the database on startup and kept current from {@link ProductChangedEvent}s.
+ */
+@Service
+public class ProductSearchIndex implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+    private static final int LOAD_BATCH = 10_000;
+    private static final int EXACT_MATCH = 0;
+    private static final int PREFIX_MATCH = 1;
+    private static final int WORD_MATCH = 2;
+    private static final int SUBSTRING_MATCH = 3;
+    // posting key classes, plain keys are trigrams packed 16 bits per char
+    private static final long EXACT = 1L << 60;
+    private static final long NAME_PREFIX = 1L << 61;
+    private static final long WORD_PREFIX = 1L << 62;
+
+    @Autowired(required = false)
+    private ProductRepository productRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Core core = new Core();
+    private volatile boolean ready;
+    // one rebuild at a time: it owns pendingDuringRebuild from start to swap
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // changes that arrive while a rebuild is reading the table, replayed onto the new index
+    private List<Runnable> pendingDuringRebuild;
+    // bulk changes while a rebuild runs ask for one more, however many of them there were
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile boolean rebuildRequested;
+
+    public record Hit(long id, String name, int rank) {
+    }
+
+    /** Whether the initial load finished, until then callers should fall back to the database. */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return core.byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("inventory.search.index.size", this, ProductSearchIndex::size).register(registry);
+    }
+
+    public void put(long id, String name) {
+        write(() -> core.put(id, name));
+    }
+
+    public void remove(long id) {
+        write(() -> core.remove(id));
+    }
+
+    public List<Hit> search(String query, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return core.search(q, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Replaces the whole index with the given names, used on startup and after bulk changes. */
+    public void load(Iterable<ProductName> names) {
+        Core fresh = new Core();
+        for (ProductName name : names) {
+            fresh.put(name.getId(), name.getName());
+        }
+        rebuildLock.lock();
+        try {
+            swap(fresh);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        requestRebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.type()) {
+            case ADDED, UPDATED -> put(event.after().id(), event.after().name());
+            case DELETED -> remove(event.before().id());
+            case BULK -> requestRebuild();
+            default -> {
+                // stock and min stock changes do not touch names
+            }
+        }
+    }
+
+    private void requestRebuild() {
+        rebuildRequested = true;
+        if (rebuilding.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("product-search-index").start(this::rebuildWhileRequested);
+        }
+    }
+
+    private void rebuildWhileRequested() {
+        do {
+            while (rebuildRequested) {
+                rebuildRequested = false;
+                rebuild();
+            }
+            rebuilding.set(false);
+            // a request that came in after the last check and found rebuilding still set
+        } while (rebuildRequested && rebuilding.compareAndSet(false, true));
+    }
+
+    // reloads the index from the table; a second caller waits for the first rebuild to swap
+    void rebuild() {
+        rebuildLock.lock();
+        try {
+            readTable();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    // streams (id, name) pairs from the table in keyset batches, never the full entities
+    private void readTable() {
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            long started = System.currentTimeMillis();
+            Core fresh = new Core();
+            long afterId = Long.MIN_VALUE;
+            List<ProductName> batch;
+            do {
+                batch = productRepository.findNamesAfter(afterId, PageRequest.of(0, LOAD_BATCH));
+                for (ProductName name : batch) {
+                    fresh.put(name.getId(), name.getName());
+                    afterId = name.getId();
+                }
+            } while (batch.size() == LOAD_BATCH);
+            swap(fresh);
+            log.info("Product search index loaded {} names in {} ms", fresh.byId.size(),
+                    System.currentTimeMillis() - started);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.error("Could not load product search index, searches fall back to the database", e);
+        }
+    }
+
+    private void swap(Core fresh) {
+        lock.writeLock().lock();
+        try {
+            core = fresh;
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.forEach(Runnable::run);
+                pendingDuringRebuild = null;
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void write(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long gram(String s, int start, int length) {
+        long key = 0;
+        for (int i = 0; i < length; i++) {
+            key = (key << 16) | s.charAt(start + i);
+        }
+        return key;
+    }
+
+    /** The index data; guarded by the outer lock. */
+    private static final class Core {
+        final Map<Long, Integer> byId = new HashMap<>();
+        final Map<Long, IntList> postings = new HashMap<>();
+        long[] ids = new long[1024];
+        String[] names = new String[1024];   // original name, null once the document is dead
+        String[] folded = new String[1024];  // normalized name used for matching
+        int docs;
+        int dead;
+
+        void put(long id, String name) {
+            Integer existing = byId.get(id);
+            if (existing != null) {
+                if (name != null && name.equals(names[existing])) {
+                    return;
+                }
+                kill(existing);
+            }
+            if (name == null || name.isBlank()) {
+                byId.remove(id);
+                return;
+            }
+            int doc = docs++;
+            if (doc == ids.length) {
+                ids = Arrays.copyOf(ids, doc * 2);
+                names = Arrays.copyOf(names, doc * 2);
+                folded = Arrays.copyOf(folded, doc * 2);
+            }
+            String f = normalize(name);
+            ids[doc] = id;
+            names[doc] = name;
+            folded[doc] = f;
+            byId.put(id, doc);
+
+            post(EXACT | f.hashCode() & 0xffffffffL, doc);
+            for (int i = 0; i < f.length(); i++) {
+                if (i + 3 <= f.length()) {
+                    post(gram(f, i, 3), doc);
+                }
+                if (isWordStart(f, i)) {
+                    long flag = i == 0 ? NAME_PREFIX : WORD_PREFIX;
+                    for (int length = 1; length <= 3 && i + length <= f.length(); length++) {
+                        post(flag | (long) length << 56 | gram(f, i, length), doc);
+                    }
+                }
+            }
+        }
+
+        void remove(long id) {
+            Integer doc = byId.remove(id);
+            if (doc != null) {
+                kill(doc);
+            }
+        }
+
+        private void kill(int doc) {
+            names[doc] = null;
+            folded[doc] = null;
+            if (++dead > 1024 && dead * 2 > docs) {
+                compact();
+            }
+        }
+
+        // re-indexes the live documents, dropping dead ones from every posting list
+        private void compact() {
+            Core live = new Core();
+            for (int doc = 0; doc < docs; doc++) {
+                if (names[doc] != null) {
+                    live.put(ids[doc], names[doc]);
+                }
+            }
+            byId.clear();
+            byId.putAll(live.byId);
+            postings.clear();
+            postings.putAll(live.postings);
+            ids = live.ids;
+            names = live.names;
+            folded = live.folded;
+            docs = live.docs;
+            dead = 0;
+        }
+
+        private void post(long key, int doc) {
+            IntList list = postings.computeIfAbsent(key, k -> new IntList());
+            // a name repeating a gram must not list the document twice
+            if (list.size == 0 || list.values[list.size - 1] != doc) {
+                list.add(doc);
+            }
+        }
+
+        // walks the rank classes best first and stops as soon as the limit is filled
+        List<Hit> search(String q, int limit) {
+            List<Hit> hits = new ArrayList<>(Math.min(limit, 64));
+            int head = Math.min(3, q.length());
+            collect(postings.get(EXACT | q.hashCode() & 0xffffffffL), q, EXACT_MATCH, limit, hits);
+            collect(postings.get(NAME_PREFIX | (long) head << 56 | gram(q, 0, head)), q, PREFIX_MATCH, limit, hits);
+            collect(postings.get(WORD_PREFIX | (long) head << 56 | gram(q, 0, head)), q, WORD_MATCH, limit, hits);
+            if (q.length() >= 3) {
+                // any substring contains every trigram of the query, so the rarest one bounds the scan
+                IntList rarest = null;
+                for (int i = 0; i + 3 <= q.length(); i++) {
+                    IntList list = postings.get(gram(q, i, 3));
+                    if (list == null) {
+                        return hits;
+                    }
+                    if (rarest == null || list.size < rarest.size) {
+                        rarest = list;
+                    }
+                }
+                collect(rarest, q, SUBSTRING_MATCH, limit, hits);
+            }
+            return hits;
+        }
+
+        private void collect(IntList candidates, String q, int rank, int limit, List<Hit> hits) {
+            if (candidates == null) {
+                return;
+            }
+            for (int i = 0; i < candidates.size && hits.size() < limit; i++) {
+                int doc = candidates.values[i];
+                String name = folded[doc];
+                // a document is listed under every class it has grams for, take it only at its best rank
+                if (name != null && rank(name, q) == rank) {
+                    hits.add(new Hit(ids[doc], names[doc], rank));
+                }
+            }
+        }
+
+        private static int rank(String name, String q) {
+            if (name.equals(q)) {
+                return EXACT_MATCH;
+            }
+            if (name.startsWith(q)) {
+                return PREFIX_MATCH;
+            }
+            int at = name.indexOf(q);
+            int best = -1;
+            while (at >= 0) {
+                if (isWordStart(name, at)) {
+                    return WORD_MATCH;
+                }
+                best = SUBSTRING_MATCH;
+                at = name.indexOf(q, at + 1);
+            }
+            return best;
+        }
+
+        private static boolean isWordStart(String s, int i) {
+            return i == 0 || !Character.isLetterOrDigit(s.charAt(i - 1));
+        }
+    }
+
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -1,57 +1,450 @@
 package com.example.demo.Service;
 
 import com.example.demo.Models.Product;
+import com.example.demo.Models.ProductTombstone;
+import com.example.demo.Models.Supplier;
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.ProductSummary;
+import com.example.demo.dto.ReceiptRequest;
 import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.ProductSort;
+import com.example.demo.repository.ProductTombstoneRepository;
+import com.example.demo.repository.StockLevel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 @Service
 public class ProductService {
+    private static final Logger log = LoggerFactory.getLogger(ProductService.class);
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_TYPEAHEAD = 50;
+    private static final int MAX_INDEXED_SEARCH = 1000;
+
     @Autowired
     private ProductRepository productRepository;
 
     @Autowired
-    private MailService mailService;
+    private LowStockNotifier lowStockNotifier;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
 
+    @Autowired
+    private CatalogCache catalogCache;
 
+    @Autowired
+    private StockLedger stockLedger;
 
-    public void updateStock(long id, int soldQuantity) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product Not Found"));
+    @Autowired
+    private StockReservations reservations;
 
-        int newProduct = product.getStock() - soldQuantity;
-        product.setStock(newProduct);
-        productRepository.save(product);
+    @Autowired
+    private StockSlots stockSlots;
 
-        System.out.println("Updating stock for " + product.getName() + " | New Stock: " + newProduct);
+    @Autowired
+    private ProductTombstoneRepository tombstoneRepository;
 
-        if (newProduct < product.getMinStock()) {
-            System.out.println("Stock below minStock! Sending email to: " + product.getSupplier().getEmail());
-            mailService.sendLowStockEmail(
-                    product.getName(),
-                    product.getSupplier().getEmail(),
-                    newProduct
-            );
-        } else {
-            System.out.println("Stock is sufficient. No mail sent.");
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter soldOk;
+    private Counter soldInsufficient;
+    private Counter soldNotFound;
+    private Counter lowStockTriggered;
+
+    @PostConstruct
+    void registerMeters() {
+        soldOk = sellOutcome("single", "ok");
+        soldInsufficient = sellOutcome("single", "insufficient");
+        soldNotFound = sellOutcome("single", "not_found");
+        lowStockTriggered = Counter.builder("inventory.low_stock.triggered")
+                .description("Sales that queued a low-stock alert")
+                .register(meterRegistry);
+    }
+
+    // inventory.sell{path=single|checkout, outcome=ok|insufficient|not_found}
+    Counter sellOutcome(String path, String outcome) {
+        return Counter.builder("inventory.sell").tag("path", path).tag("outcome", outcome).register(meterRegistry);
+    }
+
+    // events are published inside the transactions, listeners run after commit
+
+    public Product addProduct(Product product) {
+        if (product.getSupplier() == null || product.getSupplier().getId() == 0) {
+            throw new RuntimeException("Supplier Information is missing");
         }
+        Supplier supplier = catalogCache.findSupplier(product.getSupplier().getId())
+                .orElseThrow(() -> new RuntimeException("Supplier Not Found"));
+        product.setSupplier(supplier);
+
+        return transactionTemplate.execute(status -> {
+            Product saved = productRepository.save(product);
+            stockLedger.recordOpening(saved.getId(), saved.getStock(), saved.getPrice());
+            events.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.ADDED, null, ProductSnapshot.of(saved)));
+            return saved;
+        });
     }
 
+    public Product updateProduct(long id, Product updatedProduct) {
+        return transactionTemplate.execute(status -> {
+            Product existingProduct = productRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Product Not Found"));
+            ProductSnapshot before = ProductSnapshot.of(existingProduct);
+
+            existingProduct.setName(updatedProduct.getName());
+            existingProduct.setStock(updatedProduct.getStock());
+            existingProduct.setMinStock(updatedProduct.getMinStock());
+            existingProduct.setSupplier(updatedProduct.getSupplier());
+
+            Product saved = productRepository.save(existingProduct);
+            if (stockSlots.isSplit(id)) {
+                // the row only has the last flushed sum, the slots hold the stock this edit replaces
+                before = before.withStock(stockSlots.reset(id, saved.getStock()));
+            }
+            stockLedger.recordAdjustment(id, saved.getStock() - before.stock(), saved.getStock(), saved.getPrice());
+            events.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, before, ProductSnapshot.of(saved)));
+            return saved;
+        });
+    }
+
+    public StockLevel updateStock(long id, int soldQuantity) {
+        if (soldQuantity <= 0) {
+            throw new RuntimeException("Sold quantity must be positive");
+        }
+
+        // units other counters hold are off limits, the claim fails fast without touching the database
+        StockReservations.Claim claim;
+        try {
+            claim = reservations.claim(null, Map.of(id, soldQuantity));
+        } catch (RuntimeException e) {
+            soldInsufficient.increment();
+            throw e;
+        }
+
+        // the conditional UPDATE returns the new level itself, so the row lock is held for that one
+        // statement plus the ledger insert and the mail below runs after commit; a split product is
+        // sold from one of its stock slots instead of the row
+        StockLevel level;
+        try {
+            level = transactionTemplate.execute(status -> {
+                Optional<StockLevel> sold = stockSlots.isSplit(id)
+                        ? takeFromSlots(id, soldQuantity)
+                        : productRepository.decrementStock(id, soldQuantity, LocalDateTime.now());
+                if (sold.isEmpty()) {
+                    if (!productRepository.existsById(id)) {
+                        soldNotFound.increment();
+                        throw new RuntimeException("Product Not Found");
+                    }
+                    // split since we last looked
+                    if (!stockSlots.isSplit(id) && stockSlots.refresh(id)) {
+                        sold = takeFromSlots(id, soldQuantity);
+                    }
+                }
+                StockLevel newLevel = sold.orElseThrow(() -> {
+                    soldInsufficient.increment();
+                    return new RuntimeException("Insufficient stock for product " + id);
+                });
+                stockLedger.recordSale(newLevel, soldQuantity, null);
+                publishStockChange(ProductChangedEvent.Type.SOLD, newLevel, -soldQuantity);
+                return newLevel;
+            });
+        } catch (RuntimeException e) {
+            claim.rollback();
+            throw e;
+        }
+        claim.commit();
+
+        soldOk.increment();
+        log.debug("sell productId={} quantity={} stock={}", id, soldQuantity, level.getStock());
+        notifyIfLow(level);
+        return level;
+    }
+
+    private Optional<StockLevel> takeFromSlots(long id, int quantity) {
+        if (!stockSlots.take(id, quantity)) {
+            return Optional.empty();
+        }
+        return productRepository.findStockLevelById(id).map(stockSlots::derive);
+    }
+
+    public StockLevel restock(long id, int quantity) {
+        if (quantity <= 0) {
+            throw new RuntimeException("Restock quantity must be positive");
+        }
+        return transactionTemplate.execute(status -> {
+            boolean split = stockSlots.isSplit(id);
+            if (!split && productRepository.incrementStock(id, quantity, LocalDateTime.now()) == 0) {
+                // either unknown or split since we last looked
+                if (!stockSlots.refresh(id)) {
+                    throw new RuntimeException("Product Not Found");
+                }
+                split = true;
+            }
+            if (split) {
+                stockSlots.add(id, quantity);
+            }
+            StockLevel newLevel = productRepository.findStockLevelById(id)
+                    .orElseThrow(() -> new RuntimeException("Product Not Found"));
+            stockLedger.recordRestock(newLevel, quantity);
+            publishStockChange(ProductChangedEvent.Type.RESTOCKED, newLevel, quantity);
+            return newLevel;
+        });
+    }
+
+    /**
+     * Books a supplier delivery in one transaction: all row-level lines in a single set-based UPDATE,
+     * products split over stock slots through {@link StockSlots}, then one read of the new levels
+     * and the ledger batch. A line for an unknown product or another supplier's product rolls the
+     * whole delivery back. Pending low-stock alerts for the delivered products are dropped.
+     */
+    public List<StockLevel> receiveDelivery(long supplierId, ReceiptRequest request) {
+        SortedMap<Long, Integer> quantities = mergeLines(request);
+        catalogCache.findSupplier(supplierId).orElseThrow(() -> new RuntimeException("Supplier Not Found"));
+
+        List<StockLevel> levels = transactionTemplate.execute(status -> {
+            SortedMap<Long, Integer> rowLines = new TreeMap<>(quantities);
+            rowLines.keySet().removeIf(stockSlots::isSplit);
+            // the supplier is checked on the new levels below, a filter on it here would only give the
+            // planner an index to drive the join from instead of the ids
+            int updated = rowLines.isEmpty() ? 0 : productRepository.incrementStockBatch(rowLines, LocalDateTime.now());
+            if (updated < rowLines.size()) {
+                // unknown (rejected below) or split since we last looked
+                rowLines.keySet().removeIf(stockSlots::refresh);
+            }
+            for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+                if (!rowLines.containsKey(line.getKey())) {
+                    stockSlots.add(line.getKey(), line.getValue());
+                }
+            }
+
+            List<StockLevel> newLevels = productRepository.findStockLevels(quantities.keySet()).stream()
+                    .map(stockSlots::derive)
+                    .toList();
+            Set<Long> rejected = new TreeSet<>(quantities.keySet());
+            for (StockLevel level : newLevels) {
+                if (Objects.equals(level.getSupplierId(), supplierId)) {
+                    rejected.remove(level.getId());
+                }
+            }
+            if (!rejected.isEmpty()) {
+                throw new RuntimeException("Products Not Found for supplier " + supplierId + ": " + rejected);
+            }
+            for (StockLevel level : newLevels) {
+                int quantity = quantities.get(level.getId());
+                stockLedger.recordRestock(level, quantity);
+                publishStockChange(ProductChangedEvent.Type.RESTOCKED, level, quantity);
+            }
+            return newLevels;
+        });
+
+        lowStockNotifier.clear(quantities.keySet());
+        log.info("delivery {} from supplier {}: {} products, {} units", request.getReference(), supplierId,
+                quantities.size(), quantities.values().stream().mapToLong(Integer::longValue).sum());
+        return levels;
+    }
+
+    // repeated products are summed, sorted by id like checkout baskets
+    private static SortedMap<Long, Integer> mergeLines(ReceiptRequest request) {
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            throw new RuntimeException("Delivery has no items");
+        }
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        for (ReceiptRequest.Item item : request.getItems()) {
+            if (item.getQuantity() <= 0) {
+                throw new RuntimeException("Quantity must be positive for product " + item.getProductId());
+            }
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    public void deleteProduct(long id) {
+        transactionTemplate.executeWithoutResult(status -> {
+            StockLevel level = productRepository.findStockLevelById(id)
+                    .orElseThrow(() -> new RuntimeException("Product Not Found"));
+            productRepository.deleteById(id);
+            stockSlots.forget(id);
+            ProductTombstone tombstone = new ProductTombstone();
+            tombstone.setProductId(id);
+            tombstone.setDeletedAt(LocalDateTime.now());
+            tombstoneRepository.save(tombstone);
+            events.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, ProductSnapshot.of(level), null));
+        });
+    }
+
+    // set-based, deleteAll() would load every product and delete them one by one
+    public void deleteAll() {
+        transactionTemplate.executeWithoutResult(status -> {
+            productRepository.deleteThrough(null, Long.MAX_VALUE);
+            stockSlots.forgetAll();
+            events.publishEvent(ProductChangedEvent.bulk());
+        });
+    }
+
+    // delta is the signed stock change that produced newLevel
+    void publishStockChange(ProductChangedEvent.Type type, StockLevel newLevel, int delta) {
+        ProductSnapshot after = ProductSnapshot.of(newLevel);
+        events.publishEvent(new ProductChangedEvent(type, after.withStock(after.stock() - delta), after));
+    }
+
+    // call only after the stock change has committed, the mail itself goes out from LowStockNotifier's worker
+    public void notifyIfLow(StockLevel level) {
+        if (lowStockNotifier.publish(level)) {
+            lowStockTriggered.increment();
+            log.debug("low-stock alert queued productId={} stock={} minStock={}", level.getId(), level.getStock(),
+                    level.getMinStock());
+        }
+    }
+
+    // the catalog listings and searches below run in read-only transactions, which go to a read replica when
+    // inventory.replicas.urls is set (see ReplicaRoutingDataSource) and may lag writes by up to its max-lag-ms
+
+    // filtered + sorted listing behind /view, sortField must be one of ProductSort
+    @Transactional(readOnly = true)
+    public List<Product> viewProducts(String search, String stockLevel, String sortField, String sortDirection) {
+        Sort sort = Sort.by(Sort.Direction.fromOptionalString(sortDirection).orElse(Sort.Direction.ASC),
+                ProductSort.from(sortField).property());
+        return productRepository.findAll(filter(search, stockLevel), sort);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<Product> viewProductPage(String search, String stockLevel, String sortField, String sortDirection,
+                                               String cursor, int size) {
+        return productRepository.findPage(filter(search, stockLevel), ProductSort.from(sortField),
+                Sort.Direction.fromOptionalString(sortDirection).orElse(Sort.Direction.ASC), cursor, pageSize(size));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<ProductSummary> viewProductSummaryPage(String search, String stockLevel, String sortField,
+                                                             String sortDirection, String cursor, int size) {
+        return productRepository.findSummaryPage(filter(search, stockLevel), ProductSort.from(sortField),
+                Sort.Direction.fromOptionalString(sortDirection).orElse(Sort.Direction.ASC), cursor, pageSize(size));
+    }
+
+    // billing counter typeahead: ranked ids from the in-memory index, then one primary-key lookup for live stock
+    public List<ProductSummary> typeahead(String query, int limit) {
+        int max = Math.max(1, Math.min(limit, MAX_TYPEAHEAD));
+        if (!searchIndex.isReady()) {
+            return productRepository.findByNameContainingIgnoreCase(query == null ? "" : query.trim()).stream()
+                    .limit(max)
+                    .map(p -> new ProductSummary(p.getId(), p.getName(), p.getStock(), p.getMinStock(), p.getPrice(),
+                            p.getSupplier() == null ? null : p.getSupplier().getName()))
+                    .toList();
+        }
+        List<ProductSearchIndex.Hit> hits = searchIndex.search(query, max);
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ProductSummary> rows = new HashMap<>();
+        for (ProductSummary row : productRepository.findSummariesByIdIn(hits.stream().map(ProductSearchIndex.Hit::id).toList())) {
+            rows.put(row.id(), row);
+        }
+        // keep the index ranking, skipping anything deleted since it was indexed
+        return hits.stream().map(h -> rows.get(h.id())).filter(Objects::nonNull).toList();
+    }
+
+    // name search behind /search, served from the index once it is loaded
+    @Transactional(readOnly = true)
+    public List<Product> searchByName(String name) {
+        String q = name == null ? "" : name.trim();
+        if (!searchIndex.isReady() || q.length() < 3) {
+            return productRepository.findByNameContainingIgnoreCase(name);
+        }
+        List<Long> ids = searchIndex.search(q, MAX_INDEXED_SEARCH + 1).stream().map(ProductSearchIndex.Hit::id).toList();
+        if (ids.size() > MAX_INDEXED_SEARCH) {
+            // too broad for an IN list, the scan costs the same either way
+            return productRepository.findByNameContainingIgnoreCase(name);
+        }
+        return ids.isEmpty() ? List.of() : productRepository.findAll(ProductSpecification.idIn(ids), Sort.by("id"));
+    }
+
+    private static Specification<Product> filter(String search, String stockLevel) {
+        // Start with an empty specification (finds all)
+        Specification<Product> spec = Specification.where(null);
+        if (search != null && !search.isEmpty()) {
+            spec = spec.and(ProductSpecification.hasName(search));
+        }
+        if (stockLevel != null && !stockLevel.equals("all")) {
+            spec = spec.and(ProductSpecification.hasStockLevel(stockLevel));
+        }
+        return spec;
+    }
+
+    private static int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    // whole catalog in one column's order behind /sorted
+    @Transactional(readOnly = true)
+    public List<Product> sortedProducts(String sortBy) {
+        return productRepository.findAll(Sort.by(ProductSort.from(sortBy).property()));
+    }
+
+    @Transactional(readOnly = true)
     public List<Product> getLowStock() {
-        return productRepository.findAll()
-                .stream()
-                .filter(p -> p.getStock() < p.getMinStock())
-                .collect(Collectors.toList());
+        return productRepository.findAll(ProductSpecification.hasStockLevel("low"), Sort.by("id"));
     }
 
+    @Transactional(readOnly = true)
     public List<Product> getHealthyStock() {
-        return productRepository.findAll()
-                .stream()
-                .filter(product -> product.getStock()>=product.getMinStock())
-                .collect(Collectors.toList());
+        return productRepository.findAll(ProductSpecification.hasStockLevel("healthy"), Sort.by("id"));
+    }
+
+    // keyset page over low/healthy products ordered by id, cursor is the last id of the previous page
+    @Transactional(readOnly = true)
+    public CursorPage<Product> getStockLevelPage(String stockLevel, String cursor, int size) {
+        int limit = pageSize(size);
+        Long afterId = cursor == null || cursor.isEmpty() ? null : parseIdCursor(cursor);
+
+        Specification<Product> spec = ProductSpecification.hasStockLevel(stockLevel)
+                .and(ProductSpecification.idGreaterThan(afterId));
+        // one row more than asked tells us whether there is a next page without a count query
+        List<Product> rows = productRepository.findBy(spec, query -> query
+                .sortBy(Sort.by("id"))
+                .project("supplier")
+                .limit(limit + 1)
+                .all());
+
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<Product> page = rows.subList(0, limit);
+        return new CursorPage<>(page, String.valueOf(page.get(limit - 1).getId()));
+    }
+
+    private static long parseIdCursor(String cursor) {
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
     }
 
 
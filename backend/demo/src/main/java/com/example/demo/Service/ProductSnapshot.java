@@ -0,0 +1,30 @@
+package com.example.demo.Service;
+
+import com.example.demo.Models.Product;
+import com.example.demo.repository.StockLevel;
+
+/**
+ * The fields of a product that listeners of {@link ProductChangedEvent} care about, copied so
+ * events stay valid after the entity is modified or deleted.
+ */
+public record ProductSnapshot(long id, String name, Long supplierId, int stock, int minStock, double price) {
+
+    public static ProductSnapshot of(Product product) {
+        Long supplierId = product.getSupplier() == null ? null : product.getSupplier().getId();
+        return new ProductSnapshot(product.getId(), product.getName(), supplierId,
+                product.getStock(), product.getMinStock(), product.getPrice());
+    }
+
+    public static ProductSnapshot of(StockLevel level) {
+        return new ProductSnapshot(level.getId(), level.getName(), level.getSupplierId(),
+                level.getStock(), level.getMinStock(), level.getPrice());
+    }
+
+    public ProductSnapshot withStock(int newStock) {
+        return new ProductSnapshot(id, name, supplierId, newStock, minStock, price);
+    }
+
+    public boolean isLow() {
+        return stock < minStock;
+    }
+}
@@ -4,6 +4,8 @@ import com.example.demo.Models.Product;
 import org.springframework.data.jpa.domain.Specification;
 import jakarta.persistence.criteria.Predicate;
 
+import java.util.Collection;
+
 public class ProductSpecification {
 
     /**
@@ -20,14 +22,30 @@ public class ProductSpecification {
     public static Specification<Product> hasStockLevel(String stockLevel) {
         return (root, query, cb) -> {
             if ("low".equals(stockLevel)) {
-                // "low" means stock <= minStock
-                return cb.lessThanOrEqualTo(root.get("stock"), root.get("minStock"));
+                // "low" means stock < minStock, same rule as the low-stock alert
+                // (matches the partial index idx_product_low_stock in schema-postgresql.sql)
+                return cb.lessThan(root.get("stock"), root.get("minStock"));
             } else if ("healthy".equals(stockLevel)) {
-                // "healthy" means stock > minStock
-                return cb.greaterThan(root.get("stock"), root.get("minStock"));
+                // "healthy" means stock >= minStock
+                return cb.greaterThanOrEqualTo(root.get("stock"), root.get("minStock"));
             } else {
                 return null; // No filter for "all"
             }
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates a specification for keyset paging on id (rows after the given id).
+     */
+    public static Specification<Product> idGreaterThan(Long afterId) {
+        return (root, query, cb) ->
+                afterId == null ? null : cb.greaterThan(root.get("id"), afterId);
+    }
+
+    /**
+     * Creates a specification for products with one of the given ids.
+     */
+    public static Specification<Product> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+}
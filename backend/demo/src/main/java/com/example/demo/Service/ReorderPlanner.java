@@ -0,0 +1,280 @@
+package com.example.demo.Service;
+
+import com.example.demo.dto.ReorderPlan;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.StockMovementRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sets every product's minStock to a reorder point computed from its sales instead of a hand-typed
+ * guess. After the nightly ledger compaction the finished days' units sold are folded into a
+ * {@link DemandModel} (EWMA of daily demand and its variance), and each product's reorder point
+ * becomes its expected demand over the supplier's lead time plus safety stock for
+ * {@code inventory.reorder.service-level-z} standard deviations. The model stays in memory between
+ * runs, so a nightly run reads one day of snapshots; after a restart it is rebuilt from the last
+ * {@code inventory.reorder.warmup-days}, which with the default smoothing carry all but a fraction
+ * of a percent of the weight.
+ * <p>
+ * Products with less than {@code inventory.reorder.min-history-days} of sales history keep their
+ * minStock. Changed minimums are written in set-based batches, each only where the minimum is
+ * still what the run read, so an edit made meanwhile is kept.
+ */
+@Service
+public class ReorderPlanner implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(ReorderPlanner.class);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Value("${inventory.reorder.alpha:0.1}")
+    private double alpha;
+
+    @Value("${inventory.reorder.service-level-z:1.65}")
+    private double serviceLevelZ;
+
+    @Value("${inventory.reorder.default-lead-time-days:7}")
+    private int defaultLeadTimeDays;
+
+    @Value("${inventory.reorder.cover-days:14}")
+    private int coverDays;
+
+    @Value("${inventory.reorder.min-history-days:14}")
+    private int minHistoryDays;
+
+    @Value("${inventory.reorder.warmup-days:90}")
+    private int warmupDays;
+
+    @Value("${inventory.reorder.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${inventory.reorder.fetch-size:10000}")
+    private int fetchSize;
+
+    @Value("${inventory.reorder.update-min-stock:true}")
+    private boolean updateMinStock;
+
+    private final ReentrantLock running = new ReentrantLock();
+    // guarded by running
+    private DemandModel model;
+    // what lookups read, replaced whole at the end of a run
+    private volatile Plans plans;
+
+    private final AtomicLong minStockUpdates = new AtomicLong();
+    private volatile double lastRunSeconds;
+
+    @Scheduled(cron = "${inventory.reorder.cron:0 45 0 * * *}")
+    public void recompute() {
+        movementRepository.lastCompactedDay().ifPresent(this::recomputeThrough);
+    }
+
+    /**
+     * Folds the compacted days after the model's last one through {@code lastDay} into the model,
+     * re-plans every product and writes the changed minimums. Returns straight away with 0 when a
+     * run is already going.
+     *
+     * @return the number of products whose minStock changed
+     */
+    public int recomputeThrough(LocalDate lastDay) {
+        if (!running.tryLock()) {
+            log.info("reorder points are already being recomputed");
+            return 0;
+        }
+        try {
+            long started = System.nanoTime();
+            Catalog catalog = loadCatalog();
+            DemandModel next = model == null ? new DemandModel(catalog.ids) : model.remap(catalog.ids);
+            int days = foldSales(next, catalog, lastDay);
+
+            int[] reorderPoints = new int[catalog.size];
+            int[] orderQuantities = new int[catalog.size];
+            next.plan(catalog.leadTimes, serviceLevelZ, coverDays, minHistoryDays, reorderPoints, orderQuantities);
+            model = next;
+            plans = new Plans(next, catalog.leadTimes, reorderPoints, orderQuantities);
+
+            int changed = updateMinStock ? writeMinStock(catalog, reorderPoints) : 0;
+            lastRunSeconds = (System.nanoTime() - started) / 1e9;
+            log.info("reorder points for {} products through {}: {} day(s) folded in, {} minStock change(s), {}s",
+                    catalog.size, next.throughDay(), days, changed, String.format("%.1f", lastRunSeconds));
+            return changed;
+        } finally {
+            running.unlock();
+        }
+    }
+
+    /** The product's plan from the last run, empty before the first run or for products added since. */
+    public Optional<ReorderPlan> plan(long productId) {
+        Plans current = plans;
+        if (current == null) {
+            return Optional.empty();
+        }
+        DemandModel m = current.model;
+        int i = m.indexOf(productId);
+        if (i < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new ReorderPlan(productId, m.mean[i], Math.sqrt(m.variance[i]), m.days[i],
+                current.leadTimes[i], current.reorderPoints[i], current.orderQuantities[i], m.throughDay()));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("inventory.reorder.min_stock.updates", minStockUpdates, AtomicLong::get)
+                .description("minStock values changed by the reorder planner")
+                .register(registry);
+        Gauge.builder("inventory.reorder.last_run.seconds", this, p -> p.lastRunSeconds)
+                .description("Duration of the last reorder point recompute")
+                .register(registry);
+    }
+
+    private Catalog loadCatalog() {
+        Catalog catalog = new Catalog(Math.max(16, (int) productRepository.count()));
+        transactionTemplate.executeWithoutResult(status ->
+                productRepository.forEachReorderRow(fetchSize, defaultLeadTimeDays, catalog::add));
+        catalog.trim();
+        return catalog;
+    }
+
+    // folds every day after the model's last one, each day once, days without snapshot rows as zero sales
+    private int foldSales(DemandModel model, Catalog catalog, LocalDate lastDay) {
+        LocalDate from = model.throughDay() != null
+                ? model.throughDay().plusDays(1)
+                : lastDay.minusDays(warmupDays - 1L);
+        Optional<LocalDate> firstMovement = movementRepository.firstMovementDay();
+        if (firstMovement.isEmpty()) {
+            return 0;
+        }
+        if (from.isBefore(firstMovement.get())) {
+            from = firstMovement.get();
+        }
+        if (from.isAfter(lastDay)) {
+            return 0;
+        }
+
+        int[] sold = new int[catalog.size];
+        LocalDate[] day = {from};
+        int[] folded = {0};
+        LocalDate start = from;
+        transactionTemplate.executeWithoutResult(status -> productRepository.forEachDailySale(start, lastDay, fetchSize,
+                (saleDay, productId, units) -> {
+                    while (day[0].isBefore(saleDay)) {
+                        model.fold(day[0], sold, catalog.firstDays, alpha);
+                        Arrays.fill(sold, 0);
+                        day[0] = day[0].plusDays(1);
+                        folded[0]++;
+                    }
+                    int i = model.indexOf(productId);
+                    if (i >= 0) {
+                        sold[i] += units;
+                    }
+                }));
+        for (; !day[0].isAfter(lastDay); day[0] = day[0].plusDays(1)) {
+            model.fold(day[0], sold, catalog.firstDays, alpha);
+            Arrays.fill(sold, 0);
+            folded[0]++;
+        }
+        return folded[0];
+    }
+
+    private int writeMinStock(Catalog catalog, int[] reorderPoints) {
+        long[] ids = new long[batchSize];
+        int[] expected = new int[batchSize];
+        int[] minStocks = new int[batchSize];
+        int changed = 0;
+        int pending = 0;
+        for (int i = 0; i < catalog.size; i++) {
+            if (reorderPoints[i] < 0 || reorderPoints[i] == catalog.minStocks[i]) {
+                continue;
+            }
+            ids[pending] = catalog.ids[i];
+            expected[pending] = catalog.minStocks[i];
+            minStocks[pending] = reorderPoints[i];
+            if (++pending == batchSize) {
+                changed += writeBatch(ids, expected, minStocks, pending);
+                pending = 0;
+            }
+        }
+        if (pending > 0) {
+            changed += writeBatch(ids, expected, minStocks, pending);
+        }
+        if (changed > 0) {
+            minStockUpdates.addAndGet(changed);
+            // low/healthy counts, cached products and stream clients depend on minStock; names and stock did not change
+            events.publishEvent(ProductChangedEvent.minStock());
+        }
+        return changed;
+    }
+
+    // each batch commits on its own so a million products never sit under one transaction's locks
+    private int writeBatch(long[] ids, int[] expected, int[] minStocks, int count) {
+        Integer updated = transactionTemplate.execute(status -> productRepository.updateMinStock(
+                Arrays.copyOf(ids, count), Arrays.copyOf(expected, count), Arrays.copyOf(minStocks, count)));
+        return updated == null ? 0 : updated;
+    }
+
+    // the catalog as the run read it, in parallel arrays ordered by id
+    private static final class Catalog {
+        long[] ids;
+        int[] minStocks;
+        int[] leadTimes;
+        long[] firstDays;
+        int size;
+
+        Catalog(int capacity) {
+            ids = new long[capacity];
+            minStocks = new int[capacity];
+            leadTimes = new int[capacity];
+            firstDays = new long[capacity];
+        }
+
+        void add(long id, int minStock, int leadTimeDays, long firstDay) {
+            if (size == ids.length) {
+                resize(size * 2);
+            }
+            ids[size] = id;
+            minStocks[size] = minStock;
+            leadTimes[size] = Math.max(1, leadTimeDays);
+            firstDays[size] = firstDay;
+            size++;
+        }
+
+        void trim() {
+            resize(size);
+        }
+
+        private void resize(int capacity) {
+            ids = Arrays.copyOf(ids, capacity);
+            minStocks = Arrays.copyOf(minStocks, capacity);
+            leadTimes = Arrays.copyOf(leadTimes, capacity);
+            firstDays = Arrays.copyOf(firstDays, capacity);
+        }
+    }
+
+    private record Plans(DemandModel model, int[] leadTimes, int[] reorderPoints, int[] orderQuantities) {
+    }
+}
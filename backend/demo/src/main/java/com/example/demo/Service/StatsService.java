@@ -0,0 +1,180 @@
+package com.example.demo.Service;
+
+import com.example.demo.dto.StatsSnapshot;
+import com.example.demo.dto.StatsSnapshot.ProductStat;
+import com.example.demo.dto.StatsSnapshot.SupplierStat;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.StockLevel;
+import com.example.demo.repository.StockTotals;
+import com.example.demo.repository.SupplierRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Dashboard numbers without shipping the catalog to the browser. Counters (products, units,
+ * value, low stock) are loaded once with a single aggregate query and then kept up to date from
+ * {@link ProductChangedEvent}s; the top-N lists are re-queried only when something changed and
+ * at most every {@code inventory.stats.rankings-refresh-ms}. A full reload every
+ * {@code inventory.stats.reconcile-ms} corrects any drift from events racing a reload.
+ */
+@Service
+public class StatsService {
+    private static final int TOP_N = 5;
+    private static final int RECENT_N = 6;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Value("${inventory.stats.rankings-refresh-ms:5000}")
+    private long rankingsRefreshMs;
+
+    @Value("${inventory.stats.reconcile-ms:300000}")
+    private long reconcileMs;
+
+    // guards the counters, held only for in-memory arithmetic so the sell path never waits on a query
+    private final Object lock = new Object();
+    private boolean countersLoaded;
+    private long countersLoadedAt;
+    private long products;
+    private long units;
+    private double value;
+    private long lowStock;
+
+    private volatile boolean rankingsDirty = true;
+    private volatile long rankingsLoadedAt;
+    private volatile Rankings rankings;
+
+    // only one request reloads from the database at a time; a lock rather than synchronized so a
+    // virtual thread waiting on the queries does not pin its carrier
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    public StatsSnapshot getStats() {
+        long now = System.currentTimeMillis();
+        boolean reload;
+        synchronized (lock) {
+            reload = !countersLoaded || now - countersLoadedAt > reconcileMs;
+        }
+        if (reload) {
+            reloadCounters();
+        }
+        if (rankings == null || (rankingsDirty && now - rankingsLoadedAt > rankingsRefreshMs)) {
+            reloadRankings();
+        }
+
+        Rankings current = rankings;
+        synchronized (lock) {
+            return new StatsSnapshot(products, units, Math.round(value * 100) / 100.0, lowStock, products - lowStock,
+                    current.totalSuppliers, current.topProducts, current.recentProducts, current.topSuppliers,
+                    LocalDateTime.now());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        rankingsDirty = true;
+        synchronized (lock) {
+            if (!countersLoaded) {
+                return;
+            }
+            if (event.type() == ProductChangedEvent.Type.BULK || event.type() == ProductChangedEvent.Type.MIN_STOCK) {
+                countersLoaded = false;
+                return;
+            }
+            remove(event.before());
+            add(event.after());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSupplierChanged(SupplierChangedEvent event) {
+        rankingsDirty = true;
+    }
+
+    private void add(ProductSnapshot product) {
+        if (product == null) {
+            return;
+        }
+        products++;
+        units += product.stock();
+        value += product.stock() * product.price();
+        if (product.isLow()) {
+            lowStock++;
+        }
+    }
+
+    private void remove(ProductSnapshot product) {
+        if (product == null) {
+            return;
+        }
+        products--;
+        units -= product.stock();
+        value -= product.stock() * product.price();
+        if (product.isLow()) {
+            lowStock--;
+        }
+    }
+
+    private void reloadCounters() {
+        refreshLock.lock();
+        try {
+            // requests that queued behind another reload use its result instead of repeating the aggregate
+            synchronized (lock) {
+                if (countersLoaded && System.currentTimeMillis() - countersLoadedAt <= reconcileMs) {
+                    return;
+                }
+            }
+            StockTotals totals = productRepository.getStockTotals();
+            synchronized (lock) {
+                products = totals.getProducts();
+                units = totals.getUnits();
+                value = totals.getStockValue();
+                lowStock = totals.getLowStock();
+                countersLoaded = true;
+                countersLoadedAt = System.currentTimeMillis();
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private void reloadRankings() {
+        refreshLock.lock();
+        try {
+            if (rankings != null && !rankingsDirty) {
+                return;
+            }
+            // cleared before querying so changes made during the queries mark it dirty again
+            rankingsDirty = false;
+            List<ProductStat> top = toStats(productRepository.findTopByStock(PageRequest.of(0, TOP_N)));
+            List<ProductStat> recent = toStats(productRepository.findMostRecent(PageRequest.of(0, RECENT_N)));
+            List<SupplierStat> suppliers = supplierRepository.findTopByProductCount(PageRequest.of(0, TOP_N))
+                    .stream()
+                    .map(s -> new SupplierStat(s.getId(), s.getName(), s.getProducts()))
+                    .toList();
+            rankings = new Rankings(supplierRepository.count(), top, recent, suppliers);
+            rankingsLoadedAt = System.currentTimeMillis();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private static List<ProductStat> toStats(List<StockLevel> levels) {
+        return levels.stream()
+                .map(p -> new ProductStat(p.getId(), p.getName(), p.getStock(), p.getMinStock()))
+                .toList();
+    }
+
+    private record Rankings(long totalSuppliers, List<ProductStat> topProducts,
+                            List<ProductStat> recentProducts, List<SupplierStat> topSuppliers) {
+    }
+}
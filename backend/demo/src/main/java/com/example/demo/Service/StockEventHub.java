@@ -0,0 +1,298 @@
+package com.example.demo.Service;
+
+import com.example.demo.dto.StockDelta;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fan-out of committed product changes to Server-Sent Events subscribers, so open dashboards and
+ * low-stock pages learn about sales without polling the catalog.
+ * <p>
+ * Deltas are built from {@link ProductChangedEvent} snapshots after commit, without touching the
+ * database, and appended to a ring of the last {@code inventory.stream.buffer-size} deltas. Readers
+ * never lock the ring: the sequence number is published after the slot is written, and a copy whose
+ * slots were overwritten meanwhile is detected by the deltas' own sequence numbers. A dispatcher
+ * thread notices new deltas (or a due heartbeat) and hands each subscriber with something to send to
+ * a small pool of platform threads, which writes what it has not seen yet. {@code SseEmitter.send}
+ * blocks on the socket inside a synchronized method, which would pin a virtual thread's carrier for as
+ * long as a slow client takes; on platform threads a stuck client holds one sender until Tomcat's write
+ * timeout drops it. An idle subscriber costs an object and a socket.
+ * <p>
+ * Every event id is a resume token ({@code epoch:seq}). A client reconnecting with Last-Event-ID
+ * gets only the deltas it missed; if they have left the ring, or the server restarted, it gets a
+ * {@code reset} event and should reload once.
+ */
+@Service
+public class StockEventHub implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(StockEventHub.class);
+    private static final int MAX_SEND_BATCH = 256;
+
+    @Value("${inventory.stream.buffer-size:4096}")
+    private int bufferSize;
+
+    @Value("${inventory.stream.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${inventory.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${inventory.stream.heartbeat-ms:20000}")
+    private long heartbeatMs;
+
+    @Value("${inventory.stream.sender-threads:4}")
+    private int senderThreads;
+
+    // tokens from an earlier run of the server must not be mistaken for current sequence numbers
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    // serializes publishers only, subscribers read the ring without it
+    private final ReentrantLock publishLock = new ReentrantLock();
+    private AtomicReferenceArray<StockDelta> ring;
+    // written after the slot it numbers
+    private volatile long seq;
+    private volatile boolean running;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private Thread dispatcher;
+    private ExecutorService sender;
+
+    @PostConstruct
+    void start() {
+        ring = new AtomicReferenceArray<>(bufferSize);
+        running = true;
+        sender = Executors.newFixedThreadPool(senderThreads,
+                Thread.ofPlatform().name("stock-stream-sender-", 0).daemon().factory());
+        dispatcher = Thread.ofPlatform().name("stock-stream-dispatch").daemon().start(this::dispatch);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        LockSupport.unpark(dispatcher);
+        subscribers.forEach(s -> s.emitter.complete());
+        sender.shutdown();
+    }
+
+    public SseEmitter subscribe(String lastEventId) {
+        return subscribe(lastEventId, new SseEmitter(timeoutMs));
+    }
+
+    SseEmitter subscribe(String lastEventId, SseEmitter emitter) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new RuntimeException("Too many stream subscribers");
+        }
+        long from = resumePoint(lastEventId);
+        Subscriber subscriber = new Subscriber(emitter, from);
+        subscribers.add(subscriber);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        if (from < 0 || from < seq) {
+            subscriber.schedule();
+        }
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("inventory.stream.subscribers", this, StockEventHub::subscriberCount).register(registry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        ProductSnapshot before = event.before();
+        ProductSnapshot after = event.after();
+        publishLock.lock();
+        try {
+            long next = seq + 1;
+            StockDelta delta;
+            if (event.type() == ProductChangedEvent.Type.BULK || event.type() == ProductChangedEvent.Type.MIN_STOCK) {
+                delta = new StockDelta(next, event.type().name(), 0, null, 0, 0, false, null);
+            } else {
+                ProductSnapshot current = after != null ? after : before;
+                boolean wasLow = before != null && before.isLow();
+                boolean isLow = after != null && after.isLow();
+                StockDelta.Transition transition = isLow && !wasLow ? StockDelta.Transition.LOW
+                        : wasLow && !isLow ? StockDelta.Transition.RECOVERED : null;
+                delta = new StockDelta(next, event.type().name(), current.id(), current.name(), current.stock(),
+                        current.minStock(), isLow, transition);
+            }
+            ring.set((int) (next % ring.length()), delta);
+            seq = next;
+        } finally {
+            publishLock.unlock();
+        }
+        LockSupport.unpark(dispatcher);
+    }
+
+    // hands subscribers to the senders when there are new deltas, or when they have been quiet for a heartbeat
+    private void dispatch() {
+        long dispatched = seq;
+        long nextHeartbeat = System.currentTimeMillis() + heartbeatMs;
+        while (running) {
+            long current = seq;
+            long now = System.currentTimeMillis();
+            boolean heartbeat = now >= nextHeartbeat;
+            if (current != dispatched || heartbeat) {
+                for (Subscriber subscriber : subscribers) {
+                    if (subscriber.seen < current || now - subscriber.lastSentAt >= heartbeatMs) {
+                        subscriber.schedule();
+                    }
+                }
+                dispatched = current;
+                if (heartbeat) {
+                    // quiet subscribers are checked a few times per interval, so none goes much over it
+                    nextHeartbeat = now + Math.max(1, heartbeatMs / 4);
+                }
+            }
+            if (seq == dispatched) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(Math.max(1, nextHeartbeat - now)));
+            }
+        }
+    }
+
+    // sequence number the subscriber has already seen, -1 when it must be told to reset
+    private long resumePoint(String lastEventId) {
+        long current = seq;
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return current;
+        }
+        int colon = lastEventId.indexOf(':');
+        if (colon < 0 || !lastEventId.substring(0, colon).equals(epoch)) {
+            return -1;
+        }
+        long seen;
+        try {
+            seen = Long.parseLong(lastEventId.substring(colon + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        return seen > current || seen < current - ring.length() ? -1 : seen;
+    }
+
+    // deltas after seen (a batch at most), empty when there are none, null if they left the ring
+    private List<StockDelta> deltasAfter(long seen) {
+        long current = seq;
+        if (current <= seen) {
+            return List.of();
+        }
+        if (seen < current - ring.length()) {
+            return null;
+        }
+        long last = Math.min(current, seen + MAX_SEND_BATCH);
+        List<StockDelta> deltas = new ArrayList<>((int) (last - seen));
+        for (long s = seen + 1; s <= last; s++) {
+            StockDelta delta = ring.get((int) (s % ring.length()));
+            if (delta.seq() != s) {
+                // publishers lapped the ring while this was copied
+                return null;
+            }
+            deltas.add(delta);
+        }
+        return deltas;
+    }
+
+    private String token(long sequence) {
+        return epoch + ":" + sequence;
+    }
+
+    private final class Subscriber {
+        final SseEmitter emitter;
+        // only the one send task running for it at a time writes these
+        volatile long seen;
+        volatile long lastSentAt = System.currentTimeMillis();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        volatile boolean closed;
+
+        Subscriber(SseEmitter emitter, long seen) {
+            this.emitter = emitter;
+            this.seen = seen;
+        }
+
+        void schedule() {
+            if (closed || !scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                sender.execute(this::send);
+            } catch (RejectedExecutionException e) {
+                // shutting down
+                close();
+            }
+        }
+
+        private void send() {
+            try {
+                if (seen < 0) {
+                    reset();
+                }
+                List<StockDelta> deltas = deltasAfter(seen);
+                if (deltas == null) {
+                    // fell out of the ring while writing to a slow client
+                    reset();
+                } else if (!deltas.isEmpty()) {
+                    for (StockDelta delta : deltas) {
+                        emitter.send(SseEmitter.event().name("stock").id(token(delta.seq())).data(delta));
+                    }
+                    seen = deltas.get(deltas.size() - 1).seq();
+                    lastSentAt = System.currentTimeMillis();
+                } else if (System.currentTimeMillis() - lastSentAt >= heartbeatMs) {
+                    // keeps proxies from closing an idle connection and detects dead clients
+                    emitter.send(SseEmitter.event().comment("ping"));
+                    lastSentAt = System.currentTimeMillis();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // client went away
+                emitter.completeWithError(e);
+                close();
+            } finally {
+                scheduled.set(false);
+            }
+            // published after the copy, or more than a batch behind: queue again behind the other subscribers
+            if (!closed && seen < seq) {
+                schedule();
+            }
+        }
+
+        // tells the client to reload and continues from the newest delta
+        private void reset() throws IOException {
+            seen = seq;
+            emitter.send(SseEmitter.event().name("reset").id(token(seen)).data(token(seen)));
+            lastSentAt = System.currentTimeMillis();
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            subscribers.remove(this);
+            log.debug("Stock stream subscriber left, {} remaining", subscribers.size());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.demo.Service;
+
+import com.example.demo.Models.StockMovement;
+import com.example.demo.dto.DailySales;
+import com.example.demo.repository.StockLevel;
+import com.example.demo.repository.StockMovementRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Append-only history of every stock change: sales, restocks, manual adjustments and the opening
+ * stock of new products.
+ * <p>
+ * Callers record movements inside the transaction that changes the stock. They are buffered per
+ * transaction and inserted in one JDBC batch just before commit, so a basket of fifty lines costs
+ * one extra round trip and a rolled back sale leaves no movement behind. Quantities are exact
+ * deltas, so stock at a point in time and each day's closing stock are summed from them. stockAfter
+ * is for reading the history: for a product split over stock slots it is the slot sum read right
+ * after the sale, which can already include other counters' sales.
+ * <p>
+ * A nightly job folds each finished day into per-product {@code daily_stock_snapshot} rows. Daily
+ * reports read snapshots up to the last compacted day and only the movements after it.
+ */
+@Service
+public class StockLedger {
+    private static final Logger log = LoggerFactory.getLogger(StockLedger.class);
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${inventory.ledger.enabled:true}")
+    private boolean enabled;
+
+    public void recordSale(StockLevel after, int quantity, Long invoiceId) {
+        record(StockMovement.Type.SALE, after.getId(), -quantity, after.getStock(), after.getPrice(), invoiceId);
+    }
+
+    public void recordRestock(StockLevel after, int quantity) {
+        record(StockMovement.Type.RESTOCK, after.getId(), quantity, after.getStock(), after.getPrice(), null);
+    }
+
+    public void recordOpening(long productId, int stock, double price) {
+        record(StockMovement.Type.OPENING, productId, stock, stock, price, null);
+    }
+
+    public void recordAdjustment(long productId, int delta, int stockAfter, double price) {
+        if (delta != 0) {
+            record(StockMovement.Type.ADJUSTMENT, productId, delta, stockAfter, price, null);
+        }
+    }
+
+    private void record(StockMovement.Type type, long productId, int quantity, int stockAfter, double price,
+                        Long invoiceId) {
+        if (!enabled) {
+            return;
+        }
+        StockMovement movement = new StockMovement();
+        movement.setProductId(productId);
+        movement.setType(type);
+        movement.setQuantity(quantity);
+        movement.setStockAfter(stockAfter);
+        movement.setUnitPrice(price);
+        movement.setInvoiceId(invoiceId);
+        movement.setCreatedAt(LocalDateTime.now());
+        pending().add(movement);
+    }
+
+    // movements of the current transaction, written by a before-commit callback
+    @SuppressWarnings("unchecked")
+    private List<StockMovement> pending() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Stock movements must be recorded inside the stock change's transaction");
+        }
+        List<StockMovement> pending = (List<StockMovement>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<StockMovement> batch = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, batch);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    movementRepository.appendBatch(batch);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(StockLedger.this);
+                }
+            });
+            pending = batch;
+        }
+        return pending;
+    }
+
+    // stock of a product right after its last movement at or before the given time, summed from the
+    // deltas since stockAfter of a split product's sales is only as exact as its slots were at the time
+    public Optional<Integer> stockAsOf(long productId, LocalDateTime at) {
+        return movementRepository.stockAsOf(productId, at);
+    }
+
+    // catalog-wide units sold / restocked per day, snapshots up to the last compacted day plus the movement tail
+    public List<DailySales> salesByDay(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new RuntimeException("to must not be before from");
+        }
+        Optional<LocalDate> compacted = movementRepository.lastCompactedDay();
+        List<DailySales> days = new ArrayList<>();
+        if (compacted.isPresent() && !compacted.get().isBefore(from)) {
+            LocalDate last = compacted.get().isBefore(to) ? compacted.get() : to;
+            days.addAll(movementRepository.salesFromSnapshots(from, last));
+            from = last.plusDays(1);
+        }
+        if (!from.isAfter(to)) {
+            days.addAll(movementRepository.salesFromMovements(from, to));
+        }
+        return days;
+    }
+
+    @Scheduled(cron = "${inventory.ledger.compact-cron:0 15 0 * * *}")
+    public void compact() {
+        compactThrough(LocalDate.now().minusDays(1));
+    }
+
+    /**
+     * Writes snapshots for every day after the last compacted one up to {@code lastDay}, each day
+     * in its own short transaction so a long catch-up never holds locks for long.
+     *
+     * @return the number of days compacted
+     */
+    public int compactThrough(LocalDate lastDay) {
+        Optional<LocalDate> start = movementRepository.lastCompactedDay().map(day -> day.plusDays(1))
+                .or(movementRepository::firstMovementDay);
+        if (start.isEmpty()) {
+            return 0;
+        }
+        int days = 0;
+        for (LocalDate day = start.get(); !day.isAfter(lastDay); day = day.plusDays(1)) {
+            LocalDate current = day;
+            Integer rows = transactionTemplate.execute(status -> movementRepository.compactDay(current));
+            log.debug("Compacted stock ledger for {} into {} snapshots", current, rows);
+            days++;
+        }
+        if (days > 0) {
+            log.info("Compacted {} day(s) of stock movements through {}", days, lastDay);
+        }
+        return days;
+    }
+}
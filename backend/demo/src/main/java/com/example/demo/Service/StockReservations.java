@@ -0,0 +1,669 @@
+package com.example.demo.Service;
+
+import com.example.demo.dto.StockHold;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.StockLevel;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stock holds for billing counters: adding a line to a cart reserves its quantity, so two counters
+ * cannot both promise the last units, and checkout turns the holds into the sale. Holds that are
+ * neither checked out nor released expire after {@code inventory.reservations.ttl-seconds}.
+ * <p>
+ * {@code available = stock - reserved} is kept in memory per product, in 64 lock stripes keyed by
+ * product id, so a hold, a release or the reservation check of a sale is a map lookup under one
+ * stripe lock rather than a database round trip. A product's stock is read once when it is first
+ * touched and then moved by the committed {@link ProductChangedEvent} deltas; a periodic reconcile
+ * re-reads the products that have holds and forgets idle ones. Sales claim their units here before
+ * the conditional UPDATE and give them back if it fails, so they never take units another cart
+ * holds; the UPDATE stays the authority on whether the stock is really there.
+ */
+@Service
+public class StockReservations implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(StockReservations.class);
+    private static final int STRIPES = 64;
+    private static final int LOAD_BATCH = 1000;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int MAX_CART_ID_LENGTH = 64;
+    private static final long SETTLE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockSlots stockSlots;
+
+    @Value("${inventory.reservations.ttl-seconds:900}")
+    private long ttlSeconds;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    // cart id -> products it may hold, an index for releasing a whole cart; the stripes are the truth
+    private final Map<String, Set<Long>> carts = new ConcurrentHashMap<>();
+    private final DelayQueue<Expiry> expiries = new DelayQueue<>();
+    private Thread sweeper;
+    private volatile boolean running;
+
+    private final AtomicInteger activeHolds = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong checkedOut = new AtomicLong();
+
+    public StockReservations() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        sweeper = Thread.ofVirtual().name("reservation-sweeper").start(this::sweep);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        sweeper.interrupt();
+        sweeper.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Sets the cart's hold on a product to {@code quantity} units (0 releases it) and restarts its
+     * expiry. Fails when fewer units are free than the hold needs, counting what the cart already holds.
+     */
+    public StockHold hold(String cartId, long productId, int quantity) {
+        return hold(cartId, productId, quantity, Duration.ofSeconds(ttlSeconds));
+    }
+
+    StockHold hold(String cartId, long productId, int quantity, Duration ttl) {
+        checkCartId(cartId);
+        if (quantity < 0) {
+            throw new RuntimeException("Quantity must not be negative");
+        }
+        if (quantity == 0) {
+            return release(cartId, productId);
+        }
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            // a shortfall is checked once more against a fresh read before it is refused
+            if (load(List.of(productId), attempt > 0).contains(productId)) {
+                throw new RuntimeException("Product Not Found");
+            }
+            Stripe stripe = stripe(productId);
+            stripe.lock.lock();
+            try {
+                Entry entry = settled(stripe, productId);
+                if (entry == null || !entry.loaded) {
+                    continue;
+                }
+                CartHold own = entry.holds.get(cartId);
+                int owned = own == null ? 0 : own.quantity;
+                int free = entry.stock - entry.reserved + owned;
+                if (quantity > free) {
+                    if (attempt == 0) {
+                        continue;
+                    }
+                    rejected.incrementAndGet();
+                    throw new RuntimeException("Insufficient stock for product " + productId + ", "
+                            + Math.max(0, free) + " available");
+                }
+                if (own == null) {
+                    own = new CartHold();
+                    entry.holds.put(cartId, own);
+                    activeHolds.incrementAndGet();
+                    carts.compute(cartId, (key, productIds) -> {
+                        Set<Long> ids = productIds == null ? ConcurrentHashMap.newKeySet() : productIds;
+                        ids.add(productId);
+                        return ids;
+                    });
+                }
+                entry.reserved += quantity - owned;
+                own.quantity = quantity;
+                own.expiresAt = System.currentTimeMillis() + ttl.toMillis();
+                expiries.add(new Expiry(cartId, productId, own.expiresAt));
+                return new StockHold(cartId, productId, quantity, entry.stock - entry.reserved,
+                        Instant.ofEpochMilli(own.expiresAt));
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        throw new RuntimeException("Stock for product " + productId + " is changing too fast, try again");
+    }
+
+    public StockHold release(String cartId, long productId) {
+        checkCartId(cartId);
+        Stripe stripe = stripe(productId);
+        int available = 0;
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.entries.get(productId);
+            if (entry != null) {
+                dropHold(entry, cartId);
+                available = entry.stock - entry.reserved;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        unindex(cartId, productId);
+        return new StockHold(cartId, productId, 0, available, null);
+    }
+
+    /** Releases every hold of the cart, e.g. when the counter abandons it. */
+    public void release(String cartId) {
+        checkCartId(cartId);
+        Set<Long> productIds = carts.remove(cartId);
+        if (productIds == null) {
+            return;
+        }
+        for (long productId : productIds) {
+            Stripe stripe = stripe(productId);
+            stripe.lock.lock();
+            try {
+                Entry entry = stripe.entries.get(productId);
+                if (entry != null) {
+                    dropHold(entry, cartId);
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    /** Units of each product nobody holds, by product id; unknown products are left out. */
+    public Map<Long, Integer> available(Collection<Long> productIds) {
+        Set<Long> missing = load(productIds, false);
+        Map<Long, Integer> available = new LinkedHashMap<>();
+        for (long productId : productIds) {
+            if (missing.contains(productId)) {
+                continue;
+            }
+            Stripe stripe = stripe(productId);
+            stripe.lock.lock();
+            try {
+                Entry entry = stripe.entries.get(productId);
+                if (entry != null && entry.loaded) {
+                    available.put(productId, Math.max(0, entry.stock - entry.reserved));
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return available;
+    }
+
+    /**
+     * Reserves the units of a sale before its stock UPDATE runs. Units the cart holds are used
+     * first, the rest must be free. Call {@link Claim#commit()} after the sale committed or
+     * {@link Claim#rollback()} when it failed; a claim that cannot be met throws and holds nothing.
+     *
+     * @param cartId the selling cart, or null for a sale without holds
+     */
+    public Claim claim(String cartId, Map<Long, Integer> quantities) {
+        Claim claim = new Claim();
+        if (cartId != null) {
+            checkCartId(cartId);
+        }
+        Set<Long> missing = load(quantities.keySet(), false);
+        try {
+            // in id order, like load(): see there
+            for (Map.Entry<Long, Integer> line : new TreeMap<>(quantities).entrySet()) {
+                // unknown products are left to the UPDATE, which reports them
+                if (!missing.contains(line.getKey())) {
+                    claim(claim, cartId, line.getKey(), line.getValue());
+                }
+            }
+        } catch (RuntimeException e) {
+            claim.rollback();
+            throw e;
+        }
+        return claim;
+    }
+
+    private void claim(Claim claim, String cartId, long productId, int quantity) {
+        for (int attempt = 0; ; attempt++) {
+            Stripe stripe = stripe(productId);
+            stripe.lock.lock();
+            try {
+                Entry entry = settled(stripe, productId);
+                if (entry == null || !entry.loaded) {
+                    if (attempt > 0) {
+                        // no settled stock read (product gone, or moved by a write while it was read),
+                        // the UPDATE alone decides
+                        return;
+                    }
+                } else {
+                    CartHold own = cartId == null ? null : entry.holds.get(cartId);
+                    int owned = own == null ? 0 : own.quantity;
+                    if (quantity <= entry.stock - entry.reserved + owned) {
+                        if (own != null) {
+                            entry.holds.remove(cartId);
+                            activeHolds.decrementAndGet();
+                        }
+                        entry.reserved += quantity - owned;
+                        entry.inFlight++;
+                        claim.parts.add(new ClaimPart(cartId, productId, entry, quantity, own));
+                        return;
+                    }
+                    if (attempt > 0) {
+                        rejected.incrementAndGet();
+                        throw new RuntimeException("Insufficient stock for product " + productId);
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+            // checked once more against a fresh read before it is refused
+            load(List.of(productId), true);
+        }
+    }
+
+    // committed stock changes move the in-memory stock by the same delta, so concurrent commits
+    // apply in any order; the version tells a reload racing with a restock or edit that its read is stale
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.type()) {
+            case SOLD, RESTOCKED, UPDATED -> {
+                long productId = event.productId();
+                Stripe stripe = stripe(productId);
+                stripe.lock.lock();
+                try {
+                    Entry entry = stripe.entries.get(productId);
+                    if (entry != null) {
+                        entry.version++;
+                        entry.stock += event.after().stock() - event.before().stock();
+                    }
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+            case DELETED -> {
+                long productId = event.productId();
+                Stripe stripe = stripe(productId);
+                stripe.lock.lock();
+                try {
+                    Entry entry = stripe.entries.remove(productId);
+                    if (entry != null) {
+                        dropAll(productId, entry);
+                    }
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+            case BULK -> {
+                // holds stay, stock is read again on next use
+                for (Stripe stripe : stripes) {
+                    stripe.lock.lock();
+                    try {
+                        for (Entry entry : stripe.entries.values()) {
+                            entry.version++;
+                            entry.loaded = false;
+                        }
+                    } finally {
+                        stripe.lock.unlock();
+                    }
+                }
+            }
+            default -> {
+                // new products are read when first held, MIN_STOCK leaves stock alone
+            }
+        }
+    }
+
+    /**
+     * Re-reads stock for every product with holds and forgets the idle ones, in case a write
+     * bypassed the events.
+     */
+    @Scheduled(fixedDelayString = "${inventory.reservations.reconcile-ms:60000}",
+            initialDelayString = "${inventory.reservations.reconcile-ms:60000}")
+    public void reconcile() {
+        List<Long> held = new ArrayList<>();
+        int forgotten = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                Iterator<Map.Entry<Long, Entry>> it = stripe.entries.entrySet().iterator();
+                while (it.hasNext()) {
+                    Map.Entry<Long, Entry> e = it.next();
+                    Entry entry = e.getValue();
+                    if (entry.reserved == 0 && entry.holds.isEmpty() && entry.inFlight == 0 && !entry.loading) {
+                        it.remove();
+                        forgotten++;
+                    } else {
+                        held.add(e.getKey());
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        load(held, true);
+        log.debug("reservations reconciled held={} forgotten={} activeHolds={}", held.size(), forgotten,
+                activeHolds.get());
+    }
+
+    // reads committed stock for entries that are new or stale (all given ones when force) and
+    // returns the ids that are not in the table. An entry being read takes no new claims and the
+    // read waits for the claims in flight to finish, so every sale is either in the read or arrives
+    // as an event after it, never both. Entries another thread is reading are skipped.
+    // Entries are marked in ascending id order, the order claims take them in: a read waiting for a claim on
+    // one product holds marks only on lower ids, while that claim only still needs higher ones, so the two
+    // never wait on each other until the settle timeout.
+    private Set<Long> load(Collection<Long> productIds, boolean force) {
+        Map<Long, Long> versions = new HashMap<>();
+        for (long productId : new TreeSet<>(productIds)) {
+            Stripe stripe = stripe(productId);
+            stripe.lock.lock();
+            try {
+                Entry entry = stripe.entries.computeIfAbsent(productId, id -> new Entry());
+                if ((force || !entry.loaded) && !entry.loading) {
+                    entry.loading = true;
+                    long deadline = System.nanoTime() + SETTLE_TIMEOUT_NANOS;
+                    while (entry.inFlight > 0 && awaitUntil(stripe, deadline)) {
+                        // commit() and rollback() signal as claims finish
+                    }
+                    versions.put(productId, entry.version);
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        if (versions.isEmpty()) {
+            return Set.of();
+        }
+
+        Map<Long, Integer> stock = new HashMap<>();
+        try {
+            List<Long> ids = new ArrayList<>(versions.keySet());
+            for (int from = 0; from < ids.size(); from += LOAD_BATCH) {
+                for (StockLevel level : productRepository.findStockLevelsByIdIn(ids.subList(from, Math.min(ids.size(), from + LOAD_BATCH)))) {
+                    stock.put(level.getId(), stockSlots.derive(level).getStock());
+                }
+            }
+        } catch (RuntimeException e) {
+            versions.keySet().forEach(this::loadFailed);
+            throw e;
+        }
+
+        Set<Long> missing = new HashSet<>();
+        for (Map.Entry<Long, Long> read : versions.entrySet()) {
+            long productId = read.getKey();
+            Integer level = stock.get(productId);
+            Stripe stripe = stripe(productId);
+            stripe.lock.lock();
+            try {
+                Entry entry = stripe.entries.get(productId);
+                if (entry == null) {
+                    continue;
+                }
+                entry.loading = false;
+                if (level == null) {
+                    missing.add(productId);
+                    stripe.entries.remove(productId);
+                    dropAll(productId, entry);
+                } else if (entry.version == read.getValue() && entry.inFlight == 0) {
+                    entry.stock = level;
+                    entry.loaded = true;
+                }
+                stripe.settled.signalAll();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return missing;
+    }
+
+    private void loadFailed(long productId) {
+        Stripe stripe = stripe(productId);
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.entries.get(productId);
+            if (entry != null) {
+                entry.loading = false;
+            }
+            stripe.settled.signalAll();
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // the product's entry once no read of it is under way; caller holds the stripe lock
+    private Entry settled(Stripe stripe, long productId) {
+        long deadline = System.nanoTime() + SETTLE_TIMEOUT_NANOS;
+        Entry entry = stripe.entries.get(productId);
+        while (entry != null && entry.loading && awaitUntil(stripe, deadline)) {
+            entry = stripe.entries.get(productId);
+        }
+        return entry;
+    }
+
+    // false once the deadline has passed
+    private static boolean awaitUntil(Stripe stripe, long deadline) {
+        long left = deadline - System.nanoTime();
+        if (left <= 0) {
+            return false;
+        }
+        try {
+            stripe.settled.awaitNanos(left);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for stock of a product to be read", e);
+        }
+    }
+
+    private void sweep() {
+        while (running) {
+            try {
+                expire(expiries.take());
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (RuntimeException e) {
+                log.error("Could not expire reservation", e);
+            }
+        }
+    }
+
+    // the queue keeps an element per extension, only the one matching the hold's current expiry counts
+    private void expire(Expiry expiry) {
+        Stripe stripe = stripe(expiry.productId());
+        boolean dropped = false;
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.entries.get(expiry.productId());
+            CartHold hold = entry == null ? null : entry.holds.get(expiry.cartId());
+            if (hold != null && hold.expiresAt == expiry.expiresAt()) {
+                dropHold(entry, expiry.cartId());
+                dropped = true;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        if (dropped) {
+            expired.incrementAndGet();
+            unindex(expiry.cartId(), expiry.productId());
+            log.debug("reservation expired cartId={} productId={}", expiry.cartId(), expiry.productId());
+        }
+    }
+
+    // caller holds the stripe lock
+    private void dropHold(Entry entry, String cartId) {
+        CartHold hold = entry.holds.remove(cartId);
+        if (hold != null) {
+            entry.reserved -= hold.quantity;
+            activeHolds.decrementAndGet();
+        }
+    }
+
+    // caller holds the stripe lock and has removed the entry
+    private void dropAll(long productId, Entry entry) {
+        for (String cartId : entry.holds.keySet()) {
+            activeHolds.decrementAndGet();
+            unindex(cartId, productId);
+        }
+        entry.holds.clear();
+    }
+
+    private void unindex(String cartId, long productId) {
+        carts.computeIfPresent(cartId, (key, productIds) -> {
+            productIds.remove(productId);
+            return productIds.isEmpty() ? null : productIds;
+        });
+    }
+
+    private Stripe stripe(long productId) {
+        return stripes[Long.hashCode(productId) & (STRIPES - 1)];
+    }
+
+    private static void checkCartId(String cartId) {
+        if (cartId == null || cartId.isBlank() || cartId.length() > MAX_CART_ID_LENGTH) {
+            throw new RuntimeException("Cart id must be 1 to " + MAX_CART_ID_LENGTH + " characters");
+        }
+    }
+
+    public int activeHolds() {
+        return activeHolds.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("inventory.reservations.active", this, StockReservations::activeHolds)
+                .description("Cart holds currently reserving stock")
+                .register(registry);
+        FunctionCounter.builder("inventory.reservations.rejected", rejected, AtomicLong::get)
+                .description("Holds and sales refused because the units are held or sold")
+                .register(registry);
+        FunctionCounter.builder("inventory.reservations.expired", expired, AtomicLong::get)
+                .description("Holds released by their TTL")
+                .register(registry);
+        FunctionCounter.builder("inventory.reservations.checked_out", checkedOut, AtomicLong::get)
+                .description("Holds turned into a sale at checkout")
+                .register(registry);
+    }
+
+    /**
+     * Units a sale has taken out of {@code available} ahead of its stock UPDATE, with the cart
+     * holds they came from.
+     */
+    public final class Claim {
+        private final List<ClaimPart> parts = new ArrayList<>();
+
+        /** The sale committed, its stock event already lowered the stock; the claimed units go. */
+        public void commit() {
+            for (ClaimPart part : parts) {
+                Stripe stripe = stripe(part.productId());
+                stripe.lock.lock();
+                try {
+                    if (stripe.entries.get(part.productId()) == part.entry()) {
+                        part.entry().reserved -= part.quantity();
+                        part.entry().inFlight--;
+                        stripe.settled.signalAll();
+                    }
+                } finally {
+                    stripe.lock.unlock();
+                }
+                if (part.hold() != null) {
+                    checkedOut.incrementAndGet();
+                    unindex(part.cartId(), part.productId());
+                }
+            }
+            parts.clear();
+        }
+
+        /** The sale failed, the claimed units are free again and the cart gets its holds back. */
+        public void rollback() {
+            for (ClaimPart part : parts) {
+                Stripe stripe = stripe(part.productId());
+                stripe.lock.lock();
+                try {
+                    Entry entry = part.entry();
+                    if (stripe.entries.get(part.productId()) != entry) {
+                        continue;
+                    }
+                    entry.reserved -= part.quantity();
+                    entry.inFlight--;
+                    stripe.settled.signalAll();
+                    if (part.hold() != null && !entry.holds.containsKey(part.cartId())) {
+                        entry.holds.put(part.cartId(), part.hold());
+                        entry.reserved += part.hold().quantity;
+                        activeHolds.incrementAndGet();
+                    }
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+            parts.clear();
+        }
+    }
+
+    private record ClaimPart(String cartId, long productId, Entry entry, int quantity, CartHold hold) {
+    }
+
+    private record Expiry(String cartId, long productId, long expiresAt) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiresAt - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expiresAt, ((Expiry) other).expiresAt);
+        }
+    }
+
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        // signalled when a read of an entry ends or a claim on it finishes
+        final Condition settled = lock.newCondition();
+        final Map<Long, Entry> entries = new HashMap<>();
+    }
+
+    /** Reservation state of one product; guarded by its stripe lock. */
+    private static final class Entry {
+        int stock;          // committed stock, meaningful once loaded
+        int reserved;       // cart holds plus units claimed by sales in flight
+        long version;       // bumped by every committed change, a reload only applies to an unchanged entry
+        int inFlight;       // sales claimed and not yet committed or rolled back
+        boolean loaded;
+        boolean loading;    // a read is under way, claims wait for it
+        final Map<String, CartHold> holds = new HashMap<>(4);
+    }
+
+    private static final class CartHold {
+        int quantity;
+        long expiresAt;
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.demo.Service;
+
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.ProductStockSlotRepository;
+import com.example.demo.repository.StockLevel;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Split stock for best sellers. Every sale of a product updates its one row, so during a promotion
+ * all counters selling the same SKU queue on that row lock. A split product keeps its stock in N
+ * {@code product_stock_slot} rows instead: a sale takes the units from one slot picked at random,
+ * so up to N sales of the product run at once.
+ * <p>
+ * The slots are the truth for a split product; its {@code product.stock} is their sum, written back
+ * every {@code inventory.stock-slots.flush-ms} by {@link #flush()} (and straight away by restocks and
+ * edits), so listings and reports lag sales by at most that long. Sale events, ledger movements and
+ * low-stock checks see the summed slots right away. When no single slot has the quantity a sale
+ * asks for the slots are locked and evened out before the sale; the flush also evens out products
+ * with an empty slot. Row-level sells of a product skip it once it has slots (the UPDATEs check
+ * {@code NOT EXISTS} slot rows), so a split never races with them.
+ */
+@Service
+public class StockSlots implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(StockSlots.class);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductStockSlotRepository slotRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${inventory.stock-slots.max-slots:64}")
+    private int maxSlots;
+
+    // productId -> slot count, every split product
+    private final Map<Long, Integer> slotCounts = new ConcurrentHashMap<>();
+    private final AtomicLong rebalances = new AtomicLong();
+
+    @PostConstruct
+    void load() {
+        slotCounts.putAll(slotRepository.findSlotCounts());
+    }
+
+    public boolean isSplit(long productId) {
+        return slotCounts.containsKey(productId);
+    }
+
+    public int splitProducts() {
+        return slotCounts.size();
+    }
+
+    /**
+     * Re-reads whether the product is split, for a row-level write that found the product but did
+     * not update it. Joins the caller's transaction.
+     */
+    boolean refresh(long productId) {
+        int slots = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product_stock_slot WHERE product_id = ?",
+                Integer.class, productId);
+        if (slots > 0) {
+            slotCounts.put(productId, slots);
+        } else {
+            slotCounts.remove(productId);
+        }
+        return slots > 0;
+    }
+
+    /**
+     * Spreads the product's stock over {@code slots} rows, or with {@code slots <= 1} folds it back
+     * into the product row.
+     *
+     * @return the product's stock
+     */
+    public int split(long productId, int slots) {
+        if (slots > maxSlots) {
+            throw new RuntimeException("A product can have at most " + maxSlots + " stock slots");
+        }
+        Integer stock = transactionTemplate.execute(status -> {
+            // the product row lock keeps row-level sells out until the slots are in place
+            Integer rowStock = jdbcTemplate.query("SELECT stock FROM product WHERE id = ? FOR UPDATE",
+                    rs -> rs.next() ? rs.getInt(1) : null, productId);
+            if (rowStock == null) {
+                throw new RuntimeException("Product Not Found");
+            }
+            int[] current = slotRepository.lockSlots(productId);
+            int total = current.length > 0 ? sum(current) : rowStock;
+            if (slots <= 1) {
+                slotRepository.deleteSlots(productId);
+            } else {
+                slotRepository.writeSlots(productId, spread(total, slots));
+            }
+            productRepository.setStock(productId, total, LocalDateTime.now());
+            return total;
+        });
+        if (slots <= 1) {
+            slotCounts.remove(productId);
+        } else {
+            slotCounts.put(productId, slots);
+        }
+        log.info("product {} stock split into {} slots", productId, Math.max(1, slots));
+        return stock == null ? 0 : stock;
+    }
+
+    /**
+     * Takes {@code quantity} units of a split product, inside the caller's transaction. A random slot
+     * is tried first, then the others; if none has enough on its own the slots are evened out.
+     *
+     * @return false when the product does not have that many units left
+     */
+    boolean take(long productId, int quantity) {
+        int slots = slotCounts.getOrDefault(productId, 0);
+        int start = ThreadLocalRandom.current().nextInt(Math.max(1, slots));
+        for (int i = 0; i < slots; i++) {
+            if (slotRepository.takeFromSlot(productId, (start + i) % slots, quantity) == 1) {
+                return true;
+            }
+        }
+        int[] locked = slotRepository.lockSlots(productId);
+        int total = sum(locked);
+        if (total < quantity) {
+            return false;
+        }
+        slotRepository.updateSlots(productId, spread(total - quantity, locked.length));
+        rebalances.incrementAndGet();
+        return true;
+    }
+
+    /** Adds units to a split product, evenly over its slots, and writes the new sum to the product row. */
+    void add(long productId, int quantity) {
+        int[] locked = slotRepository.lockSlots(productId);
+        int total = sum(locked) + quantity;
+        slotRepository.updateSlots(productId, spread(total, locked.length));
+        productRepository.setStock(productId, total, LocalDateTime.now());
+    }
+
+    /**
+     * Sets a split product's stock, for edits that write an absolute level.
+     *
+     * @return the stock it had before
+     */
+    int reset(long productId, int stock) {
+        int[] locked = slotRepository.lockSlots(productId);
+        slotRepository.updateSlots(productId, spread(stock, locked.length));
+        return sum(locked);
+    }
+
+    /** Drops the product's slots, for deletes; joins the caller's transaction. */
+    void forget(long productId) {
+        slotRepository.deleteSlots(productId);
+        slotCounts.remove(productId);
+    }
+
+    void forgetAll() {
+        slotRepository.deleteAllInBatch();
+        slotCounts.clear();
+    }
+
+    /** The level with the summed slots as stock for a split product, unchanged otherwise. */
+    StockLevel derive(StockLevel level) {
+        if (!isSplit(level.getId())) {
+            return level;
+        }
+        return new SlotStockLevel(level, slotRepository.totalStock(level.getId()));
+    }
+
+    /** Writes the slot sums back to the product rows and evens out drained products. */
+    @Scheduled(fixedDelayString = "${inventory.stock-slots.flush-ms:1000}")
+    public void flush() {
+        Map<Long, Integer> counts = slotRepository.findSlotCounts();
+        slotCounts.keySet().retainAll(counts.keySet());
+        slotCounts.putAll(counts);
+        if (counts.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> slotRepository.syncProductStock(LocalDateTime.now()));
+        for (long productId : slotRepository.findDrained()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    int[] locked = slotRepository.lockSlots(productId);
+                    slotRepository.updateSlots(productId, spread(sum(locked), locked.length));
+                });
+                rebalances.incrementAndGet();
+            } catch (DataAccessException e) {
+                // lost a lock race with the product's sales, the next flush tries again
+                log.debug("rebalance of product {} skipped: {}", productId, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("inventory.stock_slots.products", this, StockSlots::splitProducts)
+                .description("Products whose stock is split over slots")
+                .register(registry);
+        FunctionCounter.builder("inventory.stock_slots.rebalances", rebalances, AtomicLong::get)
+                .description("Times the slots of a product were evened out")
+                .register(registry);
+    }
+
+    // total over n slots, the remainder going one unit each to the first slots
+    static int[] spread(int total, int n) {
+        int[] stocks = new int[n];
+        for (int slot = 0; slot < n; slot++) {
+            stocks[slot] = total / n + (slot < total % n ? 1 : 0);
+        }
+        return stocks;
+    }
+
+    private static int sum(int[] stocks) {
+        int total = 0;
+        for (int stock : stocks) {
+            total += stock;
+        }
+        return total;
+    }
+
+    private record SlotStockLevel(@JsonIgnore StockLevel row, int stock) implements StockLevel {
+        @Override
+        public Long getId() {
+            return row.getId();
+        }
+
+        @Override
+        public String getName() {
+            return row.getName();
+        }
+
+        @Override
+        public int getStock() {
+            return stock;
+        }
+
+        @Override
+        public int getMinStock() {
+            return row.getMinStock();
+        }
+
+        @Override
+        public double getPrice() {
+            return row.getPrice();
+        }
+
+        @Override
+        public Long getSupplierId() {
+            return row.getSupplierId();
+        }
+
+        @Override
+        public String getSupplierEmail() {
+            return row.getSupplierEmail();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.demo.Service;
+
+/**
+ * Published when a supplier is created, edited or deleted. A null id means all suppliers.
+ */
+public record SupplierChangedEvent(Long supplierId) {
+}
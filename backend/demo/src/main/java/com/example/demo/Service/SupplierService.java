@@ -1,12 +1,18 @@
 package com.example.demo.Service;
 
 import com.example.demo.Models.Supplier;
+import com.example.demo.dto.DeletionProgress;
 import com.example.demo.repository.ProductRepository;
 import com.example.demo.repository.SupplierRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class SupplierService {
@@ -16,26 +22,100 @@ public class SupplierService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private BulkDeletions bulkDeletions;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // suppliers with more products than this are soft-deleted and emptied in the background
+    @Value("${inventory.delete.inline-limit:10000}")
+    private long inlineLimit;
+
     public Supplier addSupplier(Supplier supplier){
-        return repository.save(supplier); // Should be simple
+        Supplier saved = repository.save(supplier); // Should be simple
+        events.publishEvent(new SupplierChangedEvent(saved.getId()));
+        return saved;
     }
     public List<Supplier> getAllSupplier(){
         return repository.findAll();
     }
 
     public Supplier getSupplierById(Long id){
-        return repository.findById(id)
+        return catalogCache.findSupplier(id)
                 .orElseThrow(() -> new RuntimeException("Supplier Not Found"));
     }
 
-    public void deleteSupplier(Long id){
-        repository.deleteById(id);
+    public Supplier updateSupplier(long id, Supplier updatedSupplier){
+        Supplier existingSupplier = repository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Supplier Not Found"));
+
+        existingSupplier.setName(updatedSupplier.getName());
+        existingSupplier.setEmail(updatedSupplier.getEmail());
+        existingSupplier.setMobile(updatedSupplier.getMobile());
+        existingSupplier.setCompany(updatedSupplier.getCompany());
+        existingSupplier.setLeadTimeDays(updatedSupplier.getLeadTimeDays());
+
+        Supplier saved = repository.save(existingSupplier);
+        productRepository.touchBySupplier(id, LocalDateTime.now());
+        events.publishEvent(new SupplierChangedEvent(saved.getId()));
+        return saved;
+    }
+
+    /**
+     * Deletes the supplier without loading it or its products. With {@code keepProducts} they are
+     * unlinked in one UPDATE; otherwise they go too, in the same transaction when there are at most
+     * {@code inventory.delete.inline-limit} of them, else the supplier is soft-deleted and
+     * {@link BulkDeletions} removes its products in chunks.
+     *
+     * @return the background job, empty when the delete is already done
+     */
+    public Optional<DeletionProgress> deleteSupplier(long id, boolean keepProducts){
+        Long products = transactionTemplate.execute(status -> {
+            if (keepProducts) {
+                productRepository.unlinkProductsFromSupplier(id, LocalDateTime.now());
+                purge(id);
+                return 0L;
+            }
+            long count = productRepository.countBySupplier(id);
+            if (count > inlineLimit) {
+                if (repository.markDeleted(id, LocalDateTime.now()) == 0) {
+                    throw new RuntimeException("Supplier Not Found");
+                }
+                return count;
+            }
+            productRepository.deleteThrough(id, Long.MAX_VALUE);
+            purge(id);
+            return 0L;
+        });
+        events.publishEvent(new SupplierChangedEvent(id));
+        if (products > 0) {
+            return Optional.of(bulkDeletions.deleteSupplier(id, products));
+        }
+        events.publishEvent(ProductChangedEvent.bulk());
+        return Optional.empty();
     }
 
     public String deleteAll() {
-        productRepository.updateAllProductsSetSupplierNull();
-        repository.deleteAll();
+        transactionTemplate.executeWithoutResult(status -> {
+            productRepository.updateAllProductsSetSupplierNull(LocalDateTime.now());
+            repository.purgeAll();
+        });
+        events.publishEvent(new SupplierChangedEvent(null));
+        events.publishEvent(ProductChangedEvent.bulk());
         return "All Suppliers Deleted Successfully";
     }
-}
 
+    // a soft-deleted supplier is already being deleted, so it counts as not found here too
+    private void purge(long id) {
+        if (!repository.existsById(id) || repository.purge(id) == 0) {
+            throw new RuntimeException("Supplier Not Found");
+        }
+    }
+}
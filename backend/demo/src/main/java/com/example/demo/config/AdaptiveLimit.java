@@ -0,0 +1,92 @@
+package com.example.demo.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A concurrency limit that follows measured latency, AIMD style: a request slower than
+ * {@code tolerance} times the long-run average latency means the work behind the limit is queueing,
+ * and the limit is cut by {@code backoff} (at most once per average latency, so one burst of slow
+ * requests counts once). Requests within it grow the limit by about one per limit's worth of
+ * completions, but only while the limit is actually being used. The average moves slowly, over
+ * about {@link #WINDOW} requests, so a lasting change in latency becomes the new normal.
+ */
+public class AdaptiveLimit {
+    static final int WINDOW = 500;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double backoff;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // written under this, read without it on the admission path
+    private volatile double limit;
+    // guarded by this
+    private double averageNanos;
+    private long lastDecrease;
+
+    public AdaptiveLimit(int minLimit, int initialLimit, int maxLimit, double tolerance, double backoff) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, initialLimit));
+        this.tolerance = tolerance;
+        this.backoff = backoff;
+    }
+
+    /**
+     * Takes a slot unless all are in use, without waiting.
+     *
+     * @return the requests in flight with this one, 0 when it was not admitted
+     */
+    public int tryAcquire() {
+        int max = (int) limit;
+        while (true) {
+            int current = inFlight.get();
+            if (current >= max) {
+                return 0;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * Gives the slot back and adjusts the limit to how long the request took.
+     *
+     * @param inFlightAtStart what {@link #tryAcquire()} returned for it
+     * @return whether it was slow, i.e. the limit backed off for it
+     */
+    public boolean release(long nanos, int inFlightAtStart) {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            averageNanos = averageNanos == 0 ? nanos : averageNanos + (nanos - averageNanos) / WINDOW;
+            if (nanos > tolerance * averageNanos) {
+                congested();
+                return true;
+            }
+            if (inFlightAtStart * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            return false;
+        }
+    }
+
+    /** Latency here, or in a lane this one must not slow down, is too high: back off. */
+    public synchronized void congested() {
+        long now = System.nanoTime();
+        if (lastDecrease != 0 && now - lastDecrease < averageNanos) {
+            return;
+        }
+        lastDecrease = now;
+        limit = Math.max(minLimit, limit * backoff);
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.List;
+import java.util.Map;
+
+// per-lane adaptive concurrency limits in front of the controllers, see AdmissionControl
+@Configuration
+@ConditionalOnProperty(value = "inventory.admission.enabled", matchIfMissing = true)
+public class AdmissionConfig {
+    private static final String PRIORITY_PATHS = "/api/products/*/sell/*,/api/products/restock/*/*,/api/invoices,"
+            + "/api/reservations/**,/supplier/*/receipts";
+    private static final String BULK_PATHS = "/api/products/view,/api/products/search,/api/products/sorted,"
+            + "/api/products/low-stock,/api/products/healthy-stock,/api/products/changes,/api/reports/**";
+    private static final String STREAM_PATHS = "/api/products/export,/api/products/import";
+
+    @Bean
+    public AdmissionControl admissionControl(
+            @Value("${inventory.admission.priority-limits:20,100,200}") List<Integer> priority,
+            @Value("${inventory.admission.bulk-limits:1,4,16}") List<Integer> bulk,
+            @Value("${inventory.admission.default-limits:4,50,100}") List<Integer> defaults,
+            @Value("${inventory.admission.stream-limit:2}") int streams,
+            @Value("${inventory.admission.latency-tolerance:2.0}") double tolerance,
+            @Value("${inventory.admission.backoff:0.9}") double backoff,
+            @Value("${inventory.admission.priority-paths:" + PRIORITY_PATHS + "}") List<String> priorityPaths,
+            @Value("${inventory.admission.bulk-paths:" + BULK_PATHS + "}") List<String> bulkPaths,
+            @Value("${inventory.admission.stream-paths:" + STREAM_PATHS + "}") List<String> streamPaths,
+            @Value("${inventory.admission.excluded-paths:/api/products/stream}") List<String> excludedPaths) {
+        return new AdmissionControl(Map.of(
+                AdmissionControl.Lane.PRIORITY, limit(priority, tolerance, backoff),
+                AdmissionControl.Lane.BULK, limit(bulk, tolerance, backoff),
+                // fixed: min = initial = max
+                AdmissionControl.Lane.STREAM, limit(List.of(streams, streams, streams), tolerance, backoff),
+                AdmissionControl.Lane.DEFAULT, limit(defaults, tolerance, backoff)),
+                priorityPaths, bulkPaths, streamPaths, excludedPaths);
+    }
+
+    // min,initial,max
+    private static AdaptiveLimit limit(List<Integer> limits, double tolerance, double backoff) {
+        if (limits.size() != 3) {
+            throw new IllegalArgumentException("admission limits are min,initial,max, not " + limits);
+        }
+        return new AdaptiveLimit(limits.get(0), limits.get(1), limits.get(2), tolerance, backoff);
+    }
+
+    @Bean
+    public FilterRegistrationBean<AdmissionFilter> admissionFilter(
+            AdmissionControl admissionControl,
+            @Value("${inventory.admission.retry-after-seconds:1}") int retryAfterSeconds) {
+        FilterRegistrationBean<AdmissionFilter> registration =
+                new FilterRegistrationBean<>(new AdmissionFilter(admissionControl, retryAfterSeconds));
+        registration.addUrlPatterns("/api/*", "/supplier/*", "/email/*");
+        // ahead of the other filters, a rejected request should cost next to nothing
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 100);
+        return registration;
+    }
+}
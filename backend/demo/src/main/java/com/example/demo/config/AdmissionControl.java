@@ -0,0 +1,114 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The lanes requests are admitted through, each with its own {@link AdaptiveLimit}: sales, restocks
+ * and checkouts in the priority lane, full-catalog reads (listings, search, reports) in the bulk lane,
+ * CSV import and export in the stream lane, the rest in the default lane. A slow priority request also
+ * backs the bulk lane off, so when checkouts start queueing for threads or connections the big reads
+ * give way first. Streams hold their slot for minutes, so they get a fixed limit of their own instead
+ * of skewing the latency average the bulk lane adapts to.
+ */
+public class AdmissionControl implements MeterBinder {
+
+    public enum Lane {
+        PRIORITY, BULK, STREAM, DEFAULT;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final List<String> priorityPaths;
+    private final List<String> bulkPaths;
+    private final List<String> streamPaths;
+    private final List<String> excludedPaths;
+    private final Map<Lane, AdaptiveLimit> limits;
+    // filled in by bindTo
+    private final Map<Lane, Counter> rejected = new ConcurrentHashMap<>();
+
+    public AdmissionControl(Map<Lane, AdaptiveLimit> limits, List<String> priorityPaths, List<String> bulkPaths,
+                            List<String> streamPaths, List<String> excludedPaths) {
+        this.limits = new EnumMap<>(limits);
+        this.priorityPaths = priorityPaths;
+        this.bulkPaths = bulkPaths;
+        this.streamPaths = streamPaths;
+        this.excludedPaths = excludedPaths;
+    }
+
+    /** The lane for a request path, null for requests that are not limited (long-lived streams). */
+    public Lane classify(String path) {
+        if (matches(excludedPaths, path)) {
+            return null;
+        }
+        if (matches(priorityPaths, path)) {
+            return Lane.PRIORITY;
+        }
+        if (matches(streamPaths, path)) {
+            return Lane.STREAM;
+        }
+        return matches(bulkPaths, path) ? Lane.BULK : Lane.DEFAULT;
+    }
+
+    private boolean matches(List<String> patterns, String path) {
+        for (String pattern : patterns) {
+            if (matcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return the requests in flight in the lane with this one, 0 when it is full */
+    public int tryAcquire(Lane lane) {
+        int inFlight = limits.get(lane).tryAcquire();
+        if (inFlight == 0) {
+            Counter counter = rejected.get(lane);
+            if (counter != null) {
+                counter.increment();
+            }
+        }
+        return inFlight;
+    }
+
+    public void release(Lane lane, long nanos, int inFlightAtStart) {
+        boolean slow = limits.get(lane).release(nanos, inFlightAtStart);
+        if (slow && lane == Lane.PRIORITY) {
+            limits.get(Lane.BULK).congested();
+        }
+    }
+
+    public AdaptiveLimit limit(Lane lane) {
+        return limits.get(lane);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Lane lane : Lane.values()) {
+            AdaptiveLimit limit = limits.get(lane);
+            Gauge.builder("inventory.admission.limit", limit, AdaptiveLimit::getLimit)
+                    .description("Concurrent requests the lane admits right now")
+                    .tag("lane", lane.tag())
+                    .register(registry);
+            Gauge.builder("inventory.admission.in_flight", limit, AdaptiveLimit::getInFlight)
+                    .description("Requests running in the lane")
+                    .tag("lane", lane.tag())
+                    .register(registry);
+            rejected.put(lane, Counter.builder("inventory.admission.rejected")
+                    .description("Requests turned away with 429 because the lane was full")
+                    .tag("lane", lane.tag())
+                    .register(registry));
+        }
+    }
+}
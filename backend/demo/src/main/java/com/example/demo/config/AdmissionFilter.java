@@ -0,0 +1,91 @@
+package com.example.demo.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Admits each request through its {@link AdmissionControl} lane or answers 429 with Retry-After at
+ * once, before it takes a request thread's worth of work or a database connection. The slot is held
+ * until the response is complete, async ones (the CSV export) included.
+ */
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    private final AdmissionControl admission;
+    private final String retryAfterSeconds;
+
+    public AdmissionFilter(AdmissionControl admission, int retryAfterSeconds) {
+        this.admission = admission;
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        AdmissionControl.Lane lane = request.getMethod().equals("OPTIONS") ? null
+                : admission.classify(request.getRequestURI().substring(request.getContextPath().length()));
+        if (lane == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        int inFlight = admission.tryAcquire(lane);
+        if (inFlight == 0) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            response.setContentType("text/plain");
+            response.getWriter().write("Too many " + lane.tag() + " requests, retry in " + retryAfterSeconds + "s");
+            return;
+        }
+        long start = System.nanoTime();
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                async = true;
+                request.getAsyncContext().addListener(new Release(lane, start, inFlight));
+            }
+        } finally {
+            if (!async) {
+                admission.release(lane, System.nanoTime() - start, inFlight);
+            }
+        }
+    }
+
+    // the async dispatches skip this filter, so the slot goes back when the whole response is done
+    private final class Release implements AsyncListener {
+        private final AdmissionControl.Lane lane;
+        private final long start;
+        private final int inFlight;
+
+        Release(AdmissionControl.Lane lane, long start, int inFlight) {
+            this.lane = lane;
+            this.start = start;
+            this.inFlight = inFlight;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            admission.release(lane, System.nanoTime() - start, inFlight);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
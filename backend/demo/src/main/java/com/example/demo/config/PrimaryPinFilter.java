@@ -0,0 +1,60 @@
+package com.example.demo.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Read-your-writes for clients: a request that may write (anything but GET and HEAD) runs on the
+ * primary and leaves a cookie that keeps the client's reads there for {@code stickySeconds}, longer
+ * than replicas are allowed to lag, so a listing right after a sale shows it.
+ */
+public class PrimaryPinFilter extends OncePerRequestFilter {
+    static final String COOKIE = "inventory-primary";
+
+    private final int stickySeconds;
+
+    public PrimaryPinFilter(int stickySeconds) {
+        this.stickySeconds = stickySeconds;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean write = !request.getMethod().equals("GET") && !request.getMethod().equals("HEAD");
+        if (write) {
+            Cookie cookie = new Cookie(COOKIE, "1");
+            cookie.setPath("/");
+            cookie.setMaxAge(stickySeconds);
+            cookie.setHttpOnly(true);
+            response.addCookie(cookie);
+        }
+        if (!write && !hasCookie(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        ReplicaRoutingDataSource.pinToPrimary();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReplicaRoutingDataSource.unpin();
+        }
+    }
+
+    private static boolean hasCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (cookie.getName().equals(COOKIE)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
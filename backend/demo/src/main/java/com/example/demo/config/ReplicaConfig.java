@@ -0,0 +1,83 @@
+package com.example.demo.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// read replicas for read-only service transactions, only when inventory.replicas.urls is set; without it
+// Spring Boot's single spring.datasource pool serves everything as before
+@Configuration
+@ConditionalOnProperty("inventory.replicas.urls")
+public class ReplicaConfig {
+
+    // the spring.datasource pool, as Spring Boot would build it
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRouting(
+            HikariDataSource primaryDataSource, ObjectProvider<MeterRegistry> registry,
+            @Value("${inventory.replicas.urls}") List<String> urls,
+            @Value("${inventory.replicas.username:${spring.datasource.username:}}") String username,
+            @Value("${inventory.replicas.password:${spring.datasource.password:}}") String password,
+            @Value("${inventory.replicas.pool-size:10}") int poolSize,
+            @Value("${inventory.replicas.connection-timeout-ms:1000}") long connectionTimeoutMs,
+            @Value("${inventory.replicas.max-lag-ms:2000}") long maxLagMs,
+            @Value("${inventory.replicas.lag-query}") String lagQuery) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            // same driver and pool settings as the primary, a short connection timeout since the primary can take over
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setPoolName("replica-" + (replicas.size() + 1));
+            config.setJdbcUrl(url.trim());
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setMaximumPoolSize(poolSize);
+            config.setConnectionTimeout(connectionTimeoutMs);
+            config.setReadOnly(true);
+            // start without the replica if it is down, checkReplicas() brings it in later
+            config.setInitializationFailTimeout(-1);
+            config.setMetricRegistry(null);
+            config.setMetricsTrackerFactory(null);
+            registry.ifAvailable(meters -> config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meters)));
+            replicas.add(new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLagMs, lagQuery);
+    }
+
+    // what JPA, JdbcTemplate and the transaction manager use; the connection is picked at the first statement,
+    // once the transaction's read-only flag is set
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRouting) {
+        return new LazyConnectionDataSourceProxy(replicaRouting);
+    }
+
+    @Bean
+    public FilterRegistrationBean<PrimaryPinFilter> primaryPinFilter(
+            @Value("${inventory.replicas.sticky-seconds:5}") int stickySeconds) {
+        FilterRegistrationBean<PrimaryPinFilter> registration =
+                new FilterRegistrationBean<>(new PrimaryPinFilter(stickySeconds));
+        registration.addUrlPatterns("/api/*", "/supplier/*", "/email/*");
+        return registration;
+    }
+}
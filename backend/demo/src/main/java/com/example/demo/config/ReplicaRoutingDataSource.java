@@ -0,0 +1,198 @@
+package com.example.demo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out replica connections to read-only service transactions ({@code @Transactional(readOnly = true)}
+ * or a read-only TransactionTemplate) and primary connections to everything else. Replicas take turns;
+ * one that could not be connected to or failed its lag check, or lags more than {@code maxLagMs}, is
+ * skipped until {@link #checkReplicas()} finds it healthy again. A replica whose pool stayed busy for
+ * the connection timeout passes the read on to the next one. With none left reads go to the primary.
+ * <p>
+ * Spring Data opens a read-only transaction of its own around every bare repository call; those stay
+ * on the primary, so code that writes and then reads back through a repository (the catalog cache
+ * reloading after a commit, for one) sees its write. {@link #pinToPrimary} keeps a whole request on
+ * the primary, see {@link PrimaryPinFilter}.
+ * <p>
+ * The transaction's read-only flag is only known once it has begun, so this sits behind a
+ * {@code LazyConnectionDataSourceProxy} that fetches the connection at the first statement.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements MeterBinder, Closeable {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    // transactions Spring Data starts for a repository call outside any other transaction
+    private static final String REPOSITORY_TRANSACTIONS = "org.springframework.data.";
+    private static final ThreadLocal<Boolean> pinned = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagMs;
+    private final String lagQuery;
+    private final AtomicInteger next = new AtomicInteger();
+    // target -> connections handed out: primary, replica name, or fallback (a replica read on the primary)
+    private final Map<String, Counter> routed = new ConcurrentHashMap<>();
+    private volatile MeterRegistry registry;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas, long maxLagMs, String lagQuery) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.maxLagMs = maxLagMs;
+        this.lagQuery = lagQuery;
+    }
+
+    /** Sends this thread's reads to the primary until {@link #unpin()}. */
+    public static void pinToPrimary() {
+        pinned.set(Boolean.TRUE);
+    }
+
+    public static void unpin() {
+        pinned.remove();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!replicaRead()) {
+            count("primary");
+            return primary.getConnection();
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.usable(maxLagMs)) {
+                continue;
+            }
+            try {
+                Connection connection = replica.pool.getConnection();
+                count(replica.name());
+                return connection;
+            } catch (SQLTransientConnectionException e) {
+                // without a cause the pool was only busy for the whole timeout, the replica is fine
+                if (e.getCause() != null) {
+                    replica.down(e);
+                }
+            } catch (SQLException | RuntimeException e) {
+                replica.down(e);
+            }
+        }
+        count("fallback");
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // the replica pools log in as their own user, a caller naming another one means the primary
+        count("primary");
+        return primary.getConnection(username, password);
+    }
+
+    private boolean replicaRead() {
+        if (replicas.isEmpty() || pinned.get() != null
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return false;
+        }
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        return name == null || !name.startsWith(REPOSITORY_TRANSACTIONS);
+    }
+
+    /** Runs the lag query on every replica, marking it up or down. */
+    @Scheduled(fixedDelayString = "${inventory.replicas.check-ms:1000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(lagQuery)) {
+                rs.next();
+                replica.up((long) rs.getDouble(1), maxLagMs);
+            } catch (SQLException | RuntimeException e) {
+                replica.down(e);
+            }
+        }
+    }
+
+    public int availableReplicas() {
+        return (int) replicas.stream().filter(replica -> replica.usable(maxLagMs)).count();
+    }
+
+    private void count(String target) {
+        MeterRegistry meters = registry;
+        if (meters != null) {
+            routed.computeIfAbsent(target, t -> Counter.builder("inventory.datasource.connections")
+                    .description("Connections handed out, by pool; fallback is a replica read served by the primary")
+                    .tag("target", t)
+                    .register(meters)).increment();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder("inventory.datasource.replicas.available", this, ReplicaRoutingDataSource::availableReplicas)
+                .description("Replicas currently taking reads")
+                .register(registry);
+        for (Replica replica : replicas) {
+            Gauge.builder("inventory.datasource.replica.lag", replica, r -> r.lagMs)
+                    .description("Replication lag at the last check, in milliseconds")
+                    .baseUnit("milliseconds")
+                    .tag("replica", replica.name())
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private static final class Replica {
+        final HikariDataSource pool;
+        volatile boolean healthy = true;
+        volatile long lagMs;
+
+        Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+
+        String name() {
+            return pool.getPoolName();
+        }
+
+        boolean usable(long maxLagMs) {
+            return healthy && lagMs <= maxLagMs;
+        }
+
+        void up(long lagMs, long maxLagMs) {
+            if (!healthy || (this.lagMs <= maxLagMs) != (lagMs <= maxLagMs)) {
+                log.info("replica {} lag {} ms, {}", name(), lagMs, lagMs <= maxLagMs ? "taking reads" : "skipped");
+            }
+            this.lagMs = lagMs;
+            healthy = true;
+        }
+
+        void down(Exception e) {
+            if (healthy) {
+                log.warn("replica {} down, its reads go elsewhere: {}", name(), e.toString());
+            }
+            healthy = false;
+        }
+    }
+}
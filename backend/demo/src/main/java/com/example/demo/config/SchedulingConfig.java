@@ -0,0 +1,10 @@
+package com.example.demo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// runs the @Scheduled jobs, such as the nightly stock ledger compaction
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
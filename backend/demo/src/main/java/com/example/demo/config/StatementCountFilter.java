@@ -0,0 +1,57 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records how many Hibernate statements each request issued as {@code inventory.db.statements}
+ * per URI pattern. Requests above the warn threshold are logged and counted in
+ * {@code inventory.db.statements.excessive}, which is how an N+1 shows up.
+ */
+public class StatementCountFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(StatementCountFilter.class);
+
+    private final StatementCounter counter;
+    private final MeterRegistry registry;
+    private final int warnAbove;
+
+    public StatementCountFilter(StatementCounter counter, MeterRegistry registry, int warnAbove) {
+        this.counter = counter;
+        this.registry = registry;
+        this.warnAbove = warnAbove;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        counter.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int statements = counter.stop();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+            DistributionSummary.builder("inventory.db.statements")
+                    .description("Hibernate statements per request")
+                    .tag("uri", uri)
+                    .register(registry)
+                    .record(statements);
+            if (statements > warnAbove) {
+                Counter.builder("inventory.db.statements.excessive").tag("uri", uri).register(registry).increment();
+                log.warn("uri={} method={} statements={} exceeds {}, possible N+1",
+                        uri, request.getMethod(), statements, warnAbove);
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CheckoutRequest {
+
+    private List<Item> items;
+
+    // optional, the StockReservations cart whose holds this checkout turns into the sale
+    private String cartId;
+
+    @Data
+    public static class Item {
+        private long productId;
+        private int quantity;
+    }
+}
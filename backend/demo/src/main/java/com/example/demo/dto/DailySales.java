@@ -0,0 +1,9 @@
+package com.example.demo.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Catalog-wide sales and restocks of one day, as shown on the reports page.
+ */
+public record DailySales(LocalDate day, long unitsSold, long unitsRestocked, double salesValue) {
+}
@@ -0,0 +1,13 @@
+package com.example.demo.dto;
+
+import java.time.Instant;
+
+/**
+ * A background delete started by BulkDeletions. {@code target} names what is deleted
+ * ("supplier 42" or "all products"); {@code total} is the product count when it started.
+ */
+public record DeletionProgress(long jobId, String target, State state, long total, long deleted,
+                               Instant startedAt, Instant finishedAt, String error) {
+
+    public enum State { RUNNING, DONE, FAILED }
+}
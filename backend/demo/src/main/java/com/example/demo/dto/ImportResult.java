@@ -0,0 +1,9 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a CSV import: rows inserted, rows skipped and the first few reasons why.
+ */
+public record ImportResult(long imported, long rejected, List<String> errors, long millis) {
+}
@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import com.example.demo.Models.Product;
+
+import java.util.List;
+
+/**
+ * One page of the product change feed. Apply {@code changed} (upsert by id) and {@code deleted},
+ * then ask again with {@code next}; keep going straight away while {@code hasMore}. With
+ * {@code reset} the client's copy is out of date beyond repair and is replaced by the pages that
+ * follow. A product may come again in a later page, applying it twice is harmless.
+ */
+public record ProductChanges(List<Product> changed, List<Long> deleted, String next, boolean hasMore,
+                             boolean reset) {
+}
@@ -0,0 +1,9 @@
+package com.example.demo.dto;
+
+/**
+ * One product line of the CSV import / export. {@code id} is only set on export, imported rows
+ * always create new products.
+ */
+public record ProductCsvRow(Long id, String name, int stock, int minStock, double price,
+                            Long supplierId, String supplierEmail) {
+}
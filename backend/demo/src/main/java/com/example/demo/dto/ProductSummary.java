@@ -0,0 +1,7 @@
+package com.example.demo.dto;
+
+/**
+ * Slim row for product listings, everything the list screens show without the supplier entity.
+ */
+public record ProductSummary(long id, String name, int stock, int minStock, double price, String supplierName) {
+}
@@ -0,0 +1,20 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ReceiptRequest {
+
+    // the supplier's delivery note or purchase order number, only logged
+    private String reference;
+
+    private List<Item> items;
+
+    @Data
+    public static class Item {
+        private long productId;
+        private int quantity;
+    }
+}
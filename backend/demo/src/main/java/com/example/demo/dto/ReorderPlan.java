@@ -0,0 +1,12 @@
+package com.example.demo.dto;
+
+import java.time.LocalDate;
+
+/**
+ * What the reorder planner derived for one product from its sales through {@code throughDay}.
+ * {@code reorderPoint} is the minStock it sets; both it and {@code orderQuantity} are -1 until
+ * the product has enough days of history.
+ */
+public record ReorderPlan(long productId, double dailyDemand, double demandStdDev, int historyDays, int leadTimeDays,
+                          int reorderPoint, int orderQuantity, LocalDate throughDay) {
+}
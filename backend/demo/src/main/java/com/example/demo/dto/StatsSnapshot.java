@@ -0,0 +1,26 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Payload of GET /api/stats, sized by the fixed top-N lists rather than by the catalog.
+ */
+public record StatsSnapshot(
+        long totalProducts,
+        long totalStock,
+        double inventoryValue,
+        long lowStockCount,
+        long healthyStockCount,
+        long totalSuppliers,
+        List<ProductStat> topProducts,
+        List<ProductStat> recentProducts,
+        List<SupplierStat> topSuppliers,
+        LocalDateTime generatedAt) {
+
+    public record ProductStat(long id, String name, int stock, int minStock) {
+    }
+
+    public record SupplierStat(long id, String name, long products) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+/**
+ * One committed product change as pushed to /api/products/stream. {@code type} is the
+ * ProductChangedEvent type; for DELETED the fields describe the product as it was, for BULK only
+ * the type is set and clients should reload. MIN_STOCK is the same but only the low/healthy split
+ * moved, so only low-stock views need reloading. {@code transition} is set when the change moved the
+ * product across its minimum stock.
+ */
+public record StockDelta(long seq, String type, long productId, String name, int stock, int minStock, boolean low,
+                         Transition transition) {
+
+    public enum Transition { LOW, RECOVERED }
+}
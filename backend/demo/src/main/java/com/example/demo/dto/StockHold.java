@@ -0,0 +1,10 @@
+package com.example.demo.dto;
+
+import java.time.Instant;
+
+/**
+ * A cart's hold on one product. {@code available} is what other counters can still take after
+ * this hold; {@code expiresAt} is null once the hold is released.
+ */
+public record StockHold(String cartId, long productId, int quantity, int available, Instant expiresAt) {
+}
@@ -0,0 +1,81 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.ProductCsvRow;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Catalog-sized reads and writes done with plain JDBC, mixed into {@link ProductRepository}.
+ */
+public interface ProductBulkOperations {
+
+    /**
+     * Inserts the rows as new products in one JDBC batch (the PostgreSQL driver rewrites it into
+     * multi-row INSERTs with {@code reWriteBatchedInserts}). Bypasses Hibernate, so no entity
+     * callbacks run and no events are published.
+     *
+     * @return the generated product ids, in row order
+     */
+    long[] insertBatch(List<ProductCsvRow> rows);
+
+    /**
+     * Streams every product ordered by id through a forward-only cursor, {@code fetchSize} rows
+     * at a time. Must run inside a transaction, PostgreSQL only honours the fetch size without
+     * autocommit.
+     */
+    void forEachCsvRow(int fetchSize, Consumer<ProductCsvRow> action);
+
+    /**
+     * Streams (id, minStock, lead time, first day) of every product ordered by id, for the reorder
+     * planner. The lead time is the supplier's, or {@code defaultLeadTimeDays} when it has none; the
+     * first day is the product's creation day as an epoch day. Must run inside a transaction.
+     */
+    void forEachReorderRow(int fetchSize, int defaultLeadTimeDays, ReorderRow action);
+
+    /**
+     * Streams the units sold per product and day from the ledger snapshots of {@code from..to}
+     * inclusive, ordered by day then product id, skipping days a product sold nothing. Must run
+     * inside a transaction.
+     */
+    void forEachDailySale(LocalDate from, LocalDate to, int fetchSize, DailySale action);
+
+    /**
+     * Sets {@code minStocks[i]} on product {@code ids[i]} in one set-based UPDATE, only where the
+     * minimum is still {@code expected[i]} so an edit made since it was read wins.
+     *
+     * @return the number of products updated
+     */
+    int updateMinStock(long[] ids, int[] expected, int[] minStocks);
+
+    /** Products of the supplier, read without the soft-delete filter JPQL puts on suppliers. */
+    long countBySupplier(long supplierId);
+
+    /**
+     * The highest id among the first {@code chunkSize} products by id of the supplier, or of the
+     * whole catalog when {@code supplierId} is null; 0 when there are none left.
+     */
+    long chunkEnd(Long supplierId, int chunkSize);
+
+    /**
+     * Deletes the products with ids up to {@code throughId} of the supplier (of the whole catalog
+     * when {@code supplierId} is null) and their stock slots, leaving a tombstone per product for
+     * delta-syncing clients, in three set-based statements. No entity is loaded and no event is
+     * published.
+     *
+     * @return the number of products deleted
+     */
+    int deleteThrough(Long supplierId, long throughId);
+
+    // primitive callbacks, a million products should not box a million times
+    @FunctionalInterface
+    interface ReorderRow {
+        void accept(long productId, int minStock, int leadTimeDays, long firstDay);
+    }
+
+    @FunctionalInterface
+    interface DailySale {
+        void accept(LocalDate day, long productId, int unitsSold);
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.demo.repository;
+
+import com.example.demo.Models.Product;
+import com.example.demo.dto.ProductCsvRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class ProductBulkOperationsImpl implements ProductBulkOperations {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public long[] insertBatch(List<ProductCsvRow> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        long[] ids = allocateIds(rows.size());
+        jdbcTemplate.batchUpdate("INSERT INTO product (id, name, stock, min_stock, price, supplier_id, created_at, "
+                + "updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ProductCsvRow row = rows.get(i);
+                ps.setLong(1, ids[i]);
+                ps.setString(2, row.name());
+                ps.setInt(3, row.stock());
+                ps.setInt(4, row.minStock());
+                ps.setDouble(5, row.price());
+                ps.setObject(6, row.supplierId(), Types.BIGINT);
+                ps.setTimestamp(7, now);
+                ps.setTimestamp(8, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+        // the ids go into the stock ledger's opening movements
+        return ids;
+    }
+
+    // whole pooled-lo blocks from product_seq, the way Hibernate takes them, so neither hands out the other's
+    // ids; relies on hibernate.id.optimizer.pooled.preferred=pooled-lo (a value is the first id of its block)
+    private long[] allocateIds(int count) {
+        int blockSize = Product.ID_BLOCK_SIZE;
+        int blocks = (count + blockSize - 1) / blockSize;
+        List<Long> lows = blocks == 0 ? List.of() : jdbcTemplate.queryForList(
+                "SELECT nextval('product_seq') FROM generate_series(1, ?)", Long.class, blocks);
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = lows.get(i / blockSize) + i % blockSize;
+        }
+        return ids;
+    }
+
+    @Override
+    public void forEachCsvRow(int fetchSize, Consumer<ProductCsvRow> action) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT p.id, p.name, p.stock, p.min_stock, p.price, s.id AS supplier_id, s.email "
+                            + "FROM product p LEFT JOIN supplier s ON s.id = p.supplier_id ORDER BY p.id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, rs -> {
+            long supplierId = rs.getLong("supplier_id");
+            Long supplier = rs.wasNull() ? null : supplierId;
+            action.accept(new ProductCsvRow(rs.getLong("id"), rs.getString("name"), rs.getInt("stock"),
+                    rs.getInt("min_stock"), rs.getDouble("price"), supplier, rs.getString("email")));
+        });
+    }
+
+    @Override
+    public void forEachReorderRow(int fetchSize, int defaultLeadTimeDays, ReorderRow action) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = forwardOnly(connection,
+                    "SELECT p.id, p.min_stock, COALESCE(s.lead_time_days, ?) AS lead_time_days, p.created_at "
+                            + "FROM product p LEFT JOIN supplier s ON s.id = p.supplier_id ORDER BY p.id", fetchSize);
+            statement.setInt(1, defaultLeadTimeDays);
+            return statement;
+        }, rs -> {
+            Timestamp created = rs.getTimestamp("created_at");
+            action.accept(rs.getLong("id"), rs.getInt("min_stock"), rs.getInt("lead_time_days"),
+                    created == null ? Long.MIN_VALUE : created.toLocalDateTime().toLocalDate().toEpochDay());
+        });
+    }
+
+    @Override
+    public void forEachDailySale(LocalDate from, LocalDate to, int fetchSize, DailySale action) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = forwardOnly(connection, "SELECT snapshot_day, product_id, units_sold "
+                    + "FROM daily_stock_snapshot WHERE snapshot_day BETWEEN ? AND ? AND units_sold > 0 "
+                    + "ORDER BY snapshot_day, product_id", fetchSize);
+            statement.setDate(1, Date.valueOf(from));
+            statement.setDate(2, Date.valueOf(to));
+            return statement;
+        }, rs -> {
+            action.accept(rs.getDate("snapshot_day").toLocalDate(), rs.getLong("product_id"), rs.getInt("units_sold"));
+        });
+    }
+
+    @Override
+    public int updateMinStock(long[] ids, int[] expected, int[] minStocks) {
+        Long[] idArray = Arrays.stream(ids).boxed().toArray(Long[]::new);
+        Integer[] expectedArray = Arrays.stream(expected).boxed().toArray(Integer[]::new);
+        Integer[] minStockArray = Arrays.stream(minStocks).boxed().toArray(Integer[]::new);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE product p SET min_stock = v.min_stock, updated_at = ? "
+                            + "FROM UNNEST(?, ?, ?) AS v(id, expected, min_stock) "
+                            + "WHERE p.id = v.id AND p.min_stock = v.expected");
+            statement.setTimestamp(1, now);
+            statement.setArray(2, connection.createArrayOf("bigint", idArray));
+            statement.setArray(3, connection.createArrayOf("integer", expectedArray));
+            statement.setArray(4, connection.createArrayOf("integer", minStockArray));
+            return statement;
+        });
+    }
+
+    @Override
+    public long countBySupplier(long supplierId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product WHERE supplier_id = ?", Long.class, supplierId);
+    }
+
+    @Override
+    public long chunkEnd(Long supplierId, int chunkSize) {
+        Long end = supplierId == null
+                ? jdbcTemplate.queryForObject("SELECT MAX(id) FROM (SELECT id FROM product ORDER BY id LIMIT ?) c",
+                        Long.class, chunkSize)
+                : jdbcTemplate.queryForObject("SELECT MAX(id) FROM (SELECT id FROM product WHERE supplier_id = ? "
+                        + "ORDER BY id LIMIT ?) c", Long.class, supplierId, chunkSize);
+        return end == null ? 0 : end;
+    }
+
+    @Override
+    public int deleteThrough(Long supplierId, long throughId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if (supplierId == null) {
+            jdbcTemplate.update("INSERT INTO product_tombstone (product_id, deleted_at) SELECT id, ? FROM product "
+                    + "WHERE id <= ?", now, throughId);
+            jdbcTemplate.update("DELETE FROM product_stock_slot WHERE product_id <= ?", throughId);
+            return jdbcTemplate.update("DELETE FROM product WHERE id <= ?", throughId);
+        }
+        jdbcTemplate.update("INSERT INTO product_tombstone (product_id, deleted_at) SELECT id, ? FROM product "
+                + "WHERE supplier_id = ? AND id <= ?", now, supplierId, throughId);
+        // slots first, the subquery finds them through the products about to go
+        jdbcTemplate.update("DELETE FROM product_stock_slot WHERE product_id IN "
+                + "(SELECT id FROM product WHERE supplier_id = ? AND id <= ?)", supplierId, throughId);
+        return jdbcTemplate.update("DELETE FROM product WHERE supplier_id = ? AND id <= ?", supplierId, throughId);
+    }
+
+    private static PreparedStatement forwardOnly(Connection connection, String sql, int fetchSize) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(fetchSize);
+        return statement;
+    }
+}
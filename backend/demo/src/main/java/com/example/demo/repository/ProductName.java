@@ -0,0 +1,9 @@
+package com.example.demo.repository;
+
+/**
+ * Just the id and name of a product, what the search index needs when it loads the catalog.
+ */
+public interface ProductName {
+    Long getId();
+    String getName();
+}
@@ -0,0 +1,21 @@
+package com.example.demo.repository;
+
+import com.example.demo.Models.Product;
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.ProductSummary;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Keyset-paginated product listings, mixed into {@link ProductRepository}. The cursor encodes
+ * the sort value and id of the last row, so every page is one indexed range scan no matter how
+ * deep the client has paged, and the supplier comes from the same statement.
+ */
+public interface ProductPageQueries {
+
+    CursorPage<Product> findPage(Specification<Product> spec, ProductSort sort, Sort.Direction direction,
+                                 String cursor, int size);
+
+    CursorPage<ProductSummary> findSummaryPage(Specification<Product> spec, ProductSort sort, Sort.Direction direction,
+                                               String cursor, int size);
+}
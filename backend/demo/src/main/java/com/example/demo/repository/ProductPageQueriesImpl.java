@@ -0,0 +1,143 @@
+package com.example.demo.repository;
+
+import com.example.demo.Models.Product;
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.ProductSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+public class ProductPageQueriesImpl implements ProductPageQueries {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public CursorPage<Product> findPage(Specification<Product> spec, ProductSort sort, Sort.Direction direction,
+                                        String cursor, int size) {
+        CriteriaQuery<Product> query = entityManager.getCriteriaBuilder().createQuery(Product.class);
+        Root<Product> root = query.from(Product.class);
+        root.fetch("supplier", JoinType.LEFT);
+        query.select(root);
+
+        List<Product> rows = fetch(query, root, spec, sort, direction, cursor, size);
+        return toPage(rows, size, p -> encode(sortValue(sort, p.getId(), p.getName(), p.getStock(),
+                p.getMinStock(), p.getPrice()), p.getId()));
+    }
+
+    @Override
+    public CursorPage<ProductSummary> findSummaryPage(Specification<Product> spec, ProductSort sort,
+                                                      Sort.Direction direction, String cursor, int size) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductSummary> query = cb.createQuery(ProductSummary.class);
+        Root<Product> root = query.from(Product.class);
+        Join<Object, Object> supplier = root.join("supplier", JoinType.LEFT);
+        query.select(cb.construct(ProductSummary.class, root.get("id"), root.get("name"), root.get("stock"),
+                root.get("minStock"), root.get("price"), supplier.get("name")));
+
+        List<ProductSummary> rows = fetch(query, root, spec, sort, direction, cursor, size);
+        return toPage(rows, size, p -> encode(sortValue(sort, p.id(), p.name(), p.stock(),
+                p.minStock(), p.price()), p.id()));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private <T> List<T> fetch(CriteriaQuery<T> query, Root<Product> root, Specification<Product> spec,
+                              ProductSort sort, Sort.Direction direction, String cursor, int size) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        Expression sortKey = sortExpression(cb, root, sort);
+        Path<Long> id = root.get("id");
+        boolean asc = direction.isAscending();
+
+        List<Predicate> where = new ArrayList<>();
+        Predicate filter = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (filter != null) {
+            where.add(filter);
+        }
+        if (cursor != null && !cursor.isEmpty()) {
+            String raw = decode(cursor);
+            int split = raw.lastIndexOf('|');
+            Comparable value = parseValue(sort, raw.substring(0, split));
+            Long lastId = Long.valueOf(raw.substring(split + 1));
+            // (key, id) strictly after the last row of the previous page
+            Predicate beyond = asc ? cb.greaterThan(sortKey, value) : cb.lessThan(sortKey, value);
+            Predicate tie = cb.and(cb.equal(sortKey, value), asc ? cb.greaterThan(id, lastId) : cb.lessThan(id, lastId));
+            where.add(sort == ProductSort.ID ? beyond : cb.or(beyond, tie));
+        }
+        query.where(where.toArray(new Predicate[0]));
+        query.orderBy(asc ? cb.asc(sortKey) : cb.desc(sortKey), asc ? cb.asc(id) : cb.desc(id));
+
+        // one row more than asked tells us whether there is a next page without a count query
+        return entityManager.createQuery(query).setMaxResults(size + 1).getResultList();
+    }
+
+    private static <T> CursorPage<T> toPage(List<T> rows, int size, Function<T, String> cursorOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> page = rows.subList(0, size);
+        return new CursorPage<>(page, cursorOf.apply(page.get(size - 1)));
+    }
+
+    private static Expression<?> sortExpression(CriteriaBuilder cb, Root<Product> root, ProductSort sort) {
+        if (sort == ProductSort.NAME) {
+            // null names sort as empty, backed by the expression index in schema-postgresql.sql
+            return cb.coalesce(root.<String>get("name"), "");
+        }
+        return root.get(sort.property());
+    }
+
+    private static Object sortValue(ProductSort sort, long id, String name, int stock, int minStock, double price) {
+        return switch (sort) {
+            case ID -> id;
+            case NAME -> name == null ? "" : name;
+            case STOCK -> stock;
+            case MIN_STOCK -> minStock;
+            case PRICE -> price;
+        };
+    }
+
+    private static Comparable<?> parseValue(ProductSort sort, String raw) {
+        try {
+            return switch (sort) {
+                case ID -> Long.valueOf(raw);
+                case NAME -> raw;
+                case STOCK, MIN_STOCK -> Integer.valueOf(raw);
+                case PRICE -> Double.valueOf(raw);
+            };
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
+    private static String encode(Object value, long id) {
+        String raw = value + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (raw.lastIndexOf('|') < 0) {
+                throw new RuntimeException("Invalid cursor");
+            }
+            return raw;
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+}
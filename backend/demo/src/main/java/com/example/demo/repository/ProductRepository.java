@@ -1,27 +1,105 @@
 package com.example.demo.repository;
 
 import com.example.demo.Models.Product;
+import com.example.demo.dto.ProductSummary;
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+        ProductStockOperations, ProductPageQueries, ProductBulkOperations {
+
+    // list queries join the (EAGER) supplier in the same statement instead of one select per row
+    @EntityGraph(attributePaths = "supplier")
     List<Product> findByNameContainingIgnoreCase(String name);
 
+    @Override
+    @EntityGraph(attributePaths = "supplier")
+    List<Product> findAll(Sort sort);
+
+    @Override
+    @EntityGraph(attributePaths = "supplier")
+    List<Product> findAll(Specification<Product> spec, Sort sort);
+
+    @Query("SELECT p.id AS id, p.name AS name, p.stock AS stock, p.minStock AS minStock, p.price AS price, " +
+            "s.id AS supplierId, s.email AS supplierEmail FROM Product p LEFT JOIN p.supplier s WHERE p.id = :id")
+    Optional<StockLevel> findStockLevelById(@Param("id") long id);
+
+    @Query("SELECT p.id AS id, p.name AS name, p.stock AS stock, p.minStock AS minStock, p.price AS price, " +
+            "s.id AS supplierId, s.email AS supplierEmail FROM Product p LEFT JOIN p.supplier s WHERE p.id IN :ids ORDER BY p.id")
+    List<StockLevel> findStockLevelsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // keyset batches of (id, name) for ProductSearchIndex
+    @Query("SELECT p.id AS id, p.name AS name FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<ProductName> findNamesAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("SELECT new com.example.demo.dto.ProductSummary(p.id, p.name, p.stock, p.minStock, p.price, s.name) " +
+            "FROM Product p LEFT JOIN p.supplier s WHERE p.id IN :ids")
+    List<ProductSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.stock = p.stock + :quantity, p.updatedAt = :now WHERE p.id = :id " +
+            "AND NOT EXISTS (SELECT 1 FROM ProductStockSlot s WHERE s.productId = p.id)")
+    int incrementStock(@Param("id") long id, @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.stock = :stock, p.updatedAt = :now WHERE p.id = :id")
+    int setStock(@Param("id") long id, @Param("stock") int stock, @Param("now") LocalDateTime now);
+
+    // dashboard aggregates, one row for the whole catalog
+    @Query("SELECT COUNT(p) AS products, COALESCE(SUM(p.stock), 0) AS units, COALESCE(SUM(p.stock * p.price), 0) AS stockValue, " +
+            "COALESCE(SUM(CASE WHEN p.stock < p.minStock THEN 1 ELSE 0 END), 0) AS lowStock FROM Product p")
+    StockTotals getStockTotals();
+
+    @Query("SELECT p.id AS id, p.name AS name, p.stock AS stock, p.minStock AS minStock, p.price AS price, " +
+            "s.id AS supplierId, s.email AS supplierEmail FROM Product p LEFT JOIN p.supplier s ORDER BY p.stock DESC, p.id")
+    List<StockLevel> findTopByStock(Pageable pageable);
+
+    @Query("SELECT p.id AS id, p.name AS name, p.stock AS stock, p.minStock AS minStock, p.price AS price, " +
+            "s.id AS supplierId, s.email AS supplierEmail FROM Product p LEFT JOIN p.supplier s ORDER BY p.id DESC")
+    List<StockLevel> findMostRecent(Pageable pageable);
+
+
+    // delta sync: rows after (updatedAt, id) up to a bound, in that order; see CatalogChanges
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.supplier WHERE (p.updatedAt, p.id) > (:after, :afterId) " +
+            "AND p.updatedAt <= :through ORDER BY p.updatedAt, p.id")
+    List<Product> findChangedBetween(@Param("after") LocalDateTime after, @Param("afterId") long afterId,
+                                     @Param("through") LocalDateTime through, Pageable pageable);
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.supplier WHERE p.updatedAt > :after ORDER BY p.updatedAt, p.id")
+    List<Product> findChangedAfter(@Param("after") LocalDateTime after, Pageable pageable);
+
+    @Query("SELECT MAX(p.updatedAt) FROM Product p")
+    LocalDateTime findLastUpdate();
+
+    // the supplier is part of every product's JSON, so its edits count as changes to its products
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.updatedAt = :now WHERE p.supplier.id = :supplierId")
+    int touchBySupplier(@Param("supplierId") long supplierId, @Param("now") LocalDateTime now);
 
     @Modifying
     @Transactional
-    @Query("UPDATE Product p SET p.supplier = NULL WHERE p.supplier.id = :supplierId")
-    void unlinkProductsFromSupplier(@Param("supplierId") Long supplierId);
+    @Query("UPDATE Product p SET p.supplier = NULL, p.updatedAt = :now WHERE p.supplier.id = :supplierId")
+    void unlinkProductsFromSupplier(@Param("supplierId") Long supplierId, @Param("now") LocalDateTime now);
 
     //unlink all suppliers(used for deleteAll)
     @Modifying
     @Transactional
-    @Query("UPDATE Product p SET p.supplier = NULL")
-    void updateAllProductsSetSupplierNull();
+    @Query("UPDATE Product p SET p.supplier = NULL, p.updatedAt = :now WHERE p.supplier IS NOT NULL")
+    void updateAllProductsSetSupplierNull(@Param("now") LocalDateTime now);
 }
@@ -0,0 +1,32 @@
+package com.example.demo.repository;
+
+import java.util.Arrays;
+
+/**
+ * The product columns listings may be sorted by. Each one has an (column, id) index so sorted
+ * and keyset-paged queries never fall back to sorting the whole table.
+ */
+public enum ProductSort {
+    ID("id"),
+    NAME("name"),
+    STOCK("stock"),
+    MIN_STOCK("minStock"),
+    PRICE("price");
+
+    private final String property;
+
+    ProductSort(String property) {
+        this.property = property;
+    }
+
+    public String property() {
+        return property;
+    }
+
+    public static ProductSort from(String property) {
+        return Arrays.stream(values())
+                .filter(sort -> sort.property.equals(property))
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("Unsupported sort field: " + property));
+    }
+}
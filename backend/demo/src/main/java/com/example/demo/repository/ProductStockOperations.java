@@ -0,0 +1,46 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedMap;
+
+/**
+ * Stock updates that need plain JDBC batching, mixed into {@link ProductRepository}.
+ */
+public interface ProductStockOperations {
+
+    /**
+     * Atomic sell: decrements the product's stock when enough is left and returns the new level from
+     * the same statement (UPDATE ... RETURNING), so the row lock covers one round trip. A product
+     * split over stock slots is sold through StockSlots and never matches.
+     *
+     * @return the new level, empty for an unknown id, not enough stock or a split product
+     */
+    Optional<StockLevel> decrementStock(long id, int quantity, LocalDateTime now);
+
+    /**
+     * Decrements stock for every product id in one JDBC batch, in ascending id order so that
+     * concurrent baskets always take row locks in the same order. Each update only applies
+     * when enough stock is left and the product is not split over stock slots.
+     *
+     * @return the update count per entry, in key order (0 means unknown id, not enough stock or a split product)
+     */
+    int[] decrementStockBatch(SortedMap<Long, Integer> quantities);
+
+    /**
+     * Adds the quantities to the products' stock in a single set-based UPDATE, the lines bound as
+     * two arrays so any number of them is one statement. Unknown ids and products split over stock
+     * slots are left alone.
+     *
+     * @return the number of products updated
+     */
+    int incrementStockBatch(SortedMap<Long, Integer> quantities, LocalDateTime now);
+
+    /**
+     * The stock levels of the products, ordered by id, with the ids bound as one array instead of an
+     * IN list so thousands of ids are still a single short statement. Unknown ids are skipped.
+     */
+    List<StockLevel> findStockLevels(Collection<Long> ids);
+}
@@ -0,0 +1,137 @@
+package com.example.demo.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+
+public class ProductStockOperationsImpl implements ProductStockOperations {
+
+    private static final String SELL = "UPDATE product p SET stock = p.stock - ?, updated_at = ? WHERE p.id = ? AND p.stock >= ? "
+            + "AND NOT EXISTS (SELECT 1 FROM product_stock_slot s WHERE s.product_id = p.id)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // H2 (the test database) has no UPDATE ... RETURNING, it reads the updated rows through FINAL TABLE instead
+    private volatile String sellReturning;
+
+    @Override
+    public Optional<StockLevel> decrementStock(long id, int quantity, LocalDateTime now) {
+        List<StockLevel> levels = jdbcTemplate.query(sellReturning(), this::mapLevel,
+                quantity, Timestamp.valueOf(now), id, quantity);
+        return levels.stream().findFirst();
+    }
+
+    private String sellReturning() {
+        String sql = sellReturning;
+        if (sql == null) {
+            boolean h2 = "H2".equals(jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+            sql = h2
+                    ? "SELECT p.id, p.name, p.stock, p.min_stock, p.price, p.supplier_id, s.email FROM FINAL TABLE ("
+                            + SELL + ") p LEFT JOIN supplier s ON s.id = p.supplier_id"
+                    : SELL + " RETURNING p.id, p.name, p.stock, p.min_stock, p.price, p.supplier_id, "
+                            + "(SELECT s.email FROM supplier s WHERE s.id = p.supplier_id) AS email";
+            sellReturning = sql;
+        }
+        return sql;
+    }
+
+    @Override
+    public int[] decrementStockBatch(SortedMap<Long, Integer> quantities) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            args.add(new Object[]{line.getValue(), now, line.getKey(), line.getValue()});
+        }
+        return jdbcTemplate.batchUpdate(
+                "UPDATE product p SET stock = stock - ?, updated_at = ? WHERE id = ? AND stock >= ? "
+                        + "AND NOT EXISTS (SELECT 1 FROM product_stock_slot s WHERE s.product_id = p.id)", args);
+    }
+
+    @Override
+    public int incrementStockBatch(SortedMap<Long, Integer> quantities, LocalDateTime now) {
+        Long[] ids = quantities.keySet().toArray(new Long[0]);
+        Integer[] received = quantities.values().toArray(new Integer[0]);
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE product p SET stock = p.stock + v.quantity, updated_at = ? "
+                            + "FROM UNNEST(?, ?) AS v(id, quantity) WHERE p.id = v.id "
+                            + "AND NOT EXISTS (SELECT 1 FROM product_stock_slot s WHERE s.product_id = p.id)");
+            statement.setTimestamp(1, Timestamp.valueOf(now));
+            statement.setArray(2, connection.createArrayOf("bigint", ids));
+            statement.setArray(3, connection.createArrayOf("integer", received));
+            return statement;
+        });
+    }
+
+    @Override
+    public List<StockLevel> findStockLevels(Collection<Long> ids) {
+        Long[] idArray = ids.toArray(new Long[0]);
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT p.id, p.name, p.stock, p.min_stock, p.price, s.id AS supplier_id, s.email "
+                            + "FROM UNNEST(?) AS v(id) JOIN product p ON p.id = v.id "
+                            + "LEFT JOIN supplier s ON s.id = p.supplier_id ORDER BY p.id");
+            statement.setArray(1, connection.createArrayOf("bigint", idArray));
+            return statement;
+        }, this::mapLevel);
+    }
+
+    private StockLevel mapLevel(ResultSet rs, int row) throws SQLException {
+        long supplierId = rs.getLong("supplier_id");
+        Long supplier = rs.wasNull() ? null : supplierId;
+        return new Level(rs.getLong("id"), rs.getString("name"), rs.getInt("stock"), rs.getInt("min_stock"),
+                rs.getDouble("price"), supplier, rs.getString("email"));
+    }
+
+    private record Level(Long id, String name, int stock, int minStock, double price, Long supplierId,
+                         String supplierEmail) implements StockLevel {
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getStock() {
+            return stock;
+        }
+
+        @Override
+        public int getMinStock() {
+            return minStock;
+        }
+
+        @Override
+        public double getPrice() {
+            return price;
+        }
+
+        @Override
+        public Long getSupplierId() {
+            return supplierId;
+        }
+
+        @Override
+        public String getSupplierEmail() {
+            return supplierEmail;
+        }
+    }
+}
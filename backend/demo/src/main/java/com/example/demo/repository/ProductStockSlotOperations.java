@@ -0,0 +1,43 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Slot reads and writes for split products done with plain JDBC, mixed into
+ * {@link ProductStockSlotRepository}. All of them join the caller's transaction.
+ */
+public interface ProductStockSlotOperations {
+
+    /** Slot count of every split product. */
+    Map<Long, Integer> findSlotCounts();
+
+    /** Takes {@code quantity} from one slot if it has that much, returns the rows touched (0 or 1). */
+    int takeFromSlot(long productId, int slot, int quantity);
+
+    /** Sum of the product's slots, 0 when it has none. */
+    int totalStock(long productId);
+
+    /** The product's slot stocks in slot order, locked until the transaction ends. */
+    int[] lockSlots(long productId);
+
+    /** Replaces the product's slots with {@code stocks}, one row per slot. */
+    void writeSlots(long productId, int[] stocks);
+
+    /** Overwrites slot stocks of a product whose slots are locked, {@code stocks} in slot order. */
+    void updateSlots(long productId, int[] stocks);
+
+    void deleteSlots(long productId);
+
+    /**
+     * Sets product.stock to the sum of its slots wherever they differ, and drops slots of
+     * products that no longer exist.
+     *
+     * @return the number of products updated
+     */
+    int syncProductStock(LocalDateTime now);
+
+    /** Split products with an empty slot while the total could give every slot at least one unit. */
+    List<Long> findDrained();
+}
@@ -0,0 +1,87 @@
+package com.example.demo.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ProductStockSlotOperationsImpl implements ProductStockSlotOperations {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Map<Long, Integer> findSlotCounts() {
+        Map<Long, Integer> counts = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, COUNT(*) AS slots FROM product_stock_slot GROUP BY product_id",
+                rs -> {
+                    counts.put(rs.getLong("product_id"), rs.getInt("slots"));
+                });
+        return counts;
+    }
+
+    @Override
+    public int takeFromSlot(long productId, int slot, int quantity) {
+        return jdbcTemplate.update("UPDATE product_stock_slot SET stock = stock - ? "
+                + "WHERE product_id = ? AND slot = ? AND stock >= ?", quantity, productId, slot, quantity);
+    }
+
+    @Override
+    public int totalStock(long productId) {
+        Integer total = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(stock), 0) FROM product_stock_slot WHERE product_id = ?", Integer.class, productId);
+        return total == null ? 0 : total;
+    }
+
+    @Override
+    public int[] lockSlots(long productId) {
+        return jdbcTemplate.queryForList("SELECT stock FROM product_stock_slot WHERE product_id = ? ORDER BY slot FOR UPDATE",
+                Integer.class, productId).stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Override
+    public void writeSlots(long productId, int[] stocks) {
+        deleteSlots(productId);
+        List<Object[]> args = new ArrayList<>(stocks.length);
+        for (int slot = 0; slot < stocks.length; slot++) {
+            args.add(new Object[]{productId, slot, stocks[slot]});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO product_stock_slot (product_id, slot, stock) VALUES (?, ?, ?)", args);
+    }
+
+    @Override
+    public void updateSlots(long productId, int[] stocks) {
+        List<Object[]> args = new ArrayList<>(stocks.length);
+        for (int slot = 0; slot < stocks.length; slot++) {
+            args.add(new Object[]{stocks[slot], productId, slot});
+        }
+        jdbcTemplate.batchUpdate("UPDATE product_stock_slot SET stock = ? WHERE product_id = ? AND slot = ?", args);
+    }
+
+    @Override
+    public void deleteSlots(long productId) {
+        jdbcTemplate.update("DELETE FROM product_stock_slot WHERE product_id = ?", productId);
+    }
+
+    @Override
+    public int syncProductStock(LocalDateTime now) {
+        jdbcTemplate.update("DELETE FROM product_stock_slot s WHERE NOT EXISTS (SELECT 1 FROM product p WHERE p.id = s.product_id)");
+        // touches only rows whose stock moved, so an idle split product costs no row lock
+        return jdbcTemplate.update("UPDATE product p SET "
+                + "stock = (SELECT SUM(s.stock) FROM product_stock_slot s WHERE s.product_id = p.id), updated_at = ? "
+                + "WHERE p.id IN (SELECT product_id FROM product_stock_slot) "
+                + "AND p.stock <> (SELECT SUM(s.stock) FROM product_stock_slot s WHERE s.product_id = p.id)",
+                Timestamp.valueOf(now));
+    }
+
+    @Override
+    public List<Long> findDrained() {
+        return jdbcTemplate.queryForList("SELECT product_id FROM product_stock_slot GROUP BY product_id "
+                + "HAVING MIN(stock) = 0 AND SUM(stock) >= COUNT(*)", Long.class);
+    }
+}
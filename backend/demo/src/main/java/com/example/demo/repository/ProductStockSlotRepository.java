@@ -0,0 +1,7 @@
+package com.example.demo.repository;
+
+import com.example.demo.Models.ProductStockSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ProductStockSlotRepository extends JpaRepository<ProductStockSlot, Long>, ProductStockSlotOperations {
+}
@@ -0,0 +1,28 @@
+package com.example.demo.repository;
+
+import com.example.demo.Models.ProductTombstone;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ProductTombstoneRepository extends JpaRepository<ProductTombstone, Long> {
+
+    @Query("SELECT t.productId FROM ProductTombstone t WHERE t.deletedAt > :after AND t.deletedAt <= :through")
+    List<Long> findDeletedBetween(@Param("after") LocalDateTime after, @Param("through") LocalDateTime through);
+
+    @Query("SELECT t.productId FROM ProductTombstone t WHERE t.deletedAt > :after")
+    List<Long> findDeletedAfter(@Param("after") LocalDateTime after);
+
+    @Query("SELECT MAX(t.deletedAt) FROM ProductTombstone t")
+    LocalDateTime findLastDeletion();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ProductTombstone t WHERE t.deletedAt < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
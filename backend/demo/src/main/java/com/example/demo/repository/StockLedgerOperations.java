@@ -0,0 +1,43 @@
+package com.example.demo.repository;
+
+import com.example.demo.Models.StockMovement;
+import com.example.demo.dto.DailySales;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Ledger writes and day-level aggregates done with plain JDBC, mixed into {@link StockMovementRepository}.
+ */
+public interface StockLedgerOperations {
+
+    /** Inserts the movements in one JDBC batch, joining the caller's transaction. */
+    void appendBatch(List<StockMovement> movements);
+
+    /**
+     * Replaces the snapshots of {@code day} with per-product totals of that day's movements.
+     *
+     * @return the number of snapshot rows written
+     */
+    int compactDay(LocalDate day);
+
+    /**
+     * Stock of a product right after its last movement at or before {@code at}: the closing stock of its
+     * last snapshot before that day plus the deltas since. Empty when it has no movement by then.
+     */
+    Optional<Integer> stockAsOf(long productId, LocalDateTime at);
+
+    /** Last day that has snapshots, empty before the first compaction. */
+    Optional<LocalDate> lastCompactedDay();
+
+    /** Day of the oldest movement, empty when the ledger is empty. */
+    Optional<LocalDate> firstMovementDay();
+
+    /** Daily totals from snapshots for {@code from..to} inclusive. */
+    List<DailySales> salesFromSnapshots(LocalDate from, LocalDate to);
+
+    /** Daily totals straight from movements for {@code from..to} inclusive, meant for the uncompacted tail. */
+    List<DailySales> salesFromMovements(LocalDate from, LocalDate to);
+}
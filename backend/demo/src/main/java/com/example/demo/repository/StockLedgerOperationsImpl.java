@@ -0,0 +1,119 @@
+package com.example.demo.repository;
+
+import com.example.demo.Models.StockMovement;
+import com.example.demo.dto.DailySales;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class StockLedgerOperationsImpl implements StockLedgerOperations {
+
+    private static final RowMapper<DailySales> DAILY_SALES = (rs, row) -> new DailySales(
+            rs.getDate("sales_day").toLocalDate(), rs.getLong("units_sold"), rs.getLong("units_restocked"),
+            rs.getDouble("sales_value"));
+
+    private static final String INSERT = "INSERT INTO stock_movement (product_id, type, quantity, stock_after, "
+            + "unit_price, invoice_id, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void appendBatch(List<StockMovement> movements) {
+        List<Object[]> args = new ArrayList<>(movements.size());
+        for (StockMovement m : movements) {
+            args.add(new Object[]{m.getProductId(), m.getType().name(), m.getQuantity(), m.getStockAfter(),
+                    m.getUnitPrice(), m.getInvoiceId(), Timestamp.valueOf(m.getCreatedAt())});
+        }
+        if (args.size() == 1) {
+            // a single sell is the common case, a plain update skips the batch bookkeeping
+            jdbcTemplate.update(INSERT, args.get(0));
+        } else if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT, args);
+        }
+    }
+
+    @Override
+    public int compactDay(LocalDate day) {
+        Timestamp from = Timestamp.valueOf(day.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+        jdbcTemplate.update("DELETE FROM daily_stock_snapshot WHERE snapshot_day = ?", Date.valueOf(day));
+        // closing stock is the product's previous closing stock plus the day's deltas, not stockAfter of its
+        // last movement: sales of a product split over stock slots commit in no particular order, so
+        // neither the last id nor its stockAfter is exact for them, while the deltas always are
+        return jdbcTemplate.update("INSERT INTO daily_stock_snapshot (product_id, snapshot_day, units_sold, "
+                + "units_restocked, net_adjusted, sales_value, closing_stock, movements) "
+                + "SELECT a.product_id, ?, a.units_sold, a.units_restocked, a.net_adjusted, a.sales_value, "
+                + "COALESCE((SELECT p.closing_stock FROM daily_stock_snapshot p WHERE p.product_id = a.product_id "
+                + "AND p.snapshot_day < ? ORDER BY p.snapshot_day DESC LIMIT 1), 0) + a.net_change, a.movements FROM ("
+                + "  SELECT product_id, "
+                + "    SUM(CASE WHEN type = 'SALE' THEN -quantity ELSE 0 END) AS units_sold, "
+                + "    SUM(CASE WHEN type = 'RESTOCK' THEN quantity ELSE 0 END) AS units_restocked, "
+                + "    SUM(CASE WHEN type IN ('ADJUSTMENT', 'OPENING') THEN quantity ELSE 0 END) AS net_adjusted, "
+                + "    SUM(CASE WHEN type = 'SALE' THEN -quantity * unit_price ELSE 0 END) AS sales_value, "
+                + "    SUM(quantity) AS net_change, COUNT(*) AS movements "
+                + "  FROM stock_movement WHERE created_at >= ? AND created_at < ? GROUP BY product_id"
+                + ") a", Date.valueOf(day), Date.valueOf(day), from, to);
+    }
+
+    @Override
+    public Optional<Integer> stockAsOf(long productId, LocalDateTime at) {
+        LocalDate day = at.toLocalDate();
+        Optional<Closing> closing = jdbcTemplate.query("SELECT snapshot_day, closing_stock FROM daily_stock_snapshot "
+                        + "WHERE product_id = ? AND snapshot_day < ? ORDER BY snapshot_day DESC LIMIT 1",
+                (rs, row) -> new Closing(rs.getDate(1).toLocalDate(), rs.getInt(2)),
+                productId, Date.valueOf(day)).stream().findFirst();
+        // deltas after the last snapshot before that day, or all of them when there is none
+        LocalDate since = closing.map(c -> c.day().plusDays(1)).orElse(LocalDate.EPOCH);
+        return jdbcTemplate.query("SELECT COUNT(*), COALESCE(SUM(quantity), 0) FROM stock_movement "
+                        + "WHERE product_id = ? AND created_at >= ? AND created_at <= ?", rs -> {
+                    rs.next();
+                    if (closing.isEmpty() && rs.getLong(1) == 0) {
+                        return Optional.empty();
+                    }
+                    return Optional.of(closing.map(Closing::stock).orElse(0) + rs.getInt(2));
+                }, productId, Timestamp.valueOf(since.atStartOfDay()), Timestamp.valueOf(at));
+    }
+
+    private record Closing(LocalDate day, int stock) {
+    }
+
+    @Override
+    public Optional<LocalDate> lastCompactedDay() {
+        Date day = jdbcTemplate.queryForObject("SELECT MAX(snapshot_day) FROM daily_stock_snapshot", Date.class);
+        return Optional.ofNullable(day).map(Date::toLocalDate);
+    }
+
+    @Override
+    public Optional<LocalDate> firstMovementDay() {
+        Timestamp first = jdbcTemplate.queryForObject("SELECT MIN(created_at) FROM stock_movement", Timestamp.class);
+        return Optional.ofNullable(first).map(t -> t.toLocalDateTime().toLocalDate());
+    }
+
+    @Override
+    public List<DailySales> salesFromSnapshots(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("SELECT snapshot_day AS sales_day, SUM(units_sold) AS units_sold, "
+                + "SUM(units_restocked) AS units_restocked, SUM(sales_value) AS sales_value "
+                + "FROM daily_stock_snapshot WHERE snapshot_day >= ? AND snapshot_day <= ? "
+                + "GROUP BY snapshot_day ORDER BY snapshot_day", DAILY_SALES, Date.valueOf(from), Date.valueOf(to));
+    }
+
+    @Override
+    public List<DailySales> salesFromMovements(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("SELECT CAST(created_at AS DATE) AS sales_day, "
+                + "SUM(CASE WHEN type = 'SALE' THEN -quantity ELSE 0 END) AS units_sold, "
+                + "SUM(CASE WHEN type = 'RESTOCK' THEN quantity ELSE 0 END) AS units_restocked, "
+                + "SUM(CASE WHEN type = 'SALE' THEN -quantity * unit_price ELSE 0 END) AS sales_value "
+                + "FROM stock_movement WHERE created_at >= ? AND created_at < ? "
+                + "GROUP BY CAST(created_at AS DATE) ORDER BY sales_day", DAILY_SALES,
+                Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.demo.repository;
+
+/**
+ * Slim read of the stock columns of a product, used by the sell path so it
+ * does not have to load the whole entity (and its supplier) after a decrement.
+ */
+public interface StockLevel {
+    Long getId();
+    String getName();
+    int getStock();
+    int getMinStock();
+    double getPrice();
+    Long getSupplierId();
+    String getSupplierEmail();
+}
@@ -0,0 +1,7 @@
+package com.example.demo.repository;
+
+import com.example.demo.Models.StockMovement;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long>, StockLedgerOperations {
+}
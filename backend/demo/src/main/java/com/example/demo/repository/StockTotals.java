@@ -0,0 +1,11 @@
+package com.example.demo.repository;
+
+/**
+ * Catalog-wide sums computed by {@link ProductRepository#getStockTotals()}.
+ */
+public interface StockTotals {
+    Long getProducts();
+    Long getUnits();
+    Double getStockValue();
+    Long getLowStock();
+}
@@ -0,0 +1,7 @@
+package com.example.demo.repository;
+
+public interface SupplierProductCount {
+    Long getId();
+    String getName();
+    Long getProducts();
+}
@@ -1,9 +1,41 @@
 package com.example.demo.repository;
 
 import com.example.demo.Models.Supplier;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 public interface SupplierRepository extends JpaRepository<Supplier,Long> {
+
+    @Query("SELECT s.id AS id, s.name AS name, COUNT(p) AS products FROM Supplier s LEFT JOIN s.products p " +
+            "GROUP BY s.id, s.name ORDER BY COUNT(p) DESC, s.id")
+    List<SupplierProductCount> findTopByProductCount(Pageable pageable);
+
+    // supplier lookup by email for the CSV import, ids only
+    @Query("SELECT s.id FROM Supplier s WHERE lower(s.email) = lower(:email) ORDER BY s.id")
+    List<Long> findIdsByEmail(@Param("email") String email);
+
+    // the deletes below are native so they also see soft-deleted suppliers, which JPQL filters out
+    @Modifying
+    @Query(value = "UPDATE supplier SET deleted_at = :now WHERE id = :id AND deleted_at IS NULL", nativeQuery = true)
+    int markDeleted(@Param("id") long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "DELETE FROM supplier WHERE id = :id", nativeQuery = true)
+    int purge(@Param("id") long id);
+
+    @Modifying
+    @Query(value = "DELETE FROM supplier", nativeQuery = true)
+    int purgeAll();
+
+    // suppliers whose background delete did not finish, resumed on startup
+    @Query(value = "SELECT id FROM supplier WHERE deleted_at IS NOT NULL ORDER BY id", nativeQuery = true)
+    List<Long> findMarkedDeleted();
 }
@@ -0,0 +1,58 @@
+-- Indexes Hibernate cannot express, applied after ddl-auto on every start (see spring.sql.init.* in application.properties)
+
+-- Low-stock listing and alerts: only the (few) rows below their minimum are in the index,
+-- so "WHERE stock < min_stock ORDER BY id" pages stay cheap on a large catalog
+CREATE INDEX IF NOT EXISTS idx_product_low_stock ON product (id) WHERE stock < min_stock;
+
+-- Name-sorted listings order by coalesce(name, '') then id (ProductPageQueriesImpl)
+CREATE INDEX IF NOT EXISTS idx_product_name_id ON product ((coalesce(name, '')), id);
+
+-- Stock ledger rows arrive in created_at order and are never updated, so a BRIN index covers
+-- "movements between two times" (daily compaction, report tail) in a few pages of index
+CREATE INDEX IF NOT EXISTS idx_stock_movement_created_brin ON stock_movement USING brin (created_at);
+
+-- Products that existed before the ledger get their current stock as an opening movement. Only on the first
+-- start with the ledger: after it every product, old or newly added, has an OPENING row, and the anti-join
+-- over the whole catalog is not repeated on every start
+INSERT INTO stock_movement (product_id, type, quantity, stock_after, unit_price, invoice_id, created_at)
+SELECT p.id, 'OPENING', p.stock, p.stock, p.price, NULL, coalesce(p.created_at, now())
+FROM product p
+WHERE NOT EXISTS (SELECT 1 FROM stock_movement m WHERE m.product_id = p.id)
+  AND NOT EXISTS (SELECT 1 FROM stock_movement WHERE type = 'OPENING');
+
+-- Product, supplier, invoice and invoice line ids used to be identity columns and now come from pooled-lo
+-- sequences. Drop the old identity/serial defaults so nothing inserts behind the sequences' back, and on the
+-- first start after the switch move each sequence Hibernate just created (never called yet) past the existing ids.
+-- ALTER TABLE takes an ACCESS EXCLUSIVE lock even when there is nothing to drop, so only columns that still have
+-- an identity or default are altered. The block is a plain quoted string (not $$) so Spring's script splitter
+-- leaves the semicolons inside it alone
+DO '
+DECLARE
+    col record;
+BEGIN
+    FOR col IN
+        SELECT table_name, is_identity = ''YES'' AS was_identity
+        FROM information_schema.columns
+        WHERE table_schema = current_schema() AND column_name = ''id''
+          AND table_name IN (''product'', ''supplier'', ''invoice'', ''invoice_line'')
+          AND (is_identity = ''YES'' OR column_default IS NOT NULL)
+    LOOP
+        IF col.was_identity THEN
+            EXECUTE format(''ALTER TABLE %I ALTER COLUMN id DROP IDENTITY'', col.table_name);
+        ELSE
+            EXECUTE format(''ALTER TABLE %I ALTER COLUMN id DROP DEFAULT'', col.table_name);
+        END IF;
+    END LOOP;
+END';
+
+SELECT setval('product_seq', (SELECT max(id) + 1 FROM product), false)
+FROM product_seq WHERE NOT is_called AND EXISTS (SELECT 1 FROM product);
+SELECT setval('supplier_seq', (SELECT max(id) + 1 FROM supplier), false)
+FROM supplier_seq WHERE NOT is_called AND EXISTS (SELECT 1 FROM supplier);
+SELECT setval('invoice_seq', (SELECT max(id) + 1 FROM invoice), false)
+FROM invoice_seq WHERE NOT is_called AND EXISTS (SELECT 1 FROM invoice);
+SELECT setval('invoice_line_seq', (SELECT max(id) + 1 FROM invoice_line), false)
+FROM invoice_line_seq WHERE NOT is_called AND EXISTS (SELECT 1 FROM invoice_line);
+
+-- The change feed pages by updated_at, rows from before it was stamped on every write get their creation time
+UPDATE product SET updated_at = coalesce(created_at, now()) WHERE updated_at IS NULL;
@@ -0,0 +1,119 @@
+package com.example.demo.Service;
+
+import com.example.demo.Models.Product;
+import com.example.demo.Models.Supplier;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.SupplierRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class CatalogCacheTests {
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private SupplierService supplierService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @MockBean
+    private MailService mailService;
+
+    @AfterEach
+    void cleanUp() {
+        productRepository.deleteAll();
+        supplierRepository.deleteAll();
+    }
+
+    @Test
+    void writesAreVisibleThroughTheCache() {
+        Supplier supplier = new Supplier();
+        supplier.setName("Acme");
+        supplier = supplierRepository.save(supplier);
+        Product pen = productService.addProduct(product("Pen", 10, supplier));
+
+        Product cached = catalogCache.findProduct(pen.getId()).orElseThrow();
+        assertSame(cached, catalogCache.findProduct(pen.getId()).orElseThrow());
+
+        productService.updateStock(pen.getId(), 4);
+        assertEquals(6, catalogCache.findProduct(pen.getId()).orElseThrow().getStock());
+        productService.restock(pen.getId(), 10);
+        assertEquals(16, catalogCache.findProduct(pen.getId()).orElseThrow().getStock());
+
+        Supplier renamed = new Supplier();
+        renamed.setName("Acme Traders");
+        supplierService.updateSupplier(supplier.getId(), renamed);
+        assertEquals("Acme Traders", supplierService.getSupplierById(supplier.getId()).getName());
+        assertEquals("Acme Traders", catalogCache.findProduct(pen.getId()).orElseThrow().getSupplier().getName());
+
+        productService.deleteProduct(pen.getId());
+        assertTrue(catalogCache.findProduct(pen.getId()).isEmpty());
+    }
+
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        long id = productRepository.save(product("Hot SKU", 100, null)).getId();
+        long loadsBefore = loads();
+
+        int threads = 64;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Product>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return catalogCache.findProduct(id).orElseThrow();
+                }));
+            }
+            start.countDown();
+            Product first = results.get(0).get();
+            for (Future<Product> result : results) {
+                assertSame(first, result.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(1, loads() - loadsBefore);
+    }
+
+    @SuppressWarnings("unchecked")
+    private long loads() {
+        return (long) ((Map<String, Object>) catalogCache.stats().get("products")).get("loads");
+    }
+
+    private static Product product(String name, int stock, Supplier supplier) {
+        Product product = new Product();
+        product.setName(name);
+        product.setStock(stock);
+        product.setMinStock(1);
+        product.setPrice(1);
+        product.setSupplier(supplier);
+        return product;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.demo.Service;
+
+import com.example.demo.Models.Product;
+import com.example.demo.dto.ProductChanges;
+import com.example.demo.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class CatalogChangesTests {
+
+    @Autowired
+    private CatalogChanges catalogChanges;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @MockBean
+    private MailService mailService;
+
+    @BeforeEach
+    void noCommitLag() {
+        ReflectionTestUtils.setField(catalogChanges, "commitLagMs", 0L);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        ReflectionTestUtils.setField(catalogChanges, "commitLagMs", 5000L);
+        productService.deleteAll();
+    }
+
+    @Test
+    void aFullSyncPagesThroughEveryProductThenOnlyChangesFollow() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(createProduct("Product " + i).getId());
+        }
+        Thread.sleep(5);
+
+        List<Long> synced = new ArrayList<>();
+        ProductChanges page = catalogChanges.changesSince(null, 2);
+        assertTrue(page.reset());
+        synced.addAll(page.changed().stream().map(Product::getId).toList());
+        while (page.hasMore()) {
+            page = catalogChanges.changesSince(page.next(), 2);
+            assertFalse(page.reset());
+            synced.addAll(page.changed().stream().map(Product::getId).toList());
+        }
+        assertEquals(ids, synced.stream().sorted().toList());
+
+        Thread.sleep(5);
+        Product renamed = productRepository.findById(ids.get(1)).orElseThrow();
+        renamed.setName("Renamed");
+        productRepository.save(renamed);
+        productService.deleteProduct(ids.get(3));
+        Thread.sleep(5);
+
+        ProductChanges delta = catalogChanges.changesSince(page.next(), 100);
+        assertEquals(List.of(ids.get(1)), delta.changed().stream().map(Product::getId).toList());
+        assertEquals("Renamed", delta.changed().get(0).getName());
+        assertEquals(List.of(ids.get(3)), delta.deleted());
+        assertFalse(delta.hasMore());
+
+        Thread.sleep(5);
+        ProductChanges nothing = catalogChanges.changesSince(delta.next(), 100);
+        assertTrue(nothing.changed().isEmpty());
+        assertTrue(nothing.deleted().isEmpty());
+    }
+
+    @Test
+    void aFullSyncReportsProductsDeletedWhileItPaged() throws Exception {
+        long first = createProduct("Pen").getId();
+        createProduct("Ink");
+        createProduct("Tea");
+        Thread.sleep(5);
+
+        ProductChanges page = catalogChanges.changesSince(null, 1);
+        assertEquals(List.of(first), page.changed().stream().map(Product::getId).toList());
+        productService.deleteProduct(first);
+        List<Long> deleted = new ArrayList<>(page.deleted());
+        while (page.hasMore()) {
+            page = catalogChanges.changesSince(page.next(), 1);
+            deleted.addAll(page.deleted());
+        }
+        assertEquals(List.of(first), deleted);
+    }
+
+    @Test
+    void theEtagMovesWithWritesAndDeletesAndWaitsOutTheCommitLag() throws Exception {
+        long id = createProduct("Tea").getId();
+        Thread.sleep(5);
+        String first = catalogChanges.etag().orElseThrow();
+        assertEquals(first, catalogChanges.etag().orElseThrow());
+
+        productService.deleteProduct(id);
+        Thread.sleep(5);
+        String second = catalogChanges.etag().orElseThrow();
+        assertNotEquals(first, second);
+
+        ReflectionTestUtils.setField(catalogChanges, "commitLagMs", 60000L);
+        createProduct("Coffee");
+        assertTrue(catalogChanges.etag().isEmpty());
+    }
+
+    @Test
+    void aGarbledTokenIsRejected() {
+        assertThrows(RuntimeException.class, () -> catalogChanges.changesSince("not a token", 10));
+    }
+
+    private Product createProduct(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setStock(5);
+        product.setMinStock(0);
+        product.setPrice(10);
+        return productRepository.save(product);
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.demo.Service;
+
+import com.example.demo.Models.Invoice;
+import com.example.demo.Models.Product;
+import com.example.demo.dto.CheckoutRequest;
+import com.example.demo.repository.IdempotencyRecordRepository;
+import com.example.demo.repository.InvoiceRepository;
+import com.example.demo.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class IdempotentRequestsTests {
+
+    @Autowired
+    private IdempotentRequests idempotentRequests;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    @MockBean
+    private MailService mailService;
+
+    @AfterEach
+    void cleanUp() {
+        ReflectionTestUtils.setField(idempotentRequests, "persist", false);
+        idempotentRequests.init();
+        recordRepository.deleteAll();
+        invoiceRepository.deleteAll();
+        productService.deleteAll();
+    }
+
+    @Test
+    void aRetriedSaleSellsOnceAndAFailedOneRunsAgain() {
+        long id = createProduct("Pen", 10).getId();
+        String request = "PUT /api/products/" + id + "/sell/3";
+
+        for (int i = 0; i < 3; i++) {
+            idempotentRequests.execute("sale-1", request, String.class, () -> {
+                productService.updateStock(id, 3);
+                return "sold";
+            });
+        }
+        assertEquals(7, productRepository.findById(id).orElseThrow().getStock());
+        assertThrows(RuntimeException.class, () -> idempotentRequests.execute("sale-1",
+                "PUT /api/products/" + id + "/sell/4", String.class, () -> "sold"));
+
+        AtomicInteger attempts = new AtomicInteger();
+        assertThrows(RuntimeException.class, () -> idempotentRequests.execute("sale-2", request, String.class, () -> {
+            attempts.incrementAndGet();
+            throw new RuntimeException("Insufficient stock");
+        }));
+        assertEquals("sold", idempotentRequests.execute("sale-2", request, String.class, () -> {
+            attempts.incrementAndGet();
+            return "sold";
+        }));
+        assertEquals(2, attempts.get());
+
+        // no key, no dedupe
+        idempotentRequests.execute(null, request, String.class, () -> {
+            productService.updateStock(id, 3);
+            return "sold";
+        });
+        idempotentRequests.execute(null, request, String.class, () -> {
+            productService.updateStock(id, 3);
+            return "sold";
+        });
+        assertEquals(1, productRepository.findById(id).orElseThrow().getStock());
+    }
+
+    @Test
+    void duplicatesInFlightWaitForTheFirstRequest() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> first = pool.submit(() -> idempotentRequests.execute("restock-1", "restock", String.class,
+                    () -> {
+                        runs.incrementAndGet();
+                        started.countDown();
+                        await(release);
+                        return "restocked " + runs.get();
+                    }));
+            started.await(5, TimeUnit.SECONDS);
+            List<Future<String>> duplicates = List.of(
+                    pool.submit(() -> idempotentRequests.execute("restock-1", "restock", String.class,
+                            () -> "ran " + runs.incrementAndGet())),
+                    pool.submit(() -> idempotentRequests.execute("restock-1", "restock", String.class,
+                            () -> "ran " + runs.incrementAndGet())));
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals("restocked 1", first.get(5, TimeUnit.SECONDS));
+            for (Future<String> duplicate : duplicates) {
+                assertEquals("restocked 1", duplicate.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, runs.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void persistedResponsesAnswerRetriesAfterARestart() {
+        ReflectionTestUtils.setField(idempotentRequests, "persist", true);
+        Product pen = createProduct("Pen", 10);
+        CheckoutRequest checkout = new CheckoutRequest();
+        CheckoutRequest.Item item = new CheckoutRequest.Item();
+        item.setProductId(pen.getId());
+        item.setQuantity(2);
+        checkout.setItems(List.of(item));
+        String request = idempotentRequests.describe("POST /api/invoices", checkout);
+
+        Invoice invoice = idempotentRequests.execute("bill-1", request, Invoice.class,
+                () -> invoiceService.checkout(checkout));
+        // a fresh in-memory map, as after a restart
+        idempotentRequests.init();
+        Invoice replayed = idempotentRequests.execute("bill-1", request, Invoice.class,
+                () -> invoiceService.checkout(checkout));
+
+        assertEquals(invoice.getId(), replayed.getId());
+        assertEquals(invoice.getTotal(), replayed.getTotal());
+        assertEquals(1, replayed.getLines().size());
+        assertEquals(8, productRepository.findById(pen.getId()).orElseThrow().getStock());
+        assertEquals(1, invoiceRepository.count());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Product createProduct(String name, int stock) {
+        Product product = new Product();
+        product.setName(name);
+        product.setStock(stock);
+        product.setMinStock(0);
+        product.setPrice(10);
+        return productRepository.save(product);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demo.Service;
+
+import com.example.demo.Models.Invoice;
+import com.example.demo.Models.Product;
+import com.example.demo.dto.CheckoutRequest;
+import com.example.demo.repository.InvoiceRepository;
+import com.example.demo.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class InvoiceServiceTests {
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @MockBean
+    private MailService mailService;
+
+    @AfterEach
+    void cleanUp() {
+        invoiceRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void checkoutSellsAllLinesAndComputesGst() {
+        Product pen = createProduct("Pen", 50, 10.0);
+        Product book = createProduct("Book", 20, 45.5);
+
+        Invoice invoice = invoiceService.checkout(request(
+                book.getId(), 2,
+                pen.getId(), 3,
+                pen.getId(), 1));
+
+        assertEquals(2, invoice.getLines().size());
+        assertEquals(131.0, invoice.getSubtotal());
+        assertEquals(11.79, invoice.getCgst());
+        assertEquals(11.79, invoice.getSgst());
+        assertEquals(154.58, invoice.getTotal());
+        assertEquals(46, productRepository.findById(pen.getId()).orElseThrow().getStock());
+        assertEquals(18, productRepository.findById(book.getId()).orElseThrow().getStock());
+        assertEquals(1, invoiceRepository.count());
+    }
+
+    @Test
+    void checkoutIsAllOrNothing() {
+        Product pen = createProduct("Pen", 50, 10.0);
+        Product book = createProduct("Book", 1, 45.5);
+
+        assertThrows(RuntimeException.class, () -> invoiceService.checkout(request(
+                pen.getId(), 5,
+                book.getId(), 2)));
+
+        assertEquals(50, productRepository.findById(pen.getId()).orElseThrow().getStock());
+        assertEquals(1, productRepository.findById(book.getId()).orElseThrow().getStock());
+        assertEquals(0, invoiceRepository.count());
+    }
+
+    private Product createProduct(String name, int stock, double price) {
+        Product product = new Product();
+        product.setName(name);
+        product.setStock(stock);
+        product.setMinStock(0);
+        product.setPrice(price);
+        return productRepository.save(product);
+    }
+
+    // pairs of productId, quantity
+    private CheckoutRequest request(long... idsAndQuantities) {
+        List<CheckoutRequest.Item> items = new ArrayList<>();
+        for (int i = 0; i < idsAndQuantities.length; i += 2) {
+            CheckoutRequest.Item item = new CheckoutRequest.Item();
+            item.setProductId(idsAndQuantities[i]);
+            item.setQuantity((int) idsAndQuantities[i + 1]);
+            items.add(item);
+        }
+        CheckoutRequest request = new CheckoutRequest();
+        request.setItems(items);
+        return request;
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.demo.Service;
+
+import com.example.demo.Models.Product;
+import com.example.demo.Models.Supplier;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.SupplierRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = {
+        "inventory.alerts.window-ms=300",
+        "inventory.alerts.initial-backoff-ms=50"
+})
+class LowStockNotifierTests {
+
+    // stands in for the SMTP server
+    @MockBean
+    private JavaMailSender mailSender;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private LowStockNotifier lowStockNotifier;
+
+    // discards this test's alerts still waiting for their window; a digest already being sent (the slow one)
+    // can still reach the mock, so every stub and verify below only looks at its own supplier's mail
+    @AfterEach
+    void cleanUp() {
+        lowStockNotifier.clear(productRepository.findAll().stream().map(Product::getId).toList());
+        productRepository.deleteAll();
+        supplierRepository.deleteAll();
+    }
+
+    @Test
+    void alertsAreCoalescedIntoOneDigestPerSupplier() {
+        Supplier supplier = createSupplier("digest@example.com");
+        Product pen = createProduct("Pen", supplier);
+        Product ink = createProduct("Ink", supplier);
+
+        productService.updateStock(pen.getId(), 5);
+        productService.updateStock(pen.getId(), 1);
+        productService.updateStock(ink.getId(), 6);
+
+        verify(mailSender, timeout(5000).times(1)).send(argThat(to("digest@example.com")));
+        ArgumentCaptor<SimpleMailMessage> mails = ArgumentCaptor.forClass(SimpleMailMessage.class);
+        verify(mailSender, atLeastOnce()).send(mails.capture());
+        SimpleMailMessage digest = mails.getAllValues().stream().filter(to("digest@example.com")::matches)
+                .findFirst().orElseThrow();
+        assertTrue(digest.getText().contains("\"Pen\": 4 units left"));
+        assertTrue(digest.getText().contains("\"Ink\": 4 units left"));
+    }
+
+    @Test
+    void failedDigestIsRetried() {
+        doThrow(new MailSendException("smtp down"))
+                .doNothing()
+                .when(mailSender).send(argThat(to("retry@example.com")));
+        Product pen = createProduct("Pen", createSupplier("retry@example.com"));
+
+        productService.updateStock(pen.getId(), 5);
+
+        verify(mailSender, timeout(5000).times(2)).send(argThat(to("retry@example.com")));
+    }
+
+    @Test
+    void unexpectedSendErrorCountsAsAFailedAttempt() {
+        // not a MailException, so it comes out of MailService instead of being turned into false
+        doThrow(new IllegalStateException("sender pool shut down"))
+                .doNothing()
+                .when(mailSender).send(argThat(to("unexpected@example.com")));
+        Product pen = createProduct("Pen", createSupplier("unexpected@example.com"));
+
+        productService.updateStock(pen.getId(), 5);
+
+        verify(mailSender, timeout(5000).times(2)).send(argThat(to("unexpected@example.com")));
+    }
+
+    @Test
+    void slowMailDoesNotSlowDownSells() {
+        doAnswer(invocation -> {
+            Thread.sleep(2000);
+            return null;
+        }).when(mailSender).send(argThat(to("slow@example.com")));
+        Product pen = createProduct("Pen", createSupplier("slow@example.com"));
+
+        long[] latencies = new long[8];
+        for (int i = 0; i < latencies.length; i++) {
+            long start = System.nanoTime();
+            productService.updateStock(pen.getId(), 1);
+            latencies[i] = System.nanoTime() - start;
+        }
+
+        // every sell is below minimum and alerts, none of them may wait on the 2s mail
+        Arrays.sort(latencies);
+        assertTrue(latencies[latencies.length - 1] < 1_000_000_000L,
+                "slowest sell took " + latencies[latencies.length - 1] / 1_000_000 + "ms");
+    }
+
+    @Test
+    void restocksWithoutAPendingAlertLeaveNothingBehind() throws InterruptedException {
+        lowStockNotifier.clear(LongStream.rangeClosed(1_000_000, 1_005_000).boxed().toList());
+
+        // the worker drops clear marks that no queued or pending alert is left to match
+        long deadline = System.currentTimeMillis() + 5000;
+        while (lowStockNotifier.pendingClears() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, lowStockNotifier.pendingClears());
+    }
+
+    private static ArgumentMatcher<SimpleMailMessage> to(String email) {
+        return mail -> mail != null && mail.getTo()[0].equals(email);
+    }
+
+    private Supplier createSupplier(String email) {
+        Supplier supplier = new Supplier();
+        supplier.setName("Acme");
+        supplier.setEmail(email);
+        return supplierRepository.save(supplier);
+    }
+
+    private Product createProduct(String name, Supplier supplier) {
+        Product product = new Product();
+        product.setName(name);
+        product.setStock(10);
+        product.setMinStock(8);
+        product.setPrice(5);
+        product.setSupplier(supplier);
+        return productRepository.save(product);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.Service;
+
+import com.example.demo.Models.Product;
+import com.example.demo.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// the test properties replace application.properties, so expose the scrape endpoint and statistics here;
+// a separate application context, so it gets its own database instead of dropping the shared one's tables
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:metrics;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "management.endpoints.web.exposure.include=prometheus",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session.events.log=false"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @MockBean
+    private MailService mailService;
+
+    @AfterEach
+    void cleanUp() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void sellOutcomesAndStatementsPerRequestAreRecorded() throws Exception {
+        long id = createProduct(3).getId();
+        double okBefore = sells("ok");
+        double shortBefore = sells("insufficient");
+        String uri = "/api/products/{id}/sell/{soldQuantity}";
+        long requestsBefore = statementSummaryCount(uri);
+
+        mockMvc.perform(put("/api/products/" + id + "/sell/2")).andExpect(status().isOk());
+        // the controller lets the exception escape, MockMvc rethrows it
+        assertThrows(Exception.class, () -> mockMvc.perform(put("/api/products/" + id + "/sell/2")));
+
+        assertEquals(okBefore + 1, sells("ok"));
+        assertEquals(shortBefore + 1, sells("insufficient"));
+        assertEquals(requestsBefore + 2, statementSummaryCount(uri));
+        assertTrue(registry.get("inventory.db.statements").tag("uri", uri).summary().max() > 0);
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(scrape.contains("inventory_sell_total{"));
+        assertTrue(scrape.contains("inventory_alerts_queue_depth"));
+        assertTrue(scrape.contains("cache_gets_total{"));
+        assertTrue(scrape.contains("hikaricp_connections_acquire_seconds"));
+        assertTrue(scrape.contains("hibernate_statements_total"));
+    }
+
+    private double sells(String outcome) {
+        return registry.get("inventory.sell").tag("path", "single").tag("outcome", outcome).counter().count();
+    }
+
+    private long statementSummaryCount(String uri) {
+        var summary = registry.find("inventory.db.statements").tag("uri", uri).summary();
+        return summary == null ? 0 : summary.count();
+    }
+
+    private Product createProduct(int stock) {
+        Product product = new Product();
+        product.setName("Metered");
+        product.setStock(stock);
+        product.setMinStock(0);
+        product.setPrice(1);
+        return productRepository.save(product);
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.demo.Service;
+
+import com.example.demo.Models.Product;
+import com.example.demo.Models.Supplier;
+import com.example.demo.dto.ImportResult;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.SupplierRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Sort;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ProductCsvServiceTests {
+    private final Logger log = LoggerFactory.getLogger(ProductCsvServiceTests.class);
+
+    @Autowired
+    private ProductCsvService productCsvService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @MockBean
+    private MailService mailService;
+
+    @AfterEach
+    void cleanUp() {
+        productRepository.deleteAllInBatch();
+        supplierRepository.deleteAll();
+    }
+
+    @Test
+    void importSkipsBadLinesAndExportRoundTrips() {
+        Supplier supplier = new Supplier();
+        supplier.setName("Acme");
+        supplier.setEmail("orders@acme.test");
+        supplier = supplierRepository.save(supplier);
+
+        String csv = "Name,Stock,Min Stock,Price,Supplier\n"
+                + "Pen,10,5,2.5,ORDERS@acme.test\n"
+                + "\"Ink, blue \"\"royal\"\"\",3,5,4,orders@acme.test\n"
+                + "\n"
+                + "Pad,abc,1,1,\n"
+                + "Cap,1,1,1,nobody@acme.test\n"
+                + "\"Multi\nline\",0,0,0,N/A\n";
+        ImportResult result = productCsvService.importCsv(stream(csv));
+
+        assertEquals(3, result.imported());
+        assertEquals(2, result.rejected());
+        assertEquals(List.of("Line 5: stock is not a whole number: abc", "Line 6: Supplier Not Found: nobody@acme.test"),
+                result.errors());
+
+        List<Product> products = productRepository.findAll(Sort.by("id"));
+        assertEquals(List.of("Pen", "Ink, blue \"royal\"", "Multi\nline"), products.stream().map(Product::getName).toList());
+        assertEquals(supplier.getId(), products.get(1).getSupplier().getId());
+        assertEquals(null, products.get(2).getSupplier());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        productCsvService.exportCsv(out);
+        String exported = out.toString(StandardCharsets.UTF_8);
+        assertTrue(exported.startsWith(ProductCsvService.HEADER + "\n" + products.get(0).getId() + ",Pen,10,5,2.5,Healthy,"
+                + supplier.getId() + ",orders@acme.test\n"));
+
+        // our own export imports again as new products
+        productRepository.deleteAll();
+        ImportResult again = productCsvService.importCsv(stream(exported));
+        assertEquals(3, again.imported());
+        assertEquals(0, again.rejected());
+        assertEquals("Ink, blue \"royal\"", productRepository.findAll(Sort.by("id")).get(1).getName());
+    }
+
+    @Test
+    void aBatchTheDatabaseRefusesIsReportedNotThrown() {
+        // parses fine, but is longer than the name column
+        String csv = "name,stock,minStock,price\n"
+                + "Pen,1,1,1\n"
+                + "x".repeat(300) + ",1,1,1\n"
+                + "Pad,1,1,1\n";
+        ImportResult result = productCsvService.importCsv(stream(csv));
+
+        assertEquals(0, result.imported());
+        assertEquals(3, result.rejected());
+        assertEquals(1, result.errors().size());
+        assertTrue(result.errors().get(0).startsWith("Lines 2-4: 3 rows not imported: "), result.errors().get(0));
+        assertEquals(0, productRepository.count());
+    }
+
+    @Test
+    void importsLargeFilesInBatches() {
+        int rows = 100_000;
+        long started = System.currentTimeMillis();
+        ImportResult result = productCsvService.importCsv(generated(rows));
+        log.info("csv import: {} rows in {} ms", rows, System.currentTimeMillis() - started);
+
+        assertEquals(rows, result.imported());
+        assertEquals(rows, productRepository.count());
+    }
+
+    @Test
+    void importedIdsComeFromTheSameSequenceBlocksAsSavedProducts() {
+        long first = save("Saved before").getId();
+        assertEquals(120, productCsvService.importCsv(generated(120)).imported());
+        // the entity keeps drawing on its block of 50, the import took whole blocks of its own
+        long second = save("Saved after").getId();
+
+        assertEquals(first + 1, second);
+        List<Long> ids = productRepository.findAll().stream().map(Product::getId).toList();
+        assertEquals(122, ids.size());
+        assertEquals(122, ids.stream().distinct().count());
+    }
+
+    private Product save(String name) {
+        Product product = new Product();
+        product.setName(name);
+        return productRepository.save(product);
+    }
+
+    private static InputStream stream(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // produces the CSV on the fly so the test itself does not hold the file in memory
+    private static InputStream generated(int rows) {
+        return new InputStream() {
+            private int row = -1;
+            private byte[] current = new byte[0];
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                while (position == current.length) {
+                    if (row == rows) {
+                        return -1;
+                    }
+                    String line = row < 0 ? "name,stock,minStock,price\n" : "item " + row + "," + (row % 50) + ",10,9.5\n";
+                    current = line.getBytes(StandardCharsets.UTF_8);
+                    position = 0;
+                    row++;
+                }
+                return current[position++];
+            }
+        };
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo.Service;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSearchIndexTests {
+    private final Logger log = LoggerFactory.getLogger(ProductSearchIndexTests.class);
+
+    private static final String[] BRANDS = {"amul", "tata", "nestle", "britannia", "parle", "dabur", "haldiram",
+            "mother dairy", "fortune", "aashirvaad", "colgate", "surf", "lux", "dettol", "maggi", "kissan"};
+    private static final String[] ITEMS = {"milk", "butter", "cheese", "salt", "tea", "coffee", "biscuit", "atta",
+            "rice", "oil", "soap", "shampoo", "noodles", "ketchup", "honey", "ghee", "paneer", "curd", "bread", "jam"};
+    private static final String[] SIZES = {"100g", "200g", "500g", "1kg", "5kg", "250ml", "500ml", "1l", "pack of 6"};
+
+    private static String name(Random random) {
+        return BRANDS[random.nextInt(BRANDS.length)] + " " + ITEMS[random.nextInt(ITEMS.length)] + " "
+                + SIZES[random.nextInt(SIZES.length)] + " " + Integer.toString(random.nextInt(1 << 20), 36);
+    }
+
+    @Test
+    void ranksExactThenPrefixThenWordThenSubstring() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.put(1, "Buttermilk");
+        index.put(2, "Amul Milk");
+        index.put(3, "Milk");
+        index.put(4, "Milkshake Powder");
+        index.put(5, "Soap");
+
+        List<Long> ids = index.search("MILK", 10).stream().map(ProductSearchIndex.Hit::id).toList();
+        assertEquals(List.of(3L, 4L, 2L, 1L), ids);
+        assertEquals(List.of(3L, 4L), index.search("milk", 2).stream().map(ProductSearchIndex.Hit::id).toList());
+        // one and two letter queries match word starts only
+        assertEquals(List.of(3L, 4L, 2L), index.search("m", 10).stream().map(ProductSearchIndex.Hit::id).toList());
+        assertEquals(List.of(5L), index.search("so", 10).stream().map(ProductSearchIndex.Hit::id).toList());
+        assertTrue(index.search("xyz", 10).isEmpty());
+        assertTrue(index.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    void renamesAndDeletesDropOldNames() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        for (int i = 0; i < 5000; i++) {
+            index.put(i, "item " + i);
+        }
+        index.put(7, "Gift Card");
+        // enough deletes to trigger compaction
+        for (int i = 100; i < 4000; i++) {
+            index.remove(i);
+        }
+
+        assertEquals(1100, index.size());
+        assertTrue(index.search("item 7", 10).stream().noneMatch(h -> h.id() == 7));
+        assertEquals(List.of(7L), index.search("gift", 10).stream().map(ProductSearchIndex.Hit::id).toList());
+        assertTrue(index.search("item 150", 10).isEmpty());
+        assertEquals(4999L, index.search("item 4999", 10).get(0).id());
+    }
+
+    @Test
+    void lookupsStayFastOnAMillionNames() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        Random random = new Random(42);
+        int products = 1_000_000;
+        long loadStart = System.nanoTime();
+        for (int i = 1; i <= products; i++) {
+            index.put(i, name(random));
+        }
+        long loadMs = (System.nanoTime() - loadStart) / 1_000_000;
+
+        // what a cashier types: partial brands and items, 1 to 8 characters
+        String[] queries = new String[2000];
+        for (int i = 0; i < queries.length; i++) {
+            String source = random.nextBoolean() ? BRANDS[random.nextInt(BRANDS.length)] : ITEMS[random.nextInt(ITEMS.length)];
+            queries[i] = source.substring(0, 1 + random.nextInt(Math.min(8, source.length())));
+        }
+        for (int i = 0; i < 500; i++) {
+            index.search(queries[i], 10);
+        }
+
+        long[] nanos = new long[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            long start = System.nanoTime();
+            List<ProductSearchIndex.Hit> hits = index.search(queries[i], 10);
+            nanos[i] = System.nanoTime() - start;
+            assertEquals(10, hits.size());
+        }
+        Arrays.sort(nanos);
+        double p50 = nanos[nanos.length / 2] / 1e6;
+        double p95 = nanos[(int) (nanos.length * 0.95)] / 1e6;
+        log.info("search index: {} names loaded in {} ms, p50 {} ms, p95 {} ms", products, loadMs, p50, p95);
+        assertTrue(p95 < 5, "p95 " + p95 + " ms");
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.demo.Service;
+
+import com.example.demo.Models.Product;
+import com.example.demo.Models.Supplier;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.SupplierRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class ProductServiceConcurrencyTests {
+    private final Logger log = LoggerFactory.getLogger(ProductServiceConcurrencyTests.class);
+
+    private static final int THREADS = 256;
+    private static final int SELLS_PER_THREAD = 20;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @MockBean
+    private MailService mailService;
+
+    @AfterEach
+    void cleanUp() {
+        productRepository.deleteAll();
+        supplierRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentSellsLoseNoUpdates() throws Exception {
+        int initialStock = THREADS * SELLS_PER_THREAD;
+        long id = createProduct(initialStock, 0).getId();
+
+        double atomicRate = hammer(() -> productService.updateStock(id, 1));
+        assertEquals(0, productRepository.findById(id).orElseThrow().getStock());
+
+        // same load through the old findById -> save read-modify-write, for comparison only
+        long legacyId = createProduct(initialStock, 0).getId();
+        double legacyRate = hammer(() -> {
+            Product product = productRepository.findById(legacyId).orElseThrow();
+            product.setStock(product.getStock() - 1);
+            productRepository.save(product);
+        });
+        int legacyLost = productRepository.findById(legacyId).orElseThrow().getStock();
+
+        log.info("atomic sell: {} sells/sec, read-modify-write: {} sells/sec ({} lost updates)",
+                Math.round(atomicRate), Math.round(legacyRate), legacyLost);
+    }
+
+    @Test
+    void concurrentSellsNeverOversell() throws Exception {
+        long id = createProduct(100, 0).getId();
+        AtomicInteger sold = new AtomicInteger();
+
+        hammer(() -> {
+            try {
+                productService.updateStock(id, 1);
+                sold.incrementAndGet();
+            } catch (RuntimeException ignored) {
+                // insufficient stock
+            }
+        });
+
+        assertEquals(100, sold.get());
+        assertEquals(0, productRepository.findById(id).orElseThrow().getStock());
+    }
+
+    private Product createProduct(int stock, int minStock) {
+        Supplier supplier = new Supplier();
+        supplier.setName("Acme");
+        supplier.setEmail("acme@example.com");
+        supplier = supplierRepository.save(supplier);
+
+        Product product = new Product();
+        product.setName("Hot SKU");
+        product.setStock(stock);
+        product.setMinStock(minStock);
+        product.setPrice(10);
+        product.setSupplier(supplier);
+        return productRepository.save(product);
+    }
+
+    // runs the action SELLS_PER_THREAD times from THREADS threads at once, returns calls/sec
+    private double hammer(Runnable sell) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < SELLS_PER_THREAD; i++) {
+                    sell.run();
+                }
+                return null;
+            }));
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - began;
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+        return THREADS * SELLS_PER_THREAD / (elapsed / 1_000_000_000.0);
+    }
+}
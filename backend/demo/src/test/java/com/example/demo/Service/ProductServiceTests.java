@@ -0,0 +1,250 @@
+package com.example.demo.Service;
+
+import com.example.demo.Models.Product;
+import com.example.demo.Models.Supplier;
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.ProductCsvRow;
+import com.example.demo.dto.ProductSummary;
+import com.example.demo.dto.ReceiptRequest;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.StockLevel;
+import com.example.demo.repository.SupplierRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ProductServiceTests {
+    private final Logger log = LoggerFactory.getLogger(ProductServiceTests.class);
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private StockSlots stockSlots;
+
+    @MockBean
+    private MailService mailService;
+
+    @AfterEach
+    void cleanUp() {
+        productService.deleteAll();
+        supplierRepository.deleteAll();
+    }
+
+    @Test
+    void lowStockIsPagedByIdCursor() {
+        List<Long> lowIds = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            lowIds.add(createProduct("low-" + i, 1, 5).getId());
+            createProduct("healthy-" + i, 5, 5);
+        }
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<Product> page = productService.getStockLevelPage("low", cursor, 3);
+            page.items().forEach(p -> seen.add(p.getId()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(lowIds, seen);
+        assertEquals(3, pages);
+        assertEquals(7, productService.getLowStock().size());
+        assertEquals(7, productService.getHealthyStock().size());
+        assertNull(productService.getStockLevelPage("healthy", null, 10).nextCursor());
+        RuntimeException invalid = assertThrows(RuntimeException.class,
+                () -> productService.getStockLevelPage("low", "not-an-id", 3));
+        assertEquals("Invalid cursor", invalid.getMessage());
+    }
+
+    @Test
+    void viewPagesWalkTheWholeSortedListing() {
+        for (int i = 0; i < 11; i++) {
+            // duplicate stock values make the id tie-breaker matter
+            createProduct("item-" + (char) ('a' + i), i % 3, 1);
+        }
+        List<Long> expected = productService.viewProducts(null, null, "stock", "desc").stream()
+                .map(Product::getId).toList();
+
+        List<Long> full = new ArrayList<>();
+        List<Long> summary = new ArrayList<>();
+        String fullCursor = null;
+        String summaryCursor = null;
+        do {
+            CursorPage<Product> page = productService.viewProductPage(null, null, "stock", "desc", fullCursor, 4);
+            page.items().forEach(p -> full.add(p.getId()));
+            fullCursor = page.nextCursor();
+        } while (fullCursor != null);
+        do {
+            CursorPage<ProductSummary> page = productService.viewProductSummaryPage(null, null, "stock", "desc", summaryCursor, 4);
+            page.items().forEach(p -> summary.add(p.id()));
+            summaryCursor = page.nextCursor();
+        } while (summaryCursor != null);
+
+        assertEquals(11, full.size());
+        assertEquals(full, summary);
+        for (int i = 1; i < full.size(); i++) {
+            int prev = productRepository.findById(full.get(i - 1)).orElseThrow().getStock();
+            int next = productRepository.findById(full.get(i)).orElseThrow().getStock();
+            assertTrue(prev >= next);
+        }
+        assertEquals(expected.size(), full.size());
+        assertThrows(RuntimeException.class, () -> productService.viewProducts(null, null, "supplier.email", "asc"));
+    }
+
+    @Test
+    void typeaheadFollowsRenamesAndDeletes() {
+        Product milk = createProduct("Amul Milk 1L", 9, 5);
+        Product butter = createProduct("Amul Butter", 4, 5);
+        createProduct("Milkmaid", 3, 1);
+        searchIndex.rebuild();
+
+        assertEquals(List.of("Milkmaid", "Amul Milk 1L"),
+                productService.typeahead("milk", 10).stream().map(ProductSummary::name).toList());
+        assertEquals(4, productService.typeahead("butt", 10).get(0).stock());
+
+        Product renamed = productRepository.findById(butter.getId()).orElseThrow();
+        renamed.setName("Amul Cheese");
+        productService.updateProduct(butter.getId(), renamed);
+        productService.deleteProduct(milk.getId());
+
+        assertTrue(productService.typeahead("butt", 10).isEmpty());
+        assertEquals(List.of("Amul Cheese"), productService.typeahead("chee", 10).stream().map(ProductSummary::name).toList());
+        assertEquals(List.of("Milkmaid"), productService.searchByName("MILK").stream().map(Product::getName).toList());
+    }
+
+    @Test
+    void deliveriesRestockEveryLineOrNone() {
+        Supplier acme = createSupplier("acme@example.com");
+        Supplier other = createSupplier("other@example.com");
+        long rice = createProduct("Rice 5kg", 1, 5, acme).getId();
+        long dal = createProduct("Toor Dal", 0, 5, acme).getId();
+        long oil = createProduct("Oil 1L", 4, 2, acme).getId();
+        long salt = createProduct("Salt", 3, 1, other).getId();
+        stockSlots.split(oil, 2);
+
+        // repeated lines are summed, split products take their share through the slots
+        List<StockLevel> levels = productService.receiveDelivery(acme.getId(),
+                receipt(rice, 10, dal, 5, oil, 6, rice, 2));
+        assertEquals(Map.of(rice, 13, dal, 5, oil, 10), stocks(levels));
+        assertEquals(13, productRepository.findById(rice).orElseThrow().getStock());
+
+        // a line for another supplier's product rejects the whole delivery
+        assertThrows(RuntimeException.class, () -> productService.receiveDelivery(acme.getId(), receipt(rice, 1, salt, 1)));
+        assertThrows(RuntimeException.class, () -> productService.receiveDelivery(acme.getId(), receipt(rice, 1, -1, 1)));
+        assertThrows(RuntimeException.class, () -> productService.receiveDelivery(-1, receipt(rice, 1)));
+        assertEquals(13, productRepository.findById(rice).orElseThrow().getStock());
+        assertEquals(3, productRepository.findById(salt).orElseThrow().getStock());
+    }
+
+    @Test
+    void aLargeDeliveryCostsAFractionOfPerProductRestocks() {
+        Supplier acme = createSupplier("bulk@example.com");
+        List<ProductCsvRow> rows = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            rows.add(new ProductCsvRow(null, "bulk-" + i, i % 7, 5, 1, acme.getId(), null));
+        }
+        long[] ids = productRepository.insertBatch(rows);
+        long[] lines = new long[ids.length * 2];
+        for (int i = 0; i < ids.length; i++) {
+            lines[2 * i] = ids[i];
+            lines[2 * i + 1] = 10;
+        }
+        // a first delivery of the same size warms up the statements and the event listeners, the best
+        // of the next three keeps a GC pause or another context's background work out of the comparison
+        productService.receiveDelivery(acme.getId(), receipt(lines));
+        List<StockLevel> levels = null;
+        long delivery = Long.MAX_VALUE;
+        for (int run = 0; run < 3; run++) {
+            long started = System.nanoTime();
+            levels = productService.receiveDelivery(acme.getId(), receipt(lines));
+            delivery = Math.min(delivery, System.nanoTime() - started);
+        }
+
+        // the same units one PUT /restock at a time, timed on a tenth of the lines
+        long started = System.nanoTime();
+        for (int i = 0; i < ids.length / 10; i++) {
+            productService.restock(ids[i], 10);
+        }
+        long perProduct = (System.nanoTime() - started) * 10;
+        log.info("5000-line delivery: {} ms, as single restocks: ~{} ms", delivery / 1_000_000,
+                perProduct / 1_000_000);
+
+        assertEquals(5000, levels.size());
+        assertEquals(40, stocks(levels).get(ids[0]));
+        assertEquals(40 + 4999 % 7, stocks(levels).get(ids[4999]));
+        // an absolute bound would only measure the CI box, the in-memory H2 spends most of it on index upkeep
+        assertTrue(delivery * 3 < perProduct, "delivery " + delivery / 1_000_000 + "ms vs ~" + perProduct / 1_000_000 + "ms");
+    }
+
+    private static Map<Long, Integer> stocks(List<StockLevel> levels) {
+        return levels.stream().collect(Collectors.toMap(StockLevel::getId, StockLevel::getStock));
+    }
+
+    // pairs of productId, quantity
+    private static ReceiptRequest receipt(long... idsAndQuantities) {
+        List<ReceiptRequest.Item> items = new ArrayList<>();
+        for (int i = 0; i < idsAndQuantities.length; i += 2) {
+            ReceiptRequest.Item item = new ReceiptRequest.Item();
+            item.setProductId(idsAndQuantities[i]);
+            item.setQuantity((int) idsAndQuantities[i + 1]);
+            items.add(item);
+        }
+        ReceiptRequest request = new ReceiptRequest();
+        request.setReference("DN-1");
+        request.setItems(items);
+        return request;
+    }
+
+    private Supplier createSupplier(String email) {
+        Supplier supplier = new Supplier();
+        supplier.setName("Acme");
+        supplier.setEmail(email);
+        return supplierRepository.save(supplier);
+    }
+
+    private Product createProduct(String name, int stock, int minStock, Supplier supplier) {
+        Product product = new Product();
+        product.setName(name);
+        product.setStock(stock);
+        product.setMinStock(minStock);
+        product.setPrice(1);
+        product.setSupplier(supplier);
+        return productRepository.save(product);
+    }
+
+    private Product createProduct(String name, int stock, int minStock) {
+        Product product = new Product();
+        product.setName(name);
+        product.setStock(stock);
+        product.setMinStock(minStock);
+        product.setPrice(1);
+        return productRepository.save(product);
+    }
+}
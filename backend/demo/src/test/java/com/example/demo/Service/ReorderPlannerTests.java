@@ -0,0 +1,141 @@
+package com.example.demo.Service;
+
+import com.example.demo.Models.Product;
+import com.example.demo.Models.Supplier;
+import com.example.demo.dto.ReorderPlan;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.StockMovementRepository;
+import com.example.demo.repository.SupplierRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ReorderPlannerTests {
+
+    @Autowired
+    private ReorderPlanner reorderPlanner;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private MailService mailService;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    @AfterEach
+    void cleanUp() {
+        ReflectionTestUtils.setField(reorderPlanner, "model", null);
+        jdbcTemplate.update("DELETE FROM daily_stock_snapshot");
+        movementRepository.deleteAllInBatch();
+        productService.deleteAll();
+        supplierRepository.deleteAll();
+    }
+
+    @Test
+    void minStockFollowsSalesVelocityAndLeadTime() {
+        Supplier supplier = new Supplier();
+        supplier.setName("Acme");
+        supplier.setEmail("acme@example.com");
+        supplier.setLeadTimeDays(5);
+        supplier = supplierRepository.save(supplier);
+
+        long steady = createProduct("Rice 5kg", supplier, 30).getId();
+        long spiky = createProduct("Ice cream", supplier, 30).getId();
+        long fresh = createProduct("New snack", supplier, 3).getId();
+        long unlinked = createProduct("Loose tea", null, 30).getId();
+        for (int d = 30; d >= 1; d--) {
+            sold(steady, d, 10);
+            sold(spiky, d, d % 2 == 0 ? 0 : 20);
+            sold(unlinked, d, 2);
+            if (d <= 3) {
+                sold(fresh, d, 50);
+            }
+        }
+
+        catalogCache.findProduct(steady);
+        assertEquals(3, reorderPlanner.recomputeThrough(today.minusDays(1)));
+
+        // 10 a day with no spread over a 5 day lead time
+        ReorderPlan plan = reorderPlanner.plan(steady).orElseThrow();
+        assertEquals(10, plan.dailyDemand(), 1e-9);
+        assertEquals(50, plan.reorderPoint());
+        assertEquals(140, plan.orderQuantity());
+        assertEquals(50, minStock(steady));
+        // the min stock event drops cached products
+        assertEquals(50, catalogCache.findProduct(steady).orElseThrow().getMinStock());
+        // the same average with a wide spread needs safety stock on top
+        int spikyPoint = minStock(spiky);
+        assertTrue(spikyPoint > 70 && spikyPoint < 110, "spiky reorder point " + spikyPoint);
+        // no supplier lead time, the default of 7 days applies
+        assertEquals(14, minStock(unlinked));
+        // three days of history are not enough to replace the hand-typed minimum
+        assertEquals(22, minStock(fresh));
+        assertEquals(-1, reorderPlanner.plan(fresh).orElseThrow().reorderPoint());
+
+        // the next run folds in only the new day
+        sold(steady, 0, 40);
+        reorderPlanner.recomputeThrough(today);
+        plan = reorderPlanner.plan(steady).orElseThrow();
+        assertEquals(31, plan.historyDays());
+        assertEquals(today, plan.throughDay());
+        assertEquals(13, plan.dailyDemand(), 1e-9);
+        // 13 * 5 + 1.65 * sqrt(81 * 5)
+        assertEquals(99, minStock(steady));
+    }
+
+    private void sold(long productId, int daysAgo, int units) {
+        jdbcTemplate.update("INSERT INTO daily_stock_snapshot (product_id, snapshot_day, units_sold, units_restocked, "
+                        + "net_adjusted, sales_value, closing_stock, movements) VALUES (?, ?, ?, 0, 0, 0, 0, 1)",
+                productId, Date.valueOf(today.minusDays(daysAgo)), units);
+    }
+
+    private int minStock(long productId) {
+        return productRepository.findById(productId).orElseThrow().getMinStock();
+    }
+
+    // created with an opening movement on the day it was first sold
+    private Product createProduct(String name, Supplier supplier, int daysOld) {
+        Product product = new Product();
+        product.setName(name);
+        product.setStock(100);
+        product.setMinStock(22);
+        product.setPrice(10);
+        product.setSupplier(supplier);
+        product = productRepository.save(product);
+        Timestamp created = Timestamp.valueOf(today.minusDays(daysOld).atStartOfDay());
+        jdbcTemplate.update("UPDATE product SET created_at = ? WHERE id = ?", created, product.getId());
+        jdbcTemplate.update("INSERT INTO stock_movement (product_id, type, quantity, stock_after, unit_price, "
+                + "invoice_id, created_at) VALUES (?, 'OPENING', 100, 100, 10, NULL, ?)", product.getId(), created);
+        return product;
+    }
+}
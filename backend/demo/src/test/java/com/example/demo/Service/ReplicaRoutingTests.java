@@ -0,0 +1,106 @@
+package com.example.demo.Service;
+
+import com.example.demo.Models.Product;
+import com.example.demo.config.ReplicaRoutingDataSource;
+import com.example.demo.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// the "replica" is the primary's own in-memory database under a second pool, the other one is not there at all
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingTests.URL,
+        "inventory.replicas.urls=" + ReplicaRoutingTests.URL + ",jdbc:h2:tcp://localhost:1/missing",
+        "inventory.replicas.lag-query=SELECT 0",
+        "inventory.replicas.connection-timeout-ms=250",
+        "inventory.replicas.check-ms=3600000"
+})
+class ReplicaRoutingTests {
+    static final String URL = "jdbc:h2:mem:replicas;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRouting;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @MockBean
+    private MailService mailService;
+
+    // its rebuilds after deleteAll read through the primary in the background and would skew the counts
+    @MockBean
+    private ProductSearchIndex searchIndex;
+
+    @AfterEach
+    void cleanUp() {
+        ReplicaRoutingDataSource.unpin();
+        ReflectionTestUtils.setField(replicaRouting, "lagQuery", "SELECT 0");
+        replicaRouting.checkReplicas();
+        productService.deleteAll();
+    }
+
+    @Test
+    void readOnlyServiceReadsGoToAHealthyReplica() {
+        Product product = new Product();
+        product.setName("Pen");
+        product.setStock(1);
+        product.setMinStock(5);
+        product.setPrice(10);
+        productRepository.save(product);
+        replicaRouting.checkReplicas();
+        assertEquals(1, replicaRouting.availableReplicas());
+
+        double replica = connections("replica-1");
+        double primary = connections("primary");
+        // bare repository reads stay on the primary
+        productRepository.findAll();
+        assertEquals(replica, connections("replica-1"));
+
+        assertEquals(1, productService.getLowStock().size());
+        assertEquals(1, productService.sortedProducts("name").size());
+        assertEquals(replica + 2, connections("replica-1"));
+        assertEquals(0, connections("replica-2"));
+
+        ReplicaRoutingDataSource.pinToPrimary();
+        productService.getLowStock();
+        ReplicaRoutingDataSource.unpin();
+        assertEquals(replica + 2, connections("replica-1"));
+        assertEquals(primary + 2, connections("primary"));
+    }
+
+    @Test
+    void aLaggingReplicaIsSkippedUntilItCatchesUp() {
+        ReflectionTestUtils.setField(replicaRouting, "lagQuery", "SELECT 5000");
+        replicaRouting.checkReplicas();
+        assertEquals(0, replicaRouting.availableReplicas());
+
+        double fallback = connections("fallback");
+        productService.getLowStock();
+        assertEquals(fallback + 1, connections("fallback"));
+
+        ReflectionTestUtils.setField(replicaRouting, "lagQuery", "SELECT 0");
+        replicaRouting.checkReplicas();
+        double replica = connections("replica-1");
+        productService.getLowStock();
+        assertEquals(replica + 1, connections("replica-1"));
+        assertEquals(fallback + 1, connections("fallback"));
+    }
+
+    private double connections(String target) {
+        Counter counter = registry.find("inventory.datasource.connections").tag("target", target).counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
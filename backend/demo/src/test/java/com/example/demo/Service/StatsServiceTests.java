@@ -0,0 +1,76 @@
+package com.example.demo.Service;
+
+import com.example.demo.Models.Product;
+import com.example.demo.Models.Supplier;
+import com.example.demo.dto.StatsSnapshot;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.StockTotals;
+import com.example.demo.repository.SupplierRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "inventory.stats.rankings-refresh-ms=0")
+class StatsServiceTests {
+
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @MockBean
+    private MailService mailService;
+
+    @AfterEach
+    void cleanUp() {
+        productRepository.deleteAll();
+        supplierRepository.deleteAll();
+    }
+
+    @Test
+    void countersFollowWritesWithoutReloading() {
+        Supplier supplier = new Supplier();
+        supplier.setName("Acme");
+        supplier = supplierRepository.save(supplier);
+        Product pen = productService.addProduct(product("Pen", 10, 5, 2.5, supplier));
+        statsService.getStats();
+
+        Product ink = productService.addProduct(product("Ink", 3, 5, 4.0, supplier));
+        productService.updateStock(pen.getId(), 6);
+        productService.restock(ink.getId(), 10);
+        Product cap = productService.addProduct(product("Cap", 100, 1, 1.0, supplier));
+        productService.deleteProduct(cap.getId());
+
+        StatsSnapshot stats = statsService.getStats();
+        StockTotals db = productRepository.getStockTotals();
+        assertEquals(db.getProducts(), stats.totalProducts());
+        assertEquals(db.getUnits(), stats.totalStock());
+        assertEquals(db.getStockValue(), stats.inventoryValue(), 0.001);
+        assertEquals(db.getLowStock(), stats.lowStockCount());
+        assertEquals(1, stats.lowStockCount());
+        assertEquals(1, stats.healthyStockCount());
+        assertEquals("Ink", stats.topProducts().get(0).name());
+        assertEquals(2, stats.topSuppliers().get(0).products());
+    }
+
+    private Product product(String name, int stock, int minStock, double price, Supplier supplier) {
+        Product product = new Product();
+        product.setName(name);
+        product.setStock(stock);
+        product.setMinStock(minStock);
+        product.setPrice(price);
+        product.setSupplier(supplier);
+        return product;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.demo.Service;
+
+import com.example.demo.Models.Product;
+import com.example.demo.dto.StockDelta;
+import com.example.demo.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class StockEventHubTests {
+
+    @Autowired
+    private StockEventHub hub;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @MockBean
+    private MailService mailService;
+
+    private final List<CapturingEmitter> emitters = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() throws InterruptedException {
+        // the next delta makes every subscriber's send fail, which closes it
+        emitters.forEach(e -> e.gone = true);
+        long id = createProduct(1, 0).getId();
+        productService.restock(id, 1);
+        await(() -> hub.subscriberCount() == 0);
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void committedChangesReachSubscribersAndResumeSkipsSeenDeltas() throws InterruptedException {
+        long id = createProduct(10, 8).getId();
+        CapturingEmitter live = subscribe(null);
+
+        productService.updateStock(id, 1);
+        productService.updateStock(id, 1);
+        productService.updateStock(id, 1);
+        // a failed sale publishes nothing
+        try {
+            productService.updateStock(id, 100);
+        } catch (RuntimeException expected) {
+            // insufficient stock
+        }
+        await(() -> live.deltas.size() == 3);
+
+        assertEquals(List.of(9, 8, 7), live.deltas.stream().map(StockDelta::stock).toList());
+        assertNull(live.deltas.get(1).transition());
+        assertEquals(StockDelta.Transition.LOW, live.deltas.get(2).transition());
+        assertTrue(live.deltas.get(2).low());
+
+        CapturingEmitter resumed = subscribe(live.ids.get(0));
+        await(() -> resumed.deltas.size() == 2);
+        assertEquals(List.of(8, 7), resumed.deltas.stream().map(StockDelta::stock).toList());
+        assertEquals(live.ids.subList(1, 3), resumed.ids);
+
+        productService.restock(id, 5);
+        await(() -> live.deltas.size() == 4 && resumed.deltas.size() == 3);
+        assertEquals(StockDelta.Transition.RECOVERED, resumed.deltas.get(2).transition());
+
+        // a token from another server run cannot be resumed
+        CapturingEmitter stale = subscribe("previous-run:3");
+        await(() -> stale.resets == 1);
+        assertTrue(stale.deltas.isEmpty());
+    }
+
+    @Test
+    void thousandsOfIdleSubscribersShareOneDelta() throws InterruptedException {
+        long id = createProduct(10, 0).getId();
+        for (int i = 0; i < 5000; i++) {
+            subscribe(null);
+        }
+        assertEquals(5000, hub.subscriberCount());
+
+        productService.updateStock(id, 2);
+        await(() -> emitters.stream().allMatch(e -> e.deltas.size() == 1));
+        assertTrue(emitters.stream().allMatch(e -> e.deltas.get(0).stock() == 8));
+        // send() blocks inside a synchronized method, on a virtual thread that would pin its carrier
+        assertTrue(emitters.stream().noneMatch(e -> e.sentOnVirtualThread));
+    }
+
+    private CapturingEmitter subscribe(String lastEventId) {
+        CapturingEmitter emitter = new CapturingEmitter();
+        emitters.add(emitter);
+        hub.subscribe(lastEventId, emitter);
+        return emitter;
+    }
+
+    private Product createProduct(int stock, int minStock) {
+        Product product = new Product();
+        product.setName("Streamed");
+        product.setStock(stock);
+        product.setMinStock(minStock);
+        product.setPrice(1);
+        return productRepository.save(product);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for the stream");
+            Thread.sleep(10);
+        }
+    }
+
+    // records what the hub sends instead of writing to a response
+    private static final class CapturingEmitter extends SseEmitter {
+        final List<StockDelta> deltas = new CopyOnWriteArrayList<>();
+        final List<String> ids = new CopyOnWriteArrayList<>();
+        volatile int resets;
+        volatile boolean gone;
+        volatile boolean sentOnVirtualThread;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sentOnVirtualThread |= Thread.currentThread().isVirtual();
+            if (gone) {
+                throw new IOException("client disconnected");
+            }
+            StringBuilder text = new StringBuilder();
+            StockDelta delta = null;
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof StockDelta d) {
+                    delta = d;
+                } else {
+                    text.append(part.getData());
+                }
+            }
+            if (text.indexOf("event:reset") >= 0) {
+                resets++;
+            }
+            if (delta != null) {
+                int at = text.indexOf("id:");
+                ids.add(text.substring(at + 3, text.indexOf("\n", at)));
+                deltas.add(delta);
+            }
+        }
+    }
+}
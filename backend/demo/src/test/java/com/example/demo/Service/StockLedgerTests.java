@@ -0,0 +1,188 @@
+package com.example.demo.Service;
+
+import com.example.demo.Models.Invoice;
+import com.example.demo.Models.Product;
+import com.example.demo.Models.StockMovement;
+import com.example.demo.Models.Supplier;
+import com.example.demo.dto.CheckoutRequest;
+import com.example.demo.dto.DailySales;
+import com.example.demo.repository.InvoiceRepository;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.StockMovementRepository;
+import com.example.demo.repository.SupplierRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class StockLedgerTests {
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private MailService mailService;
+
+    // other test classes sell through the services too, start every test from an empty ledger
+    @BeforeEach
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM daily_stock_snapshot");
+        movementRepository.deleteAllInBatch();
+        invoiceRepository.deleteAll();
+        productRepository.deleteAll();
+        supplierRepository.deleteAll();
+    }
+
+    @Test
+    void everyStockChangeAppendsOneMovement() {
+        Supplier supplier = new Supplier();
+        supplier.setName("Acme");
+        supplier.setEmail("acme@example.com");
+        supplier = supplierRepository.save(supplier);
+
+        Product pen = new Product();
+        pen.setName("Pen");
+        pen.setStock(10);
+        pen.setMinStock(2);
+        pen.setPrice(5);
+        pen.setSupplier(supplier);
+        long id = productService.addProduct(pen).getId();
+
+        productService.updateStock(id, 3);
+        productService.restock(id, 5);
+        Product edited = productRepository.findById(id).orElseThrow();
+        edited.setStock(20);
+        productService.updateProduct(id, edited);
+        Invoice invoice = invoiceService.checkout(basket(id, 4));
+        // a failed sale rolls its movement back with it
+        assertThrows(RuntimeException.class, () -> productService.updateStock(id, 1000));
+
+        List<StockMovement> movements = movementRepository.findAll().stream()
+                .sorted(Comparator.comparingLong(StockMovement::getId)).toList();
+        assertEquals(List.of(StockMovement.Type.OPENING, StockMovement.Type.SALE, StockMovement.Type.RESTOCK,
+                StockMovement.Type.ADJUSTMENT, StockMovement.Type.SALE),
+                movements.stream().map(StockMovement::getType).toList());
+        assertEquals(List.of(10, -3, 5, 8, -4), movements.stream().map(StockMovement::getQuantity).toList());
+        assertEquals(List.of(10, 7, 12, 20, 16), movements.stream().map(StockMovement::getStockAfter).toList());
+        assertEquals(invoice.getId(), movements.get(4).getInvoiceId());
+        assertEquals(16, stockLedger.stockAsOf(id, LocalDateTime.now()).orElseThrow());
+        assertTrue(stockLedger.stockAsOf(id, movements.get(0).getCreatedAt().minusSeconds(1)).isEmpty());
+
+        List<DailySales> today = stockLedger.salesByDay(LocalDate.now(), LocalDate.now());
+        assertEquals(1, today.size());
+        assertEquals(7, today.get(0).unitsSold());
+        assertEquals(5, today.get(0).unitsRestocked());
+        assertEquals(35.0, today.get(0).salesValue());
+    }
+
+    @Test
+    void compactedDaysReportTheSameAsTheMovements() {
+        LocalDate today = LocalDate.now();
+        List<StockMovement> history = new ArrayList<>();
+        for (long product = 1; product <= 3; product++) {
+            history.add(movement(product, StockMovement.Type.OPENING, 100, 100, 2.5, today.minusDays(5).atTime(7, 0)));
+        }
+        for (int daysAgo = 5; daysAgo >= 1; daysAgo--) {
+            LocalDateTime morning = today.minusDays(daysAgo).atTime(9, 0);
+            for (long product = 1; product <= 3; product++) {
+                int stock = 100 + (5 - daysAgo) * 4 - (5 - daysAgo) * (int) product;
+                history.add(movement(product, StockMovement.Type.SALE, -(int) product, stock - (int) product, 2.5, morning));
+                history.add(movement(product, StockMovement.Type.RESTOCK, 4, stock - (int) product + 4, 2.5,
+                        morning.plusHours(8)));
+            }
+        }
+        // two counters selling product 2 from different stock slots: the sale that read the slots later
+        // got the lower id, so the last movement's stockAfter is not the day's closing stock
+        LocalDateTime evening = today.minusDays(2).atTime(20, 0);
+        history.add(movement(2, StockMovement.Type.SALE, -1, 106, 2.5, evening));
+        history.add(movement(2, StockMovement.Type.SALE, -1, 107, 2.5, evening));
+        // movements written today stay in the tail
+        history.add(movement(1, StockMovement.Type.SALE, -2, 113, 2.5, LocalDateTime.now()));
+        transactionTemplate.executeWithoutResult(status -> movementRepository.appendBatch(history));
+
+        List<DailySales> fromMovements = movementRepository.salesFromMovements(today.minusDays(5), today);
+
+        assertEquals(5, stockLedger.compactThrough(today.minusDays(1)));
+        assertEquals(today.minusDays(1), movementRepository.lastCompactedDay().orElseThrow());
+        assertEquals(fromMovements, stockLedger.salesByDay(today.minusDays(5), today));
+        assertEquals(fromMovements.subList(1, 3), stockLedger.salesByDay(today.minusDays(4), today.minusDays(3)));
+        assertEquals(6, fromMovements.get(0).unitsSold());
+
+        // a snapshot closes each product's day at the previous closing stock plus the day's deltas
+        assertEquals(104, closingStock(3, today.minusDays(2)));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT movements FROM daily_stock_snapshot "
+                + "WHERE product_id = 3 AND snapshot_day = ?", Integer.class, java.sql.Date.valueOf(today.minusDays(2))));
+        assertEquals(106, closingStock(2, today.minusDays(2)));
+        assertEquals(106, stockLedger.stockAsOf(2, evening).orElseThrow());
+        // last snapshot plus today's tail
+        assertEquals(113, stockLedger.stockAsOf(1, LocalDateTime.now()).orElseThrow());
+
+        // nothing new to fold in
+        assertEquals(0, stockLedger.compactThrough(today.minusDays(1)));
+    }
+
+    private int closingStock(long productId, LocalDate day) {
+        return jdbcTemplate.queryForObject("SELECT closing_stock FROM daily_stock_snapshot "
+                + "WHERE product_id = ? AND snapshot_day = ?", Integer.class, productId, java.sql.Date.valueOf(day));
+    }
+
+    private static StockMovement movement(long productId, StockMovement.Type type, int quantity, int stockAfter,
+                                          double price, LocalDateTime at) {
+        StockMovement movement = new StockMovement();
+        movement.setProductId(productId);
+        movement.setType(type);
+        movement.setQuantity(quantity);
+        movement.setStockAfter(stockAfter);
+        movement.setUnitPrice(price);
+        movement.setCreatedAt(at);
+        return movement;
+    }
+
+    private static CheckoutRequest basket(long productId, int quantity) {
+        CheckoutRequest.Item item = new CheckoutRequest.Item();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        CheckoutRequest request = new CheckoutRequest();
+        request.setItems(List.of(item));
+        return request;
+    }
+}
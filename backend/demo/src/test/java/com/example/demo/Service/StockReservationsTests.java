@@ -0,0 +1,169 @@
+package com.example.demo.Service;
+
+import com.example.demo.Models.Product;
+import com.example.demo.dto.CheckoutRequest;
+import com.example.demo.dto.StockHold;
+import com.example.demo.repository.InvoiceRepository;
+import com.example.demo.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class StockReservationsTests {
+
+    @Autowired
+    private StockReservations reservations;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @MockBean
+    private MailService mailService;
+
+    private final List<String> carts = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        carts.forEach(reservations::release);
+        invoiceRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void holdsKeepUnitsForTheirCartUntilCheckout() {
+        long id = createProduct("Rice 5kg", 5).getId();
+        String a = cart();
+        String b = cart();
+
+        assertEquals(2, reservations.hold(a, id, 3).available());
+        assertThrows(RuntimeException.class, () -> reservations.hold(b, id, 3));
+        // a sale without a cart may only take what nobody holds
+        assertThrows(RuntimeException.class, () -> productService.updateStock(id, 3));
+        productService.updateStock(id, 2);
+        assertEquals(Map.of(id, 0), reservations.available(List.of(id)));
+
+        // a failed checkout hands the cart its holds back
+        long scarce = createProduct("Sugar 1kg", 1).getId();
+        assertThrows(RuntimeException.class, () -> invoiceService.checkout(request(a, id, 3, scarce, 2)));
+        assertEquals(Map.of(id, 0, scarce, 1), reservations.available(List.of(id, scarce)));
+
+        invoiceService.checkout(request(a, id, 3));
+        assertEquals(0, productRepository.findById(id).orElseThrow().getStock());
+        assertEquals(Map.of(id, 0), reservations.available(List.of(id)));
+
+        // restocks show up without a reload, and the finished cart holds nothing
+        productService.restock(id, 4);
+        assertEquals(4, reservations.hold(b, id, 4).quantity());
+        assertEquals(0, reservations.release(b, id).quantity());
+        assertEquals(Map.of(id, 4), reservations.available(List.of(id)));
+    }
+
+    @Test
+    void expiredHoldsFreeTheirUnits() throws Exception {
+        long id = createProduct("Tea 250g", 10).getId();
+        StockHold hold = reservations.hold(cart(), id, 10, Duration.ofMillis(50));
+        assertEquals(0, hold.available());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (reservations.available(List.of(id)).get(id) == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(Map.of(id, 10), reservations.available(List.of(id)));
+    }
+
+    @Test
+    void concurrentCountersNeverPromiseMoreThanTheStock() throws Exception {
+        long id = createProduct("Oil 1L", 100).getId();
+        AtomicInteger held = new AtomicInteger();
+        List<String> winners = new ArrayList<>();
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<String>> attempts = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                String cart = cart();
+                attempts.add(pool.submit(() -> {
+                    try {
+                        reservations.hold(cart, id, 1);
+                        held.incrementAndGet();
+                        return cart;
+                    } catch (RuntimeException e) {
+                        return null;
+                    }
+                }));
+            }
+            for (Future<String> attempt : attempts) {
+                if (attempt.get() != null) {
+                    winners.add(attempt.get());
+                }
+            }
+            assertEquals(100, held.get());
+
+            List<Future<?>> checkouts = new ArrayList<>();
+            for (String cart : winners) {
+                checkouts.add(pool.submit(() -> invoiceService.checkout(request(cart, id, 1))));
+            }
+            for (Future<?> checkout : checkouts) {
+                checkout.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(0, productRepository.findById(id).orElseThrow().getStock());
+        assertEquals(100, invoiceRepository.count());
+    }
+
+    private String cart() {
+        String cart = "cart-" + carts.size() + "-" + System.nanoTime();
+        carts.add(cart);
+        return cart;
+    }
+
+    private Product createProduct(String name, int stock) {
+        Product product = new Product();
+        product.setName(name);
+        product.setStock(stock);
+        product.setMinStock(0);
+        product.setPrice(10);
+        return productRepository.save(product);
+    }
+
+    // cart id, then pairs of productId, quantity
+    private static CheckoutRequest request(String cartId, long... idsAndQuantities) {
+        List<CheckoutRequest.Item> items = new ArrayList<>();
+        for (int i = 0; i < idsAndQuantities.length; i += 2) {
+            CheckoutRequest.Item item = new CheckoutRequest.Item();
+            item.setProductId(idsAndQuantities[i]);
+            item.setQuantity((int) idsAndQuantities[i + 1]);
+            items.add(item);
+        }
+        CheckoutRequest request = new CheckoutRequest();
+        request.setCartId(cartId);
+        request.setItems(items);
+        return request;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.demo.Service;
+
+import com.example.demo.Models.Product;
+import com.example.demo.dto.CheckoutRequest;
+import com.example.demo.repository.InvoiceRepository;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.ProductStockSlotRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class StockSlotsTests {
+
+    @Autowired
+    private StockSlots stockSlots;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductStockSlotRepository slotRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @MockBean
+    private MailService mailService;
+
+    @AfterEach
+    void cleanUp() {
+        invoiceRepository.deleteAll();
+        productService.deleteAll();
+    }
+
+    @Test
+    void concurrentSellsOfASplitProductNeverOversell() throws Exception {
+        long id = createProduct(1000).getId();
+        assertEquals(1000, stockSlots.split(id, 8));
+        AtomicInteger sold = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 16; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        try {
+                            productService.updateStock(id, 1);
+                            sold.incrementAndGet();
+                        } catch (RuntimeException ignored) {
+                            // insufficient stock
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(1000, sold.get());
+        assertEquals(0, slotRepository.totalStock(id));
+        stockSlots.flush();
+        assertEquals(0, productRepository.findById(id).orElseThrow().getStock());
+    }
+
+    @Test
+    void drainedSlotsAreEvenedOutAndRestocksSpreadOverAll() {
+        long id = createProduct(10).getId();
+        stockSlots.split(id, 4);
+        assertArrayEquals(new int[]{3, 3, 2, 2}, slots(id));
+
+        // no slot has 5 on its own, the sale evens the slots out around it
+        assertEquals(5, productService.updateStock(id, 5).getStock());
+        assertArrayEquals(new int[]{2, 1, 1, 1}, slots(id));
+
+        invoiceService.checkout(request(id, 5));
+        assertThrows(RuntimeException.class, () -> productService.updateStock(id, 1));
+
+        assertEquals(8, productService.restock(id, 8).getStock());
+        assertArrayEquals(new int[]{2, 2, 2, 2}, slots(id));
+        // the row is only guaranteed to match the slots after a flush
+        stockSlots.flush();
+        assertEquals(8, productRepository.findById(id).orElseThrow().getStock());
+
+        // folding back hands the row the summed stock and sells use the row again
+        assertEquals(8, stockSlots.split(id, 1));
+        assertFalse(stockSlots.isSplit(id));
+        assertEquals(0, slots(id).length);
+        assertEquals(7, productService.updateStock(id, 1).getStock());
+    }
+
+    private int[] slots(long productId) {
+        return slotRepository.findAll().stream()
+                .filter(s -> s.getProductId() == productId)
+                .sorted((a, b) -> Integer.compare(a.getSlot(), b.getSlot()))
+                .mapToInt(s -> s.getStock())
+                .toArray();
+    }
+
+    private Product createProduct(int stock) {
+        Product product = new Product();
+        product.setName("Promo SKU");
+        product.setStock(stock);
+        product.setMinStock(0);
+        product.setPrice(10);
+        return productRepository.save(product);
+    }
+
+    private static CheckoutRequest request(long productId, int quantity) {
+        CheckoutRequest.Item item = new CheckoutRequest.Item();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        CheckoutRequest request = new CheckoutRequest();
+        request.setItems(List.of(item));
+        return request;
+    }
+}
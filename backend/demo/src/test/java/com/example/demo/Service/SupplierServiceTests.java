@@ -0,0 +1,137 @@
+package com.example.demo.Service;
+
+import com.example.demo.Models.Product;
+import com.example.demo.Models.Supplier;
+import com.example.demo.dto.DeletionProgress;
+import com.example.demo.dto.ProductCsvRow;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.ProductStockSlotRepository;
+import com.example.demo.repository.SupplierRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class SupplierServiceTests {
+
+    @Autowired
+    private SupplierService supplierService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private BulkDeletions bulkDeletions;
+
+    @Autowired
+    private StockSlots stockSlots;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private ProductStockSlotRepository slotRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private MailService mailService;
+
+    @AfterEach
+    void cleanUp() {
+        ReflectionTestUtils.setField(supplierService, "inlineLimit", 10000L);
+        ReflectionTestUtils.setField(bulkDeletions, "chunkSize", 5000);
+        ReflectionTestUtils.setField(bulkDeletions, "chunkPauseMs", 10L);
+        productService.deleteAll();
+        supplierService.deleteAll();
+    }
+
+    @Test
+    void deletingASupplierDeletesOrUnlinksItsProducts() {
+        Supplier acme = createSupplier("acme@example.com");
+        Supplier other = createSupplier("other@example.com");
+        long rice = createProduct("Rice 5kg", acme).getId();
+        long oil = createProduct("Oil 1L", acme).getId();
+        long salt = createProduct("Salt", other).getId();
+        stockSlots.split(oil, 4);
+
+        assertTrue(supplierService.deleteSupplier(acme.getId(), false).isEmpty());
+        assertTrue(productRepository.findById(rice).isEmpty());
+        assertTrue(productRepository.findById(oil).isEmpty());
+        assertEquals(0, slotRepository.count());
+        assertThrows(RuntimeException.class, () -> supplierService.getSupplierById(acme.getId()));
+        assertThrows(RuntimeException.class, () -> supplierService.deleteSupplier(acme.getId(), false));
+
+        assertTrue(supplierService.deleteSupplier(other.getId(), true).isEmpty());
+        assertNull(productRepository.findById(salt).orElseThrow().getSupplier());
+        assertEquals(0, supplierRepository.count());
+    }
+
+    @Test
+    void largeSuppliersAreHiddenAtOnceAndEmptiedInChunks() throws Exception {
+        ReflectionTestUtils.setField(supplierService, "inlineLimit", 10L);
+        ReflectionTestUtils.setField(bulkDeletions, "chunkSize", 7);
+        ReflectionTestUtils.setField(bulkDeletions, "chunkPauseMs", 100L);
+        Supplier acme = createSupplier("bulk@example.com");
+        Supplier other = createSupplier("kept@example.com");
+        List<ProductCsvRow> rows = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            rows.add(new ProductCsvRow(null, "bulk-" + i, 1, 0, 1, acme.getId(), null));
+        }
+        long[] ids = productRepository.insertBatch(rows);
+        stockSlots.split(ids[3], 2);
+        long kept = createProduct("Kept", other).getId();
+
+        DeletionProgress job = supplierService.deleteSupplier(acme.getId(), false).orElseThrow();
+        assertEquals(50, job.total());
+        // soft-deleted: gone from the supplier queries, its products still load while they wait their turn
+        assertThrows(RuntimeException.class, () -> supplierService.getSupplierById(acme.getId()));
+        assertEquals(List.of(other.getId()), supplierService.getAllSupplier().stream().map(Supplier::getId).toList());
+        productRepository.findAll();
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (bulkDeletions.progress(job.jobId()).orElseThrow().state() == DeletionProgress.State.RUNNING
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        DeletionProgress done = bulkDeletions.progress(job.jobId()).orElseThrow();
+        assertEquals(DeletionProgress.State.DONE, done.state());
+        assertEquals(50, done.deleted());
+        assertEquals(List.of(kept), productRepository.findAll().stream().map(Product::getId).toList());
+        assertEquals(0, slotRepository.count());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM supplier", Integer.class));
+    }
+
+    private Supplier createSupplier(String email) {
+        Supplier supplier = new Supplier();
+        supplier.setName("Acme");
+        supplier.setEmail(email);
+        return supplierRepository.save(supplier);
+    }
+
+    private Product createProduct(String name, Supplier supplier) {
+        Product product = new Product();
+        product.setName(name);
+        product.setStock(5);
+        product.setMinStock(0);
+        product.setPrice(10);
+        product.setSupplier(supplier);
+        return productRepository.save(product);
+    }
+}
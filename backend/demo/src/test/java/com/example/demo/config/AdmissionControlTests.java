@@ -0,0 +1,106 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControlTests {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void theLimitBacksOffOnSlowRequestsAndGrowsBackWhileUsed() throws Exception {
+        AdaptiveLimit limit = new AdaptiveLimit(1, 10, 20, 2.0, 0.5);
+        for (int i = 0; i < 100; i++) {
+            limit.release(20 * MS, limit.tryAcquire());
+        }
+        assertEquals(10, limit.getLimit());
+
+        // queueing: one slow burst halves it once, the next one after an average latency has passed again
+        for (int i = 0; i < 5; i++) {
+            limit.release(100 * MS, limit.tryAcquire());
+        }
+        assertEquals(5, limit.getLimit());
+        Thread.sleep(30);
+        limit.release(100 * MS, limit.tryAcquire());
+        assertEquals(2, limit.getLimit());
+
+        int[] held = {limit.tryAcquire(), limit.tryAcquire()};
+        assertEquals(0, limit.tryAcquire());
+        for (int i = 0; i < 40; i++) {
+            limit.release(20 * MS, held[i % 2]);
+            held[i % 2] = limit.tryAcquire();
+        }
+        assertTrue(limit.getLimit() > 2);
+    }
+
+    @Test
+    void fullLanesAnswer429WhileOtherLanesAndStreamsGoThrough() throws Exception {
+        AdmissionControl admission = new AdmissionControl(Map.of(
+                AdmissionControl.Lane.PRIORITY, new AdaptiveLimit(2, 2, 2, 2.0, 0.9),
+                AdmissionControl.Lane.BULK, new AdaptiveLimit(1, 1, 1, 2.0, 0.9),
+                AdmissionControl.Lane.STREAM, new AdaptiveLimit(1, 1, 1, 2.0, 0.9),
+                AdmissionControl.Lane.DEFAULT, new AdaptiveLimit(1, 1, 1, 2.0, 0.9)),
+                List.of("/api/products/*/sell/*", "/api/invoices"), List.of("/api/products/view", "/api/reports/**"),
+                List.of("/api/products/export"), List.of("/api/products/stream"));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        admission.bindTo(registry);
+        AdmissionFilter filter = new AdmissionFilter(admission, 3);
+
+        assertEquals(AdmissionControl.Lane.PRIORITY, admission.classify("/api/products/7/sell/2"));
+        assertEquals(AdmissionControl.Lane.BULK, admission.classify("/api/reports/sales"));
+        assertEquals(AdmissionControl.Lane.STREAM, admission.classify("/api/products/export"));
+        assertEquals(AdmissionControl.Lane.DEFAULT, admission.classify("/api/products/7"));
+        assertNull(admission.classify("/api/products/stream"));
+
+        // a report in flight fills the bulk lane
+        int report = admission.tryAcquire(AdmissionControl.Lane.BULK);
+        MockHttpServletResponse rejected = run(filter, "GET", "/api/products/view");
+        assertEquals(429, rejected.getStatus());
+        assertEquals("3", rejected.getHeader("Retry-After"));
+        assertEquals(1, registry.get("inventory.admission.rejected").tag("lane", "bulk").counter().count());
+
+        assertEquals(200, run(filter, "PUT", "/api/products/7/sell/2").getStatus());
+        assertEquals(200, run(filter, "GET", "/api/products/stream").getStatus());
+        // an export has a lane of its own and neither waits for nor blocks listings
+        assertEquals(200, run(filter, "GET", "/api/products/export").getStatus());
+        admission.release(AdmissionControl.Lane.BULK, MS, report);
+        assertEquals(200, run(filter, "GET", "/api/products/view").getStatus());
+        assertEquals(0, admission.limit(AdmissionControl.Lane.BULK).getInFlight());
+        assertEquals(1, registry.get("inventory.admission.limit").tag("lane", "bulk").gauge().value());
+    }
+
+    @Test
+    void slowPriorityRequestsBackTheBulkLaneOff() {
+        AdaptiveLimit bulk = new AdaptiveLimit(1, 8, 16, 2.0, 0.5);
+        AdmissionControl admission = new AdmissionControl(Map.of(
+                AdmissionControl.Lane.PRIORITY, new AdaptiveLimit(10, 50, 100, 2.0, 0.9),
+                AdmissionControl.Lane.BULK, bulk,
+                AdmissionControl.Lane.STREAM, new AdaptiveLimit(2, 2, 2, 2.0, 0.9),
+                AdmissionControl.Lane.DEFAULT, new AdaptiveLimit(1, 10, 10, 2.0, 0.9)),
+                List.of(), List.of(), List.of(), List.of());
+        for (int i = 0; i < 50; i++) {
+            admission.release(AdmissionControl.Lane.PRIORITY, MS, admission.tryAcquire(AdmissionControl.Lane.PRIORITY));
+        }
+        assertEquals(8, bulk.getLimit());
+
+        admission.release(AdmissionControl.Lane.PRIORITY, 20 * MS, admission.tryAcquire(AdmissionControl.Lane.PRIORITY));
+        assertEquals(4, bulk.getLimit());
+    }
+
+    private static MockHttpServletResponse run(AdmissionFilter filter, String method, String path) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(method, path), response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.config;
+
+import com.example.demo.Service.MailService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// the 429 is written before the DispatcherServlet, the browser still has to be allowed to read it
+@SpringBootTest
+@AutoConfigureMockMvc
+class AdmissionCorsTests {
+    private static final String ORIGIN = "http://localhost:5173";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    @MockBean
+    private MailService mailService;
+
+    @Test
+    void rejectedRequestsCarryTheCorsHeaders() throws Exception {
+        List<Integer> held = new ArrayList<>();
+        for (int inFlight; (inFlight = admissionControl.tryAcquire(AdmissionControl.Lane.BULK)) != 0; ) {
+            held.add(inFlight);
+        }
+        try {
+            mockMvc.perform(get("/api/products/view").header("Origin", ORIGIN))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string("Access-Control-Allow-Origin", ORIGIN))
+                    .andExpect(header().string("Access-Control-Expose-Headers", "Retry-After"))
+                    .andExpect(header().exists("Retry-After"));
+        } finally {
+            held.forEach(inFlight -> admissionControl.release(AdmissionControl.Lane.BULK, 0, inFlight));
+        }
+
+        mockMvc.perform(get("/api/products/view").header("Origin", ORIGIN))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Access-Control-Allow-Origin", ORIGIN));
+    }
+}
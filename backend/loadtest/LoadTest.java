@@ -0,0 +1,146 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop HTTP load generator for the inventory backend. Each of {@code concurrency} virtual
+ * threads sends a request, waits for the answer and sends the next one, first for a warm-up
+ * period and then for {@code seconds} of measurement. Prints throughput and latency percentiles
+ * for GET /api/products/view and PUT /api/products/{id}/sell/1.
+ * <p>
+ * Run with {@code java LoadTest.java [baseUrl] [concurrency] [seconds] [label]}; no build needed.
+ * On first use it imports {@value #CATALOG} "loadtest-N" products through /api/products/import.
+ */
+public class LoadTest {
+    private static final int CATALOG = 2000;
+    private static final int WARMUP_SECONDS = 5;
+    private static final Pattern ID = Pattern.compile("\\{\"id\":(\\d+),\"name\":\"loadtest-");
+
+    public static void main(String[] args) throws Exception {
+        String base = args.length > 0 ? args[0] : "http://localhost:8080";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        String label = args.length > 3 ? args[3] : "";
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        long[] ids = seed(client, base);
+
+        HttpRequest view = HttpRequest.newBuilder(URI.create(base + "/api/products/view?search=loadtest-19&sortField=stock"))
+                .GET().build();
+        run(label, "view", client, concurrency, seconds, () -> view);
+        run(label, "sell", client, concurrency, seconds, () -> {
+            long id = ids[ThreadLocalRandom.current().nextInt(ids.length)];
+            return HttpRequest.newBuilder(URI.create(base + "/api/products/" + id + "/sell/1"))
+                    .PUT(HttpRequest.BodyPublishers.noBody()).build();
+        });
+    }
+
+    private static long[] seed(HttpClient client, String base) throws Exception {
+        long[] ids = findIds(client, base);
+        if (ids.length >= CATALOG) {
+            return ids;
+        }
+        StringBuilder csv = new StringBuilder("name,stock,minStock,price\n");
+        for (int i = 0; i < CATALOG; i++) {
+            // sells never run out during a test
+            csv.append("loadtest-").append(i).append(",1000000000,10,9.99\n");
+        }
+        HttpResponse<String> imported = client.send(HttpRequest.newBuilder(URI.create(base + "/api/products/import"))
+                .header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString(csv.toString())).build(), HttpResponse.BodyHandlers.ofString());
+        if (imported.statusCode() != 200) {
+            throw new IllegalStateException("Seeding failed: " + imported.statusCode() + " " + imported.body());
+        }
+        // the search index reloads in the background after an import
+        Thread.sleep(2000);
+        return findIds(client, base);
+    }
+
+    private static long[] findIds(HttpClient client, String base) throws Exception {
+        String body = client.send(HttpRequest.newBuilder(URI.create(base + "/api/products/search?name=loadtest-")).GET().build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+        List<Long> ids = new ArrayList<>();
+        Matcher m = ID.matcher(body);
+        while (m.find()) {
+            ids.add(Long.parseLong(m.group(1)));
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private interface RequestFactory {
+        HttpRequest next();
+    }
+
+    private static void run(String label, String name, HttpClient client, int concurrency, int seconds,
+                            RequestFactory requests) throws InterruptedException {
+        long warmupEnd = System.nanoTime() + Duration.ofSeconds(WARMUP_SECONDS).toNanos();
+        long end = warmupEnd + Duration.ofSeconds(seconds).toNanos();
+        AtomicLong errors = new AtomicLong();
+        long[][] latencies = new long[concurrency][];
+        int[] counts = new int[concurrency];
+        List<Thread> workers = new ArrayList<>();
+        for (int w = 0; w < concurrency; w++) {
+            int worker = w;
+            workers.add(Thread.ofVirtual().start(() -> {
+                long[] samples = new long[1024];
+                int n = 0;
+                long now;
+                while ((now = System.nanoTime()) < end) {
+                    boolean ok;
+                    try {
+                        ok = client.send(requests.next(), HttpResponse.BodyHandlers.discarding()).statusCode() < 400;
+                    } catch (Exception e) {
+                        ok = false;
+                    }
+                    long took = System.nanoTime() - now;
+                    if (now < warmupEnd) {
+                        continue;
+                    }
+                    if (!ok) {
+                        errors.incrementAndGet();
+                    }
+                    if (n == samples.length) {
+                        samples = Arrays.copyOf(samples, n * 2);
+                    }
+                    samples[n++] = took;
+                }
+                latencies[worker] = samples;
+                counts[worker] = n;
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        int at = 0;
+        for (int w = 0; w < concurrency; w++) {
+            System.arraycopy(latencies[w], 0, all, at, counts[w]);
+            at += counts[w];
+        }
+        Arrays.sort(all);
+        System.out.printf("%-10s %-5s c=%-5d %9.0f req/s   p50 %7.2f ms   p99 %7.2f ms   max %8.2f ms   errors %d%n",
+                label, name, concurrency, total / (double) seconds, percentile(all, 0.50), percentile(all, 0.99),
+                total == 0 ? 0 : all[total - 1] / 1e6, errors.get());
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+}
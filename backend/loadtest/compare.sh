@@ -0,0 +1,57 @@
+#!/usr/bin/env bash
+# Runs LoadTest.java against the backend twice, once on the default platform-thread Tomcat pool and
+# once with the vthreads profile, and prints RPS and p50/p99 latency of /view and /sell for both.
+#
+#   backend/loadtest/compare.sh [concurrency] [seconds]
+#
+# Uses the datasource in application.properties (PostgreSQL). DB=h2 runs against an in-memory H2
+# instead, handy for a quick check but not representative of JDBC wait times.
+# Set JAVA_OPTS=-Djdk.tracePinnedThreads=short to log virtual threads pinned to their carrier.
+set -euo pipefail
+
+CONCURRENCY=${1:-256}
+SECONDS_PER_RUN=${2:-20}
+PORT=${PORT:-18080}
+HERE=$(cd "$(dirname "$0")" && pwd)
+DEMO="$HERE/../demo"
+
+cd "$DEMO"
+# test scope puts H2 on the classpath as well
+mvn -q -DskipTests compile dependency:build-classpath \
+    -Dmdep.outputFile=target/loadtest.classpath -Dmdep.includeScope=test
+CLASSPATH="target/classes:$(cat target/loadtest.classpath)"
+
+DB_ARGS=()
+if [ "${DB:-}" = "h2" ]; then
+  DB_ARGS=(
+    "--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000"
+    "--spring.datasource.username=sa" "--spring.datasource.password="
+    "--spring.datasource.driver-class-name=org.h2.Driver"
+    "--spring.jpa.hibernate.ddl-auto=create-drop"
+    "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect"
+    "--spring.sql.init.mode=never"
+  )
+fi
+
+for MODE in default vthreads; do
+  PROFILE_ARGS=()
+  if [ "$MODE" = "vthreads" ]; then
+    PROFILE_ARGS=("--spring.profiles.active=vthreads")
+  fi
+  # shellcheck disable=SC2086
+  java ${JAVA_OPTS:-} -cp "$CLASSPATH" com.example.demo.DemoApplication --server.port="$PORT" \
+      --spring.jpa.show-sql=false --logging.level.root=WARN "${DB_ARGS[@]}" "${PROFILE_ARGS[@]}" \
+      > "target/loadtest-$MODE.log" 2>&1 &
+  APP=$!
+  trap 'kill $APP 2>/dev/null || true' EXIT
+
+  for _ in $(seq 1 120); do
+    if curl -sf "http://localhost:$PORT/api/stats" > /dev/null; then break; fi
+    sleep 1
+  done
+
+  java "$HERE/LoadTest.java" "http://localhost:$PORT" "$CONCURRENCY" "$SECONDS_PER_RUN" "$MODE"
+
+  kill "$APP"
+  wait "$APP" 2>/dev/null || true
+done
@@ -0,0 +1,89 @@
+#!/usr/bin/env bash
+# Starts the backend in each startup mode and prints the time from launching the process to the first
+# answered request (GET /api/stats) and the resident set size right after it.
+#
+#   backend/loadtest/startup.sh [runs per mode]
+#
+#   default       the runnable jar as before: eager context, ddl-auto=update, schema-postgresql.sql
+#   prod          --spring.profiles.active=prod: schema validation only, no init script, lazy mail beans
+#   prod-aot      prod with the AOT-generated bean definitions (-Dspring.aot.enabled=true)
+#   prod-aot-cds  prod-aot with the CDS archive trained by the build (-XX:SharedArchiveFile)
+#   native        target/backend when it was built with mvn -Pnative native:compile (GraalVM)
+#
+# Builds with mvn -Pfast-startup package, whose training run needs the database up. Uses the datasource in
+# application.properties (PostgreSQL, already at the current schema). DB=h2 runs every mode against a fresh
+# in-memory H2 instead: quick, but all modes create the schema (no native run), so it understates what
+# prod saves.
+set -euo pipefail
+
+RUNS=${1:-3}
+PORT=${PORT:-18080}
+HERE=$(cd "$(dirname "$0")" && pwd)
+DEMO="$HERE/../demo"
+
+cd "$DEMO"
+DB_ARGS=()
+EXTRA_CLASSPATH=""
+if [ "${DB:-}" = "h2" ]; then
+  mvn -q dependency:build-classpath -Dmdep.outputFile=target/startup-h2.classpath \
+      -Dmdep.includeScope=test -DincludeArtifactIds=h2
+  EXTRA_CLASSPATH=":$(cat target/startup-h2.classpath)"
+  DB_ARGS=(
+    "-Dspring.datasource.url=jdbc:h2:mem:startup;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+    "-Dspring.datasource.username=sa" "-Dspring.datasource.password="
+    "-Dspring.datasource.driver-class-name=org.h2.Driver"
+    "-Dspring.jpa.hibernate.ddl-auto=create-drop"
+    "-Dspring.jpa.database-platform=org.hibernate.dialect.H2Dialect"
+    "-Dspring.sql.init.mode=never"
+  )
+fi
+mvn -q -DskipTests -Pfast-startup package -Dcds.classpath="$EXTRA_CLASSPATH" -Dcds.training.args="${DB_ARGS[*]:-}"
+
+APP_DIR="$DEMO/target/app"
+APP_JAR="$(ls "$APP_DIR"/*-exec.jar)"
+MODES=(default prod prod-aot prod-aot-cds)
+if [ -x target/backend ] && [ "${DB:-}" != "h2" ]; then
+  MODES+=(native)
+fi
+
+printf '%-14s %6s %12s %10s\n' mode run first-req-ms rss-mb
+for MODE in "${MODES[@]}"; do
+  case "$MODE" in
+    default)      COMMAND=(java "${DB_ARGS[@]}") ;;
+    prod)         COMMAND=(java "${DB_ARGS[@]}" -Dspring.profiles.active=prod) ;;
+    prod-aot)     COMMAND=(java "${DB_ARGS[@]}" -Dspring.profiles.active=prod -Dspring.aot.enabled=true) ;;
+    prod-aot-cds) COMMAND=(java "${DB_ARGS[@]}" -Dspring.profiles.active=prod -Dspring.aot.enabled=true
+                           -XX:SharedArchiveFile=application.jsa) ;;
+    native)       COMMAND=(target/backend --spring.profiles.active=prod) ;;
+  esac
+  if [ "$MODE" != "native" ]; then
+    # relative to target/app, like the training run, so the archive's class path matches
+    COMMAND+=(-cp "$(basename "$APP_JAR")$EXTRA_CLASSPATH" com.example.demo.DemoApplication)
+  fi
+
+  for RUN in $(seq 1 "$RUNS"); do
+    START=$(date +%s%N)
+    if [ "$MODE" = "native" ]; then
+      "${COMMAND[@]}" --server.port="$PORT" --logging.level.root=WARN > "target/startup-$MODE.log" 2>&1 &
+    else
+      (cd "$APP_DIR" && exec "${COMMAND[@]}" --server.port="$PORT" --logging.level.root=WARN) \
+          > "target/startup-$MODE.log" 2>&1 &
+    fi
+    APP=$!
+    trap 'kill $APP 2>/dev/null || true' EXIT
+
+    until curl -sf -o /dev/null "http://localhost:$PORT/api/stats"; do
+      if ! kill -0 "$APP" 2>/dev/null; then
+        echo "$MODE did not start, see target/startup-$MODE.log" >&2
+        exit 1
+      fi
+      sleep 0.02
+    done
+    END=$(date +%s%N)
+    RSS_KB=$(awk '/^VmRSS/ {print $2}' "/proc/$APP/status")
+    printf '%-14s %6s %12d %10d\n' "$MODE" "$RUN" $(((END - START) / 1000000)) $((RSS_KB / 1024))
+
+    kill "$APP"
+    wait "$APP" 2>/dev/null || true
+  done
+done
@@ -28,6 +28,29 @@ export const getAllProducts = async (search, stockLevel, filterSize, sortField,
   return axios.get(`${BASE_URL}/api/products/view?${params.toString()}`);
 };
 
+// one page of catalog changes after since (the next of the previous page, none for a full sync)
+export const getProductChanges = async (since, limit) =>
+  axios.get(`${BASE_URL}/api/products/changes`, { params: { since, limit } });
+
+// the catalog as of the last sync, kept for the whole session so a page visit only fetches what changed
+const catalog = new Map();
+let catalogToken;
+
+// brings the local catalog up to date and returns its products; a reset page starts it over
+export const syncCatalog = async () => {
+  let page;
+  do {
+    page = (await getProductChanges(catalogToken, 1000)).data;
+    if (page.reset) {
+      catalog.clear();
+    }
+    page.changed.forEach((product) => catalog.set(product.id, product));
+    page.deleted.forEach((id) => catalog.delete(id));
+    catalogToken = page.next;
+  } while (page.hasMore);
+  return [...catalog.values()].sort((a, b) => a.id - b.id);
+};
+
 // Add a new product
 export const addProduct = async (product) =>
   axios.post(`${BASE_URL}/api/products/add`, product);
@@ -36,6 +59,27 @@ export const addProduct = async (product) =>
 export const sellProducts = async (id, soldQuantity) =>
   axios.put(`${BASE_URL}/api/products/${id}/sell/${soldQuantity}`);
 
+// Sell a whole basket in one request, returns the saved invoice with totals;
+// cartId turns that bill's stock holds into the sale and, as the Idempotency-Key, makes a resent
+// checkout of the same bill return the first invoice instead of selling twice
+export const checkoutInvoice = async (items, cartId) =>
+  axios.post(`${BASE_URL}/api/invoices`, {
+    cartId,
+    items: items.map((item) => ({ productId: item.id, quantity: item.quantity })),
+  }, { headers: cartId ? { "Idempotency-Key": cartId } : {} });
+
+// Hold quantity units of a product for an open bill (0 releases), expires unless checked out
+export const holdStock = async (cartId, productId, quantity) =>
+  axios.put(`${BASE_URL}/api/reservations/${cartId}/items/${productId}`, null, { params: { quantity } });
+
+// Release every hold of an abandoned bill
+export const releaseCart = async (cartId) =>
+  axios.delete(`${BASE_URL}/api/reservations/${cartId}`);
+
+// ranked name matches for the billing counter search box
+export const typeaheadProducts = async (q, limit) =>
+  axios.get(`${BASE_URL}/api/products/typeahead`, { params: { q, limit } });
+
 // Uppdate Product
 export const getProductById = async (id) =>
   axios.get(`${BASE_URL}/api/products/${id}`);
@@ -55,5 +99,22 @@ export const deleteAllProducts = async() =>
 export const getLowStockProducts = async() => 
   axios.get(`${BASE_URL}/api/products/low-stock`)
 
+// first page of low-stock products (cursor = nextCursor of the previous page)
+export const getLowStockPage = async(size, cursor) =>
+  axios.get(`${BASE_URL}/api/products/low-stock/page`, { params: { size, cursor } })
+
+// dashboard / report aggregates computed by the backend
+export const getStats = async() =>
+  axios.get(`${BASE_URL}/api/stats`)
+
 
 
+
+// live stock changes pushed by the backend; the browser reconnects on its own and resumes from the
+// last event it saw. onReset means deltas were missed and the caller should reload once.
+export const subscribeToStockChanges = (onDelta, onReset) => {
+  const source = new EventSource(`${BASE_URL}/api/products/stream`);
+  source.addEventListener("stock", (e) => onDelta(JSON.parse(e.data)));
+  source.addEventListener("reset", () => onReset && onReset());
+  return () => source.close();
+};
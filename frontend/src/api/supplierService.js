@@ -19,7 +19,7 @@ export const deleteSupplierById = async(id) =>
 
 // Delete All Supplier
 export const deleteAllSupplier = async() =>
-  axios.deleteAll(`${BASE_URL}/supplier/deleteAll`)
+  axios.delete(`${BASE_URL}/supplier/deleteAll`)
 
 
 
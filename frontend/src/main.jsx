@@ -1,8 +1,26 @@
 import React from 'react';
 import ReactDOM from 'react-dom/client';
+import axios from 'axios';
 import App from './App.jsx';
 import './index.css';
 
+// send the backend's cookies back, the one set after a write keeps this client's reads off the replicas for a few seconds
+axios.defaults.withCredentials = true;
+
+// 429 means the backend turned the request away before doing any of it, so any request (writes included) is
+// sent again after the Retry-After it names, a little longer each time, before the page sees the error
+const MAX_RETRIES = 3;
+axios.interceptors.response.use(undefined, async (error) => {
+  const { config, response } = error;
+  if (!config || response?.status !== 429 || (config.retries ?? 0) >= MAX_RETRIES) {
+    throw error;
+  }
+  config.retries = (config.retries ?? 0) + 1;
+  const seconds = Number(response.headers['retry-after']) || 1;
+  await new Promise((resolve) => setTimeout(resolve, seconds * 1000 * config.retries * (1 + Math.random() / 2)));
+  return axios(config);
+});
+
 ReactDOM.createRoot(document.getElementById('root')).render(
   <React.StrictMode>
     <App />
@@ -6,8 +6,7 @@ import {
   Tooltip, Legend, ResponsiveContainer
 } from 'recharts';
 import './Dashboard.css';
-import { getAllProducts } from '../api/productService';
-import { getAllSuppliers } from '../api/supplierService';
+import { getLowStockPage, getStats, subscribeToStockChanges } from '../api/productService';
 
 const Dashboard = () => {
   const navigate = useNavigate();
@@ -19,8 +18,8 @@ const Dashboard = () => {
     totalSuppliers:0
   })
 
-  const[products, setProducts] = useState([]);
-  const[suppliers, setSuppliers] = useState([]);
+  const[lowStockProducts, setLowStockProducts] = useState([]);
+  const[recentProducts, setRecentProducts] = useState([]);
   const[loading, setLoading] = useState(true);
   const[chartData, setChartData] = useState([]);
   const[categoryData, setCategoryData] = useState([]);  
@@ -28,41 +27,32 @@ const Dashboard = () => {
   useEffect(() => {
     fetchDashboardData();
 
-    const interval = setInterval(fetchDashboardData,30000)
-    return () => clearInterval(interval);
+    // refresh only when stock actually changed, at most every 5s while sales are coming in
+    let timer = null;
+    const scheduleRefresh = () => {
+      if (!timer) {
+        timer = setTimeout(() => { timer = null; fetchDashboardData(); }, 5000);
+      }
+    };
+    const unsubscribe = subscribeToStockChanges(scheduleRefresh, scheduleRefresh);
+    return () => { unsubscribe(); clearTimeout(timer); };
   },[]);
 
     const fetchDashboardData = async() => {
       try{
-        // getting all products details
-        const productRe = await getAllProducts();
-        const productData = productRe.data;
-        setProducts(productData);
-        
-        // getting all suppliers details
-        try{
-          const suppliersRes = await getAllSuppliers();
-          setSuppliers(suppliersRes.data);
-        }catch(err){
-          console.error("Suppliers endpoint not available yet",err);
-          setSuppliers([]);
-        }
-
-        // get the low stock products and helathy products
-        const lowProducts = productData.filter((p) => p.stock < p.minStock)
-        const healthyProducts = productData.filter((p) => p.stock > p.minStock);
+        // totals and top lists are aggregated by the backend, no need to download the catalog
+        const [statsRes, lowRes] = await Promise.all([getStats(), getLowStockPage(5)]);
+        const data = statsRes.data;
 
         // set the stats
         setStats({
-          totalProducts:productData.length,
-          lowStockCount:lowProducts.length,
-          healthyStockCount:healthyProducts.length,
-          totalSuppliers:suppliers.length
+          totalProducts:data.totalProducts,
+          lowStockCount:data.lowStockCount,
+          healthyStockCount:data.healthyStockCount,
+          totalSuppliers:data.totalSuppliers
         })
 
-        const topProducts = [...productData]
-          .sort((a,b) => b.stock-a.stock)
-          .slice(0,5)
+        const topProducts = data.topProducts
           .map((p) => ({
             name: p.name.length > 10 ? p.name.substring(0, 10) + '...' : p.name,
             stock: p.stock,
@@ -71,17 +61,11 @@ const Dashboard = () => {
         
           setChartData(topProducts);
 
-          const categories = {};
-            productData.forEach(p => {
-              const category = p.category || 'Other';
-              categories[category] = (categories[category] || 0) + 1;
-            });
+          // products have no category yet, everything counts as 'Other'
+          setCategoryData(data.totalProducts > 0 ? [{ name: 'Other', value: data.totalProducts }] : []);
 
-            const categoryArray = Object.keys(categories).map(key => ({
-              name: key,
-              value: categories[key],
-            }));
-            setCategoryData(categoryArray);
+          setLowStockProducts(lowRes.data.items);
+          setRecentProducts(data.recentProducts);
 
             setLoading(false);
           } catch (error) {
@@ -308,9 +292,7 @@ const Dashboard = () => {
             </button>
           </div>
           <div className="dashboard-alerts-list">
-            {products
-              .filter(p => p.stock < p.minStock)
-              .slice(0, 5)
+            {lowStockProducts
               .map(product => (
                 <div key={product.id} className="dashboard-alert-item">
                   <div className="dashboard-alert-icon">⚠️</div>
@@ -337,7 +319,7 @@ const Dashboard = () => {
       <div className="dashboard-recent">
         <h3 className="dashboard-section-title">Recent Products</h3>
         <div className="dashboard-products-grid">
-          {products.slice(0, 6).map(product => (
+          {recentProducts.map(product => (
             <div key={product.id} className="dashboard-product-card">
               <div className="dashboard-product-header">
                 <h4>{product.name}</h4>
@@ -5,12 +5,20 @@ const InvoicePage = () => {
   const navigate = useNavigate();
   const location = useLocation();
 
-  const itemsFromState = location.state?.items || [];
+  const savedInvoice = location.state?.invoice;
+  const itemsFromState = savedInvoice
+    ? savedInvoice.lines.map((line) => ({
+        id: line.productId,
+        name: line.productName,
+        quantity: line.quantity,
+        price: line.unitPrice,
+      }))
+    : location.state?.items || [];
 
   const [invoiceItems, setInvoiceItems] = useState(itemsFromState);
   const [gstRate] = useState(18); 
-  const [cgstRate] = useState(9);
-  const [sgstRate] = useState(9);
+  const [cgstRate] = useState(savedInvoice?.cgstRate ?? 9);
+  const [sgstRate] = useState(savedInvoice?.sgstRate ?? 9);
 
   const [totals, setTotals] = useState({
     subtotal: 0,
@@ -20,6 +28,17 @@ const InvoicePage = () => {
   });
 
   useEffect(() => {
+    // totals computed by the backend at checkout
+    if (savedInvoice) {
+      setTotals({
+        subtotal: savedInvoice.subtotal,
+        cgst: savedInvoice.cgst,
+        sgst: savedInvoice.sgst,
+        total: savedInvoice.total,
+      });
+      return;
+    }
+
     const subtotal = invoiceItems.reduce(
       (sum, item) => sum + item.price * item.quantity,
       0
@@ -30,7 +49,7 @@ const InvoicePage = () => {
     const total = subtotal + cgst + sgst;
 
     setTotals({ subtotal, cgst, sgst, total });
-  }, [invoiceItems, cgstRate, sgstRate]);
+  }, [invoiceItems, cgstRate, sgstRate, savedInvoice]);
 
   const handlePrint = () => {
     window.print();
@@ -51,7 +70,7 @@ const InvoicePage = () => {
 
       <div style={{ marginBottom: "20px" }}>
         <p><strong>Date:</strong> {new Date().toLocaleDateString()}</p>
-        <p><strong>Invoice No:</strong> INV-{Math.floor(Math.random() * 10000)}</p>
+        <p><strong>Invoice No:</strong> INV-{savedInvoice ? savedInvoice.id : Math.floor(Math.random() * 10000)}</p>
         <p><strong>GST Rate:</strong> {gstRate}% (CGST {cgstRate}% + SGST {sgstRate}%)</p>
       </div>
 
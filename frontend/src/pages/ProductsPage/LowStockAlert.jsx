@@ -1,5 +1,5 @@
 import React, { useState, useEffect } from "react";
-import { getLowStockProducts, updateProduct } from "../../api/productService";
+import { getLowStockProducts, getProductById, subscribeToStockChanges, updateProduct } from "../../api/productService";
 import styles from "./LowStockAlert.module.css";
 import EditProduct from "./EditProduct";
 import { useNavigate } from "react-router-dom";
@@ -50,13 +50,28 @@ Smart Inventory Team`;
     fetchLowStockProducts();
   }, []);
 
-  // auto-refresh every 30s
+  // live updates: apply pushed stock changes instead of re-reading the whole list
   useEffect(() => {
     if (!autoRefresh) return;
-    const interval = setInterval(() => {
-      fetchLowStockProducts();
-    }, 30000);
-    return () => clearInterval(interval);
+    return subscribeToStockChanges(async (delta) => {
+      if (delta.type === "BULK" || delta.type === "MIN_STOCK") {
+        fetchLowStockProducts();
+      } else if (delta.type === "DELETED" || !delta.low) {
+        setLowStockProducts((list) => list.filter((p) => p.id !== delta.productId));
+      } else if (delta.transition === "LOW") {
+        // newly low, fetch it once for the supplier details
+        const response = await getProductById(delta.productId);
+        setLowStockProducts((list) => [...list.filter((p) => p.id !== delta.productId), response.data]);
+      } else {
+        setLowStockProducts((list) =>
+          list.map((p) =>
+            p.id === delta.productId
+              ? { ...p, name: delta.name, stock: delta.stock, minStock: delta.minStock }
+              : p
+          )
+        );
+      }
+    }, fetchLowStockProducts);
   }, [autoRefresh]);
   
 
@@ -109,7 +124,7 @@ Smart Inventory Team`;
               checked={autoRefresh}
               onChange={(e) => setAutoRefresh(e.target.checked)}
             />
-            Auto-refresh (30s)
+            Live updates
           </label>
 
           <button
@@ -1,6 +1,12 @@
-import React, { useEffect, useState } from "react";
+import React, { useEffect, useRef, useState } from "react";
 import { useNavigate } from "react-router-dom";
-import { getAllProducts, sellProducts } from "../../api/productService";
+import {
+  syncCatalog,
+  checkoutInvoice,
+  typeaheadProducts,
+  holdStock,
+  releaseCart,
+} from "../../api/productService";
 import "./SellProduct.css";
 
 const SellProducts = () => {
@@ -12,16 +18,41 @@ const SellProducts = () => {
   const [invoiceItems, setInvoiceItems] = useState([]); // ✅ For multiple products
   const [message, setMessage] = useState({ type: "", text: "" });
   const [searchTerm, setSearchTerm] = useState("");
+  const [matches, setMatches] = useState([]);
   const [loading, setLoading] = useState(false);
+  // id of this bill's stock holds on the server, a new one after every checkout
+  const cartId = useRef(crypto.randomUUID());
 
   useEffect(() => {
     fetchProducts();
+    // leaving the page abandons the bill, give its held units back
+    return () => {
+      releaseCart(cartId.current).catch(() => {});
+    };
   }, []);
 
+  // ranked matches from the backend search index, debounced per keystroke
+  useEffect(() => {
+    const term = searchTerm.trim();
+    if (!term) {
+      setMatches([]);
+      return;
+    }
+    const timer = setTimeout(async () => {
+      try {
+        const response = await typeaheadProducts(term, 20);
+        setMatches(response.data);
+      } catch (error) {
+        console.error("Search failed", error);
+      }
+    }, 150);
+    return () => clearTimeout(timer);
+  }, [searchTerm]);
+
   const fetchProducts = async () => {
     try {
-      const response = await getAllProducts();
-      setProducts(response.data);
+      // only what changed since the last visit comes over the wire
+      setProducts(await syncCatalog());
     } catch (error) {
       console.error("Error fetching products", error);
       setMessage({ type: "error", text: "❌ Failed to load products" });
@@ -30,21 +61,30 @@ const SellProducts = () => {
 
   const handleProductSelect = (e) => {
     const productId = parseInt(e.target.value);
-    const product = products.find((p) => p.id === productId);
+    const product = filteredProducts.find((p) => p.id === productId);
     setSelectedProduct(product);
     setQuantity("");
     setMessage({ type: "", text: "" });
   };
 
-  // ✅ Add item to invoice list (not immediately selling)
-  const handleAddToInvoice = () => {
+  // units of a product already on this bill
+  const heldQuantity = (items, productId) =>
+    items.filter((item) => item.id === productId).reduce((sum, item) => sum + item.quantity, 0);
+
+  // ✅ Add item to invoice list, reserving its stock until checkout so other counters cannot sell it
+  const handleAddToInvoice = async () => {
     if (!selectedProduct || !quantity) {
       alert("⚠️ Please select a product and enter a quantity.");
       return;
     }
 
-    if (parseInt(quantity) > selectedProduct.stock) {
-      alert(`⚠️ Not enough stock! Only ${selectedProduct.stock} available.`);
+    try {
+      await holdStock(cartId.current, selectedProduct.id,
+        heldQuantity(invoiceItems, selectedProduct.id) + parseInt(quantity));
+    } catch (error) {
+      console.error("Reservation failed", error);
+      alert("⚠️ Not enough stock! It may be held by another counter.");
+      fetchProducts();
       return;
     }
 
@@ -70,19 +110,40 @@ const SellProducts = () => {
     setTimeout(() => setMessage({ type: "", text: "" }), 2000);
   };
 
-  // ✅ Generate full invoice
-  const handleGenerateInvoice = () => {
+  // drop a line and shrink its hold to what the remaining lines need
+  const handleRemoveItem = async (index) => {
+    const removed = invoiceItems[index];
+    const remaining = invoiceItems.filter((_, i) => i !== index);
+    setInvoiceItems(remaining);
+    try {
+      await holdStock(cartId.current, removed.id, heldQuantity(remaining, removed.id));
+    } catch (error) {
+      console.error("Could not release reservation", error);
+    }
+  };
+
+  // ✅ Generate full invoice (stock for every line is sold in one checkout call)
+  const handleGenerateInvoice = async () => {
     if (invoiceItems.length === 0) {
       alert("⚠️ No products added to invoice.");
       return;
     }
 
-    navigate("/invoice", { state: { items: invoiceItems } });
+    try {
+      setLoading(true);
+      const response = await checkoutInvoice(invoiceItems, cartId.current);
+      cartId.current = crypto.randomUUID();
+      navigate("/invoice", { state: { items: invoiceItems, invoice: response.data } });
+    } catch (error) {
+      console.error("Checkout failed", error);
+      setMessage({ type: "error", text: "❌ Checkout failed, stock may have changed" });
+      fetchProducts();
+    } finally {
+      setLoading(false);
+    }
   };
 
-  const filteredProducts = products.filter((p) =>
-    p.name.toLowerCase().includes(searchTerm.toLowerCase())
-  );
+  const filteredProducts = searchTerm.trim() ? matches : products;
 
   return (
     <div className="sell-product-container">
@@ -183,6 +244,7 @@ const SellProducts = () => {
                   <th style={{ padding: "8px" }}>Quantity</th>
                   <th style={{ padding: "8px" }}>Price (₹)</th>
                   <th style={{ padding: "8px" }}>Total (₹)</th>
+                  <th style={{ padding: "8px" }}></th>
                 </tr>
               </thead>
               <tbody>
@@ -195,6 +257,15 @@ const SellProducts = () => {
                     <td style={{ padding: "8px" }}>
                       {(item.price * item.quantity).toFixed(2)}
                     </td>
+                    <td style={{ padding: "8px" }}>
+                      <button
+                        onClick={() => handleRemoveItem(index)}
+                        title="Remove and release the reserved stock"
+                        style={{ border: "none", background: "none", cursor: "pointer" }}
+                      >
+                        ✖
+                      </button>
+                    </td>
                   </tr>
                 ))}
               </tbody>
@@ -203,6 +274,7 @@ const SellProducts = () => {
             <div style={{ marginTop: "20px", textAlign: "right" }}>
               <button
                 onClick={handleGenerateInvoice}
+                disabled={loading}
                 style={{
                   padding: "10px 20px",
                   backgroundColor: "#4f46e5",
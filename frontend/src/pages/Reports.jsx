@@ -12,7 +12,8 @@ const Reports = () => {
   const [products, setProducts] = useState([]);
   const [suppliers, setSuppliers] = useState([]);
   const [loading, setLoading] = useState(true);
-  const [dateRange, setDateRange] = useState('all');
+  const [dateRange, setDateRange] = useState('30');
+  const [dailySales, setDailySales] = useState([]);
   const [stats, setStats] = useState({
     totalProducts: 0,
     totalStock: 0,
@@ -25,30 +26,44 @@ const Reports = () => {
     fetchReportsData();
   }, []);
 
+  useEffect(() => {
+    fetchDailySales();
+  }, [dateRange]);
+
+  // per-day totals come from the stock ledger's daily snapshots
+  const fetchDailySales = async () => {
+    const to = new Date();
+    const from = new Date();
+    from.setDate(to.getDate() - Number(dateRange) + 1);
+    const day = d => d.toISOString().split('T')[0];
+    try {
+      const res = await axios.get('http://localhost:8080/api/reports/sales', {
+        params: { from: day(from), to: day(to) }
+      });
+      setDailySales(res.data);
+    } catch (error) {
+      console.error('Error fetching daily sales:', error);
+    }
+  };
+
   const fetchReportsData = async () => {
     try {
       setLoading(true);
-      const productsRes = await axios.get('http://localhost:8080/api/products/view');
-      const productsData = productsRes.data;
-      setProducts(productsData);
-
-      try {
-        const suppliersRes = await axios.get('http://localhost:8080/api/suppliers/view');
-        setSuppliers(suppliersRes.data);
-      } catch (err) {
-        console.log('Suppliers not available');
-      }
-
-      const totalStock = productsData.reduce((sum, p) => sum + p.stock, 0);
-      const lowStock = productsData.filter(p => p.stock < p.minStock);
-      const healthyStock = productsData.filter(p => p.stock >= p.minStock);
+      const [productsRes, statsRes] = await Promise.all([
+        axios.get('http://localhost:8080/api/products/view'),
+        axios.get('http://localhost:8080/api/stats')
+      ]);
+      setProducts(productsRes.data);
 
+      // totals and per-supplier counts come pre-aggregated from the backend
+      const data = statsRes.data;
+      setSuppliers(data.topSuppliers);
       setStats({
-        totalProducts: productsData.length,
-        totalStock: totalStock,
-        lowStockCount: lowStock.length,
-        healthyStockCount: healthyStock.length,
-        totalValue: totalStock
+        totalProducts: data.totalProducts,
+        totalStock: data.totalStock,
+        lowStockCount: data.lowStockCount,
+        healthyStockCount: data.healthyStockCount,
+        totalValue: data.inventoryValue
       });
 
       setLoading(false);
@@ -69,28 +84,12 @@ const Reports = () => {
     { name: 'Healthy', value: stats.healthyStockCount, color: '#28a745' }
   ];
 
-  const supplierData = suppliers.slice(0, 5).map(s => {
-    const productCount = products.filter(p => p.supplier?.id === s.id).length;
-    return { name: s.name || 'Unknown', products: productCount };
-  });
+  const supplierData = suppliers.map(s => ({ name: s.name || 'Unknown', products: s.products }));
 
+  // the backend streams the whole catalog as CSV, the browser only downloads it
   const exportToCSV = () => {
-    const csvContent = [
-      ['ID', 'Name', 'Stock', 'Min Stock', 'Status', 'Supplier'].join(','),
-      ...products.map(p => [
-        p.id,
-        p.name,
-        p.stock,
-        p.minStock,
-        p.stock < p.minStock ? 'Low' : 'Healthy',
-        p.supplier?.email || 'N/A'
-      ].join(','))
-    ].join('\n');
-
-    const blob = new Blob([csvContent], { type: 'text/csv' });
-    const url = window.URL.createObjectURL(blob);
     const a = document.createElement('a');
-    a.href = url;
+    a.href = 'http://localhost:8080/api/products/export';
     a.download = `inventory-report-${new Date().toISOString().split('T')[0]}.csv`;
     a.click();
   };
@@ -194,6 +193,28 @@ const Reports = () => {
           </ResponsiveContainer>
         </div>
 
+        <div className="reports-chart-card full-width">
+          <h3 className="reports-chart-title">
+            📉 Units Sold per Day
+            <select value={dateRange} onChange={e => setDateRange(e.target.value)} style={{ marginLeft: 12 }}>
+              <option value="7">Last 7 days</option>
+              <option value="30">Last 30 days</option>
+              <option value="90">Last 90 days</option>
+            </select>
+          </h3>
+          <ResponsiveContainer width="100%" height={300}>
+            <LineChart data={dailySales}>
+              <CartesianGrid strokeDasharray="3 3" />
+              <XAxis dataKey="day" />
+              <YAxis />
+              <Tooltip />
+              <Legend />
+              <Line type="monotone" dataKey="unitsSold" stroke="#4f46e5" name="Units Sold" />
+              <Line type="monotone" dataKey="unitsRestocked" stroke="#28a745" name="Units Restocked" />
+            </LineChart>
+          </ResponsiveContainer>
+        </div>
+
         {suppliers.length > 0 && (
           <div className="reports-chart-card full-width">
             <h3 className="reports-chart-title">🏢 Products by Supplier</h3>
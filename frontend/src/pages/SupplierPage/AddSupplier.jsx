@@ -11,6 +11,7 @@ const AddSupplier = () => {
         mobile: '',
         email: '',
         company: '',
+        leadTimeDays: '',
     });
     const [message, setMessage] = useState('');
 
@@ -26,7 +27,8 @@ const AddSupplier = () => {
         setMessage('');
 
         try {
-            await addSupplier(supplier);
+            // an empty lead time means the backend default
+            await addSupplier({ ...supplier, leadTimeDays: supplier.leadTimeDays === '' ? null : Number(supplier.leadTimeDays) });
             setMessage('✅ Supplier added successfully!');
             
             // Navigate to the list page after successful creation
@@ -85,6 +87,17 @@ const AddSupplier = () => {
                     className={styles.inputField}
                 />
 
+                {/* Lead time, used for reorder points */}
+                <input 
+                    name="leadTimeDays" 
+                    value={supplier.leadTimeDays} 
+                    onChange={handleChange} 
+                    placeholder="Lead Time (days, optional)" 
+                    type="number"
+                    min="1"
+                    className={styles.inputField}
+                />
+
                 <button type="submit" className={styles.btnUpdate}>
                     Add Supplier
                 </button>
@@ -12,6 +12,7 @@ const EditSupplier = () => {
     mobile: '',
     email: '',
     company: '',
+    leadTimeDays: '',
   });
   
   const [loading, setLoading] = useState(true);
@@ -29,6 +30,7 @@ const EditSupplier = () => {
           mobile: fetchedSupplier.mobile || '',
           email: fetchedSupplier.email || '',
           company: fetchedSupplier.company || '',
+          leadTimeDays: fetchedSupplier.leadTimeDays ?? '',
         });
         setLoading(false);
       } catch (error) {
@@ -57,7 +59,8 @@ const EditSupplier = () => {
     setMessage('');
     
     try {
-      await updateSupplier(id, supplier);
+      // an empty lead time means the backend default
+      await updateSupplier(id, { ...supplier, leadTimeDays: supplier.leadTimeDays === '' ? null : Number(supplier.leadTimeDays) });
       setMessage('✅ Supplier updated successfully!');
       // Navigate back to the supplier list after a brief delay
       setTimeout(() => navigate('/suppliers'), 1000); 
@@ -82,6 +85,7 @@ const EditSupplier = () => {
         <input name="mobile" value={supplier.mobile} onChange={handleChange} placeholder="Mobile Number" required type="text" className={styles.inputField} />
         <input name="email" value={supplier.email} onChange={handleChange} placeholder="Email" required type="email" className={styles.inputField} />
         <input name="company" value={supplier.company} onChange={handleChange} placeholder="Company Name" required className={styles.inputField} />
+        <input name="leadTimeDays" value={supplier.leadTimeDays} onChange={handleChange} placeholder="Lead Time (days, optional)" type="number" min="1" className={styles.inputField} />
 
         <button type="submit" className={styles.btnUpdate}>
           Update Supplier